@@ -1,10 +1,21 @@
 /* Raymice - https://github.com/Raymice - 2025 */
 package com.raymice.sse.configuration;
 
+import com.raymice.sse.routing.JmsPayloadConverter;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.time.Duration;
 import lombok.Data;
+import org.apache.camel.component.jms.JmsComponent;
+import org.apache.camel.component.jms.JmsHeaderFilterStrategy;
+import org.apache.camel.spi.ComponentCustomizer;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 @Data
@@ -14,4 +25,114 @@ import org.springframework.validation.annotation.Validated;
 public class ActiveMQConfig {
 
   @NotNull private Integer concurrentConsumers; // spring.data.activemq.concurrentConsumers
+
+  // Upper bound of the consumers of an input queue, 0 to keep 'concurrentConsumers'
+  @NotNull
+  @Min(0)
+  private Integer maxConcurrentConsumers = 0; // spring.data.activemq.maxConcurrentConsumers
+
+  // Scaling of the consumers of the input queues
+  @Valid private Autoscaling autoscaling = new Autoscaling(); // spring.data.activemq.autoscaling
+
+  // Transacted batch consumption of the input queues
+  @Valid private Batch batch = new Batch(); // spring.data.activemq.batch
+
+  // Encoding of the payloads sent over ActiveMQ
+  @Valid private Payload payload = new Payload(); // spring.data.activemq.payload
+
+  // Broker embedded in the application (profile 'embedded')
+  @Valid private Embedded embedded = new Embedded(); // spring.data.activemq.embedded
+
+  @Data
+  public static class Autoscaling {
+    // Adjust the consumers of each route between concurrentConsumers and maxConcurrentConsumers
+    // (not with the batch consumption)
+    @NotNull private Boolean enabled = false; // spring.data.activemq.autoscaling.enabled
+
+    // Time between two scaling decisions
+    @NotNull
+    private Duration interval = Duration.ofSeconds(5); // spring.data.activemq.autoscaling.interval
+
+    // Messages waiting in the queue for each consumer
+    @NotNull @Positive
+    private Integer backlogPerConsumer = 50; // spring.data.activemq.autoscaling.backlogPerConsumer
+
+    // Oldest in-flight message above which a route is not scaled up (downstream saturated)
+    @NotNull
+    private Duration maxLatency =
+        Duration.ofSeconds(10); // spring.data.activemq.autoscaling.maxLatency
+
+    // Time to wait for the statistics of a queue (statisticsBrokerPlugin of the broker)
+    @NotNull
+    private Duration statisticsTimeout =
+        Duration.ofSeconds(1); // spring.data.activemq.autoscaling.statisticsTimeout
+
+    // Time before asking again for the statistics once the broker did not answer (no plugin)
+    @NotNull
+    private Duration statisticsRetry =
+        Duration.ofMinutes(5); // spring.data.activemq.autoscaling.statisticsRetry
+  }
+
+  @Data
+  public static class Batch {
+    // Consume the input queues by transacted batches instead of one message at a time
+    @NotNull private Boolean enabled = false; // spring.data.activemq.batch.enabled
+
+    // Maximum number of messages of a batch
+    @NotNull @Positive private Integer size = 100; // spring.data.activemq.batch.size
+
+    // Time to fill a batch once its first message is received
+    @NotNull
+    private Duration timeout = Duration.ofMillis(100); // spring.data.activemq.batch.timeout
+  }
+
+  /**
+   * Payloads sent as BytesMessage and decoded by the consumers of all the
+   * ActiveMQ endpoints (see {@link JmsPayloadConverter})
+   *
+   * @return the customizer of the ActiveMQ component
+   */
+  @Bean
+  public ComponentCustomizer jmsPayloadCustomizer() {
+    return ComponentCustomizer.forType(
+        JmsComponent.class,
+        component -> {
+          component.setMessageConverter(
+              new JmsPayloadConverter(
+                  payload.getCompressed(), payload.getCompressionThreshold().toBytes()));
+
+          // The codec is read from the JMS message by the converter, never from the Camel headers
+          final JmsHeaderFilterStrategy headerFilterStrategy = new JmsHeaderFilterStrategy();
+          headerFilterStrategy.getInFilter().add(JmsPayloadConverter.CODEC_PROPERTY);
+          headerFilterStrategy.getOutFilter().add(JmsPayloadConverter.CODEC_PROPERTY);
+          component.setHeaderFilterStrategy(headerFilterStrategy);
+        });
+  }
+
+  @Data
+  public static class Payload {
+    // Compress the payloads (Deflate) above the threshold, decoded by the consumers
+    // (enable once all the nodes can decode them)
+    @NotNull private Boolean compressed = false; // spring.data.activemq.payload.compressed
+
+    // Minimum size of a compressed payload (smaller ones are not worth it)
+    @NotNull
+    private DataSize compressionThreshold =
+        DataSize.ofKilobytes(4); // spring.data.activemq.payload.compressionThreshold
+  }
+
+  @Data
+  public static class Embedded {
+    // Name of the broker, referenced by the 'vm://' URL of the connection factory
+    @NotBlank
+    private String brokerName = "sse-embedded"; // spring.data.activemq.embedded.brokerName
+
+    // Keep the messages in a KahaDB store, otherwise they are lost when the application stops
+    @NotNull private Boolean persistent = false; // spring.data.activemq.embedded.persistent
+
+    // Directory of the KahaDB store
+    @NotBlank
+    private String dataDirectory =
+        "/tmp/activemq-data"; // spring.data.activemq.embedded.dataDirectory
+  }
 }
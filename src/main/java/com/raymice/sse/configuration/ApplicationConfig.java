@@ -1,30 +1,95 @@
 /* Raymice - https://github.com/Raymice - 2025 */
 package com.raymice.sse.configuration;
 
+import static com.raymice.sse.constant.Mx.PACS_008_001_08;
+
+import com.raymice.sse.db.entity.ProcessEntity;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 @Data
 @Validated
 @EnableAspectJAutoProxy
+@EnableScheduling
 @Configuration
 @ConfigurationProperties(prefix = "app")
 public class ApplicationConfig {
 
   @Valid private Routing routing = new Routing(); // app.routing
   @Valid private Redelivery redelivery = new Redelivery(); // app.redelivery
+  @Valid private Validation validation = new Validation(); // app.validation
+  @Valid private Database database = new Database(); // app.database
 
   @Data
   public static class Routing {
     @Valid private File file = new File(); // app.routing.file
     @Valid private Queue queue = new Queue(); // app.routing.queue
+    @Valid private ClaimCheck claimCheck = new ClaimCheck(); // app.routing.claimCheck
+    @Valid private Transport transport = new Transport(); // app.routing.transport
+  }
+
+  @Data
+  public static class Transport {
+    // Transport of the messages between the routes: ACTIVEMQ (durable queues, several nodes) or
+    // SEDA (in-memory queues, single node only, unfinished processes re-sent at startup)
+    @NotNull private Mode mode = Mode.ACTIVEMQ; // app.routing.transport.mode
+
+    // Maximum number of messages waiting in each in-memory queue (the producers wait when full)
+    @NotNull @Positive private Integer sedaSize = 1000; // app.routing.transport.sedaSize
+
+    // Number of consumers of each in-memory queue
+    @NotNull @Positive
+    private Integer sedaConcurrentConsumers = 5; // app.routing.transport.sedaConcurrentConsumers
+
+    // Only the unfinished processes created within this window are re-sent at startup
+    @NotNull
+    private Duration recoveryWindow = Duration.ofDays(1); // app.routing.transport.recoveryWindow
+
+    // Number of processes read at once by the recovery
+    @NotNull @Positive
+    private Integer recoveryBatchSize = 500; // app.routing.transport.recoveryBatchSize
+
+    public boolean isSeda() {
+      return mode == Mode.SEDA;
+    }
+
+    public enum Mode {
+      ACTIVEMQ,
+      SEDA
+    }
+  }
+
+  @Data
+  public static class ClaimCheck {
+    // Send only the process reference over ActiveMQ, consumers load the payload from the DB
+    @NotNull private Boolean enabled = false; // app.routing.claimCheck.enabled
+
+    // Payloads from this size (without line breaks) are always sent by reference, even if disabled
+    @NotNull
+    private DataSize threshold = DataSize.ofMegabytes(4); // app.routing.claimCheck.threshold
+
+    // Max size of the (compressed) payloads kept in memory for the consumers of the same node
+    @NotNull
+    private DataSize localCacheSize =
+        DataSize.ofMegabytes(64); // app.routing.claimCheck.localCacheSize
   }
 
   @Data
@@ -35,6 +100,78 @@ public class ApplicationConfig {
     @Valid private int maximumRedeliveryDelay = 60000; // app.redelivery.maximumRedeliveryDelay
   }
 
+  @Data
+  public static class Database {
+    // Group commit of the process creations
+    @Valid private Batch processInsert = new Batch(); // app.database.processInsert
+    // Group commit of the status transitions
+    @Valid private StatusBatch statusUpdate = new StatusBatch(); // app.database.statusUpdate
+    // Daily partitions of the process tables
+    @Valid private Partition partition = new Partition(); // app.database.partition
+  }
+
+  @Data
+  public static class Partition {
+    // Create future partitions and expire old ones
+    @NotNull private Boolean enabled = true; // app.database.partition.enabled
+    // Schedule of the maintenance (also run at startup)
+    @NotBlank private String cron = "0 0 1 * * *"; // app.database.partition.cron
+    // Number of days for which partitions are created in advance
+    @NotNull @Positive private Integer premake = 7; // app.database.partition.premake
+    // Partitions whose days are all older than the retention are expired (0 = never expired)
+    @NotNull private Duration retention = Duration.ZERO; // app.database.partition.retention
+    // Drop expired partitions and their payloads (otherwise only detach them, e.g. to archive them)
+    @NotNull private Boolean drop = false; // app.database.partition.drop
+
+    // Maximum wait for a table lock, the partition is retried on the next run (never blocks the
+    // inserts queued behind the maintenance)
+    @NotNull
+    private Duration lockTimeout = Duration.ofSeconds(5); // app.database.partition.lockTimeout
+  }
+
+  @Data
+  public static class Batch {
+    // Group concurrent writes in a single transaction
+    @NotNull private Boolean enabled = true; // app.database.*.enabled
+    // Maximum number of rows written at once
+    @NotNull @Positive private Integer maxSize = 100; // app.database.*.maxSize
+    // Maximum time to wait for other rows once a first one is queued
+    @NotNull private Duration maxDelay = Duration.ofMillis(5); // app.database.*.maxDelay
+  }
+
+  @Data
+  @EqualsAndHashCode(callSuper = true)
+  public static class StatusBatch extends Batch {
+    // Statuses for which the route waits for the commit, the others are written asynchronously
+    // (safe since the transitions are checked in database)
+    @NotNull
+    private Set<ProcessEntity.Status> syncStatuses =
+        EnumSet.of(
+            ProcessEntity.Status.COMPLETED,
+            ProcessEntity.Status.UNSUPPORTED,
+            ProcessEntity.Status.FAILED); // app.database.statusUpdate.syncStatuses
+  }
+
+  @Data
+  public static class Validation {
+    @Valid private Schema schema = new Schema(); // app.validation.schema
+  }
+
+  @Data
+  public static class Schema {
+    // Validate MX messages against their XSD
+    @NotNull private Boolean enabled = true; // app.validation.schema.enabled
+    // Location of the XSD files ('%s' is replaced by the MX id, e.g. pacs.008.001.08)
+    @NotBlank private String location = "classpath:xsd/%s.xsd"; // app.validation.schema.location
+
+    // MX ids compiled at startup (avoid the compile cost on the first messages)
+    @NotNull
+    private List<String> precompile = List.of(PACS_008_001_08); // app.validation.schema.precompile
+
+    // Reject messages when no XSD is available for their MX id
+    @NotNull private Boolean failOnMissing = false; // app.validation.schema.failOnMissing
+  }
+
   @Data
   public static class File {
     @Valid private Input input = new Input(); // app.routing.file.input
@@ -45,6 +182,117 @@ public class ApplicationConfig {
   public static class Input {
     // Input directory for files
     @NotNull private URI path = URI.create("/tmp/input"); // app.routing.file.input.path
+    // Staging of the inbox for very large backlogs
+    @Valid private Staging staging = new Staging(); // app.routing.file.input.staging
+
+    // Ownership of the staging buckets by the nodes
+    @Valid
+    private Partitioning partitioning = new Partitioning(); // app.routing.file.input.partitioning
+
+    // Detection of the files already received
+    @Valid private Duplicates duplicates = new Duplicates(); // app.routing.file.input.duplicates
+
+    // Archives of messages (zip, tar, gzip)
+    @Valid private Archives archives = new Archives(); // app.routing.file.input.archives
+
+    // Envelopes of business messages (several AppHdr/Document in a single XML file)
+    @Valid private Envelopes envelopes = new Envelopes(); // app.routing.file.input.envelopes
+  }
+
+  @Data
+  public static class Archives {
+    // Extract the entries of the received archives, each one is processed as a received file
+    @NotNull private Boolean enabled = true; // app.routing.file.input.archives.enabled
+
+    // Maximum number of archive entries processed in parallel, all archives together
+    // (the archives themselves are read apart)
+    @NotNull
+    @Min(1)
+    private Integer parallelism = 8; // app.routing.file.input.archives.parallelism
+
+    // Maximum extracted size of an entry (at most 2GB)
+    @NotNull
+    private DataSize maxEntrySize =
+        DataSize.ofMegabytes(64); // app.routing.file.input.archives.maxEntrySize
+
+    // Maximum number of entries of an archive
+    @NotNull @Positive
+    private Integer maxEntries = 100_000; // app.routing.file.input.archives.maxEntries
+
+    // Maximum ratio between the extracted and the read sizes of an archive (zip bombs)
+    @NotNull @Positive
+    private Integer maxCompressionRatio =
+        100; // app.routing.file.input.archives.maxCompressionRatio
+  }
+
+  @Data
+  public static class Envelopes {
+    // Split the received envelopes, each message is processed as a received file
+    // (opt-in: every received XML file is then scanned for an envelope before its processing)
+    @NotNull private Boolean enabled = false; // app.routing.file.input.envelopes.enabled
+
+    // Maximum number of envelope messages processed in parallel, all envelopes together
+    // (the envelopes themselves are read apart)
+    @NotNull
+    @Min(1)
+    private Integer parallelism = 8; // app.routing.file.input.envelopes.parallelism
+  }
+
+  @Data
+  public static class Duplicates {
+    // Files whose content was already received are not processed again (status DUPLICATE)
+    @NotNull private Boolean enabled = false; // app.routing.file.input.duplicates.enabled
+
+    // Time during which a content is considered as already received
+    @NotNull
+    private Duration window = Duration.ofDays(7); // app.routing.file.input.duplicates.window
+
+    // Number of recent contents remembered in memory (read instead of a registration attempt)
+    @NotNull @Positive
+    private Integer cacheSize = 100_000; // app.routing.file.input.duplicates.cacheSize
+  }
+
+  @Data
+  public static class Partitioning {
+    // Each node only consumes the buckets it leases (requires staging with buckets)
+    @NotNull private Boolean enabled = false; // app.routing.file.input.partitioning.enabled
+
+    // Lifetime of a lease, a lost node's buckets are taken over after this delay
+    @NotNull
+    private Duration leaseTtl =
+        Duration.ofSeconds(15); // app.routing.file.input.partitioning.leaseTtl
+
+    // Interval of the lease renewals (must be well below the lease TTL)
+    @NotNull
+    private Duration heartbeat =
+        Duration.ofSeconds(3); // app.routing.file.input.partitioning.heartbeat
+  }
+
+  @Data
+  public static class Staging {
+    // Move the inbox files by small batches into a bounded directory consumed by Camel
+    @NotNull private Boolean enabled = false; // app.routing.file.input.staging.enabled
+    // Staging directory (relative to the input directory, hidden to be ignored by the scans)
+    @NotBlank private String directory = ".ready"; // app.routing.file.input.staging.directory
+    // Maximum number of files waiting in the staging directory
+    @NotNull @Positive private Integer maxFiles = 1000; // app.routing.file.input.staging.maxFiles
+    // Maximum number of files moved per cycle
+    @NotNull @Positive private Integer batchSize = 200; // app.routing.file.input.staging.batchSize
+
+    // Delay between two cycles
+    @NotNull
+    private Duration interval = Duration.ofMillis(100); // app.routing.file.input.staging.interval
+
+    // Files modified more recently are still being written: left in the inbox until the next walk
+    // (0 = files are written atomically, e.g. write then rename)
+    @NotNull
+    private Duration minAge = Duration.ofSeconds(1); // app.routing.file.input.staging.minAge
+
+    // Number of hashed sub-directories of the staging directory (0 = none)
+    @NotNull
+    @Min(0)
+    @Max(256)
+    private Integer buckets = 0; // app.routing.file.input.staging.buckets
   }
 
   @Data
@@ -57,6 +305,15 @@ public class ApplicationConfig {
     // Output directory for unsupported (will be created if not exist)
     @NotNull
     private URI unsupported = URI.create("/tmp/unsupported"); // app.routing.file.output.unsupported
+
+    // Output directory for duplicates (will be created if not exist)
+    @NotNull
+    private URI duplicate = URI.create("/tmp/duplicate"); // app.routing.file.output.duplicate
+
+    // Move the received file to its output directory instead of rewriting the payload
+    @NotNull private Boolean zeroCopy = true; // app.routing.file.output.zeroCopy
+    // Directory of the received files waiting for their output (relative to the input directory)
+    @NotBlank private String staged = ".staged"; // app.routing.file.output.staged
   }
 
   @Data
@@ -73,6 +330,25 @@ public class ApplicationConfig {
     return routing.file.input.path.getPath();
   }
 
+  /**
+   * Directory consumed by the file route: the staging directory if enabled,
+   * the input directory otherwise
+   */
+  public String getFileConsumerPath() {
+    final Staging staging = routing.file.input.staging;
+    return staging.enabled
+        ? Path.of(getFileInputPath(), staging.directory).toString()
+        : getFileInputPath();
+  }
+
+  /**
+   * Directory of the received files waiting for their output (see
+   * 'app.routing.file.output.zeroCopy')
+   */
+  public String getFileStagedPath() {
+    return Path.of(getFileInputPath(), routing.file.output.staged).toString();
+  }
+
   public String getFileOutputSuccessPath() {
     return routing.file.output.success.getPath();
   }
@@ -85,6 +361,10 @@ public class ApplicationConfig {
     return routing.file.output.error.getPath();
   }
 
+  public String getFileOutputDuplicatePath() {
+    return routing.file.output.duplicate.getPath();
+  }
+
   public String getQueueValidatorName() {
     return routing.queue.validator;
   }
@@ -3,8 +3,13 @@ package com.raymice.sse.configuration;
 
 import com.raymice.sse.event.AuditEventNotifier;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import lombok.Data;
@@ -50,7 +55,8 @@ public class CamelConfig {
     // Include hidden directories or not (use false to avoid conflits)
     @NotNull private Boolean hiddenDirs = false; // spring.camel.fileProcessor.hiddenDirs
 
-    // Character set to use when reading files
+    // Character set to use when reading files, only UTF-8 is supported: the payloads are hashed
+    // and stored as read (see PayloadUtils)
     @NotBlank private String charset = "UTF-8"; // spring.camel.fileProcessor.charset
 
     // Interval to check for read lock in milliseconds
@@ -60,6 +66,50 @@ public class CamelConfig {
     // Duration to wait for read lock in milliseconds
     // readLockTimeout need to be at least readLockCheckInterval * 2
     @NotNull private Integer readLockTimeout = 10000; // spring.camel.fileProcessor.readLockTimeout
+
+    // Read lock strategy ('idempotent' skips the change detection, only when the producers
+    // write the files atomically, e.g. write then rename)
+    @NotBlank private String readLock = "idempotent-changed"; // spring.camel.fileProcessor.readLock
+
+    // How new files are discovered: periodic scan (POLL) or directory events (WATCH)
+    @NotNull private Discovery discovery = Discovery.POLL; // spring.camel.fileProcessor.discovery
+
+    // Maximum number of files picked per poll (0 = unlimited), the next poll follows immediately
+    @NotNull
+    @Min(0)
+    private Integer maxMessagesPerPoll = 500; // spring.camel.fileProcessor.maxMessagesPerPoll
+
+    // Interval of the reconciliation scan in WATCH mode, in milliseconds
+    @NotNull @Positive
+    private Integer reconcileInterval = 30000; // spring.camel.fileProcessor.reconcileInterval
+
+    /**
+     * The files are streamed as raw bytes (line breaks stripped, hashed and
+     * stored as UTF-8): any other charset would be stored without transcoding.
+     *
+     * @return true if the charset is UTF-8
+     */
+    @AssertTrue(message = "Only the UTF-8 charset is supported")
+    public boolean isUtf8Charset() {
+      try {
+        return charset == null || Charset.forName(charset).equals(StandardCharsets.UTF_8);
+      } catch (IllegalArgumentException e) {
+        return false;
+      }
+    }
+  }
+
+  public enum Discovery {
+    /**
+     * Camel scans the directory periodically.
+     */
+    POLL,
+
+    /**
+     * Scan triggered by the directory events, plus a periodic reconciliation
+     * scan.
+     */
+    WATCH
   }
 
   @Bean
@@ -0,0 +1,58 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.broker.BrokerPlugin;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.plugin.StatisticsBrokerPlugin;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * ActiveMQ broker embedded in the application (profile 'embedded'), for
+ * development, tests and edge nodes running a single instance.
+ * <p>
+ * The connection factory reaches it through the 'vm://' transport (see
+ * application-embedded.properties): the messages are handed over in the JVM,
+ * without TCP nor serialization. The routes are unchanged.
+ * </p>
+ * <p>
+ * The messages are kept in a KahaDB store if
+ * 'spring.data.activemq.embedded.persistent' is enabled, otherwise they are
+ * lost when the application stops.
+ * </p>
+ */
+@Slf4j
+@Profile("embedded")
+@Configuration
+public class EmbeddedBrokerConfiguration {
+
+  /**
+   * Defines the embedded broker, started before the routes and stopped after
+   * them
+   *
+   * @param activeMQConfig the ActiveMQ configuration
+   * @return the broker
+   */
+  @Bean(initMethod = "start", destroyMethod = "stop")
+  public BrokerService embeddedBroker(ActiveMQConfig activeMQConfig) {
+    final ActiveMQConfig.Embedded conf = activeMQConfig.getEmbedded();
+
+    BrokerService broker = new BrokerService();
+    broker.setBrokerName(conf.getBrokerName());
+    broker.setPersistent(conf.getPersistent());
+    broker.setDataDirectory(conf.getDataDirectory());
+    // No remote connector nor management: only reachable from this JVM
+    broker.setUseJmx(false);
+    broker.setUseShutdownHook(false);
+    // Depth of the queues for the autoscaling (see QueueStatisticsProbe)
+    broker.setPlugins(new BrokerPlugin[] {new StatisticsBrokerPlugin()});
+
+    log.info(
+        "📦 Embedded ActiveMQ broker '{}' ({})",
+        conf.getBrokerName(),
+        conf.getPersistent() ? "KahaDB in " + conf.getDataDirectory() : "non persistent");
+    return broker;
+  }
+}
@@ -1,10 +1,11 @@
 /* Raymice - https://github.com/Raymice - 2025 */
 package com.raymice.sse.configuration;
 
+import com.raymice.sse.routing.read.RedisReadLockRepository;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
 import lombok.Data;
-import org.apache.camel.component.redis.processor.idempotent.SpringRedisIdempotentRepository;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,6 +13,7 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.validation.annotation.Validated;
 
 /**
@@ -28,6 +30,13 @@ public class RedisConfiguration {
   @NotNull private Integer timeout; // spring.data.redis.timeout
   @NotBlank private String repositoryName; // spring.data.redis.repositoryName
 
+  // Lifetime of the read lock of a file (keys expire in Redis)
+  @NotNull private Duration lockTtl = Duration.ofHours(1); // spring.data.redis.lockTtl
+
+  // Time during which a file locked by another node is not asked again to Redis
+  @NotNull
+  private Duration lockRejectedTtl = Duration.ofSeconds(2); // spring.data.redis.lockRejectedTtl
+
   /**
    * Defines the Redis Connection Factory using Lettuce
    *
@@ -36,9 +45,7 @@ public class RedisConfiguration {
   @Bean("myRedisConnectionFactory")
   public RedisConnectionFactory redisConnectionFactory() {
     LettuceClientConfiguration clientConfig =
-        LettuceClientConfiguration.builder()
-            .commandTimeout(java.time.Duration.ofMillis(timeout))
-            .build();
+        LettuceClientConfiguration.builder().commandTimeout(Duration.ofMillis(timeout)).build();
 
     // Need to be updating according to the Redis server settings
     org.springframework.data.redis.connection.RedisConfiguration redisConfig =
@@ -59,6 +66,9 @@ public class RedisConfiguration {
       RedisConnectionFactory redisConnectionFactory) {
     RedisTemplate<String, String> redisTemplate = new RedisTemplate<>();
     redisTemplate.setConnectionFactory(redisConnectionFactory);
+    // Plain strings (readable keys, prefix matching with SCAN)
+    redisTemplate.setKeySerializer(RedisSerializer.string());
+    redisTemplate.setValueSerializer(RedisSerializer.string());
     return redisTemplate;
   }
 
@@ -66,14 +76,15 @@ public class RedisConfiguration {
    * Defines a Redis-based Idempotent Repository for file processing (will be used
    * as a shared read lock)
    *
-   * @param redisTemplate the Redis template
+   * @param redisConnectionFactory the Redis connection factory
    * @return the Idempotent Repository
    */
   @Bean("myRedisIdempotentRepository")
-  public SpringRedisIdempotentRepository myRedisIdempotentRepository(
-      RedisTemplate<String, String> redisTemplate) {
-    // Group the keys in Redis under repositoryName provided in application
+  public RedisReadLockRepository myRedisIdempotentRepository(
+      RedisConnectionFactory redisConnectionFactory) {
+    // Prefix the keys in Redis with repositoryName provided in application
     // properties
-    return new SpringRedisIdempotentRepository(redisTemplate, repositoryName);
+    return new RedisReadLockRepository(
+        redisConnectionFactory, repositoryName, lockTtl, lockRejectedTtl);
   }
 }
@@ -21,5 +21,9 @@ public class Header {
       CUSTOM_PATTERN + "ORIGINAL_FILE_NAME";
   public static final String CUSTOM_HEADER_UPDATED_FILE_NAME = CUSTOM_PATTERN + "UPDATED_FILE_NAME";
   public static final String CUSTOM_HEADER_PROCESS_ID = CUSTOM_PATTERN + "PROCESS_ID";
+  public static final String CUSTOM_HEADER_PROCESS_CREATED_AT =
+      CUSTOM_PATTERN + "PROCESS_CREATED_AT";
   public static final String CUSTOM_HEADER_STATUS = CUSTOM_PATTERN + "STATUS";
+  public static final String CUSTOM_HEADER_CLAIM_CHECK = CUSTOM_PATTERN + "CLAIM_CHECK";
+  public static final String CUSTOM_HEADER_STAGED_FILE = CUSTOM_PATTERN + "STAGED_FILE";
 }
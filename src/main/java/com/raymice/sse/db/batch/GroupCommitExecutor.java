@@ -0,0 +1,245 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.db.batch;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Group commit of concurrent write requests.
+ * <p>
+ * Items submitted by concurrent callers are queued and written by a single
+ * worker thread, in batches of at most 'maxBatchSize' items collected during at
+ * most 'maxDelay'. Each caller gets back the result of its own item.
+ * </p>
+ * <p>
+ * If a batch fails, its items are written one by one so that a single invalid
+ * item does not fail the whole batch.
+ * </p>
+ * <p>
+ * Metrics (tagged with the executor name): 'db.batch.size' (items per batch),
+ * 'db.batch.flush' (time to write a batch) and 'db.batch.pending' (queued
+ * items).
+ * </p>
+ *
+ * @param <T> type of the submitted items
+ * @param <R> type of the results (one per item, same order)
+ */
+@Slf4j
+public class GroupCommitExecutor<T, R> implements AutoCloseable {
+
+  private static final Duration IDLE_POLL = Duration.ofMillis(100);
+
+  private final String name;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final Function<List<T>, List<R>> writer;
+  private final BlockingQueue<Request<T, R>> queue = new LinkedBlockingQueue<>();
+  private final Thread worker;
+  private final DistributionSummary batchSize;
+  private final Timer flushTimer;
+
+  private volatile boolean running = true;
+
+  /**
+   * @param name         name of the executor (used for the worker thread)
+   * @param maxBatchSize maximum number of items written at once
+   * @param maxDelay     maximum time to wait for other items once a first one
+   *                     is queued
+   * @param writer       function writing a batch of items, must return one
+   *                     result per item in the same order
+   * @param registry     registry of the metrics
+   */
+  public GroupCommitExecutor(
+      @NotBlank String name,
+      int maxBatchSize,
+      @NotNull Duration maxDelay,
+      @NotNull Function<List<T>, List<R>> writer,
+      @NotNull MeterRegistry registry) {
+    Validate.notBlank(name, "Name must not be blank");
+    Validate.isTrue(maxBatchSize > 0, "MaxBatchSize must be positive");
+    Validate.notNull(maxDelay, "MaxDelay must not be null");
+    Validate.notNull(writer, "Writer must not be null");
+    Validate.notNull(registry, "Registry must not be null");
+
+    this.name = name;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelay.toNanos();
+    this.writer = writer;
+    this.batchSize =
+        DistributionSummary.builder("db.batch.size")
+            .description("Number of items written per batch")
+            .tag("name", name)
+            .register(registry);
+    this.flushTimer =
+        Timer.builder("db.batch.flush")
+            .description("Time to write a batch")
+            .tag("name", name)
+            .register(registry);
+    Gauge.builder("db.batch.pending", queue, BlockingQueue::size)
+        .description("Number of items waiting to be written")
+        .tag("name", name)
+        .register(registry);
+    this.worker = Thread.ofPlatform().name(name).daemon().start(this::run);
+  }
+
+  /**
+   * Queue an item to be written with the next batch.
+   *
+   * @param item the item to write
+   * @return a future completed with the result of the item once its batch is
+   *         committed
+   */
+  public CompletableFuture<R> submit(@NotNull T item) {
+    Validate.notNull(item, "Item must not be null");
+
+    final Request<T, R> request = new Request<>(item, new CompletableFuture<>());
+
+    synchronized (queue) {
+      if (!running) {
+        request
+            .result()
+            .completeExceptionally(
+                new IllegalStateException("Executor '%s' is closed".formatted(name)));
+        return request.result();
+      }
+
+      queue.add(request);
+    }
+
+    return request.result();
+  }
+
+  /**
+   * Queue an item and wait until its batch is committed.
+   *
+   * @param item the item to write
+   * @return the result of the item
+   * @throws RuntimeException the exception raised while writing the item
+   */
+  public R execute(@NotNull T item) {
+    try {
+      return submit(item).join();
+    } catch (CompletionException e) {
+      // Rethrow the original exception (error handling relies on its type)
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Stop accepting items and write the ones already queued.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    synchronized (queue) {
+      // No item can be queued once the flag is cleared, the worker drains the queue
+      running = false;
+    }
+    worker.join(TimeUnit.SECONDS.toMillis(30));
+  }
+
+  private void run() {
+    final List<Request<T, R>> batch = new ArrayList<>(maxBatchSize);
+
+    while (running || !queue.isEmpty()) {
+      try {
+        collect(batch);
+      } catch (InterruptedException e) {
+        // Keep going until the queue is drained
+        log.debug("Worker of '{}' interrupted", name);
+      }
+
+      if (!batch.isEmpty()) {
+        write(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Wait for a first item, then for other items until the batch is full or the
+   * delay is elapsed.
+   */
+  private void collect(List<Request<T, R>> batch) throws InterruptedException {
+    final Request<T, R> first = queue.poll(IDLE_POLL.toNanos(), TimeUnit.NANOSECONDS);
+    if (first == null) {
+      return;
+    }
+
+    batch.add(first);
+    final long deadline = System.nanoTime() + maxDelayNanos;
+
+    while (batch.size() < maxBatchSize) {
+      // Take what is already available without waiting
+      queue.drainTo(batch, maxBatchSize - batch.size());
+
+      final long remaining = deadline - System.nanoTime();
+      if (batch.size() >= maxBatchSize || remaining <= 0) {
+        break;
+      }
+
+      final Request<T, R> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+      if (next == null) {
+        break;
+      }
+      batch.add(next);
+    }
+  }
+
+  private void write(List<Request<T, R>> batch) {
+    final List<R> results;
+    final long start = System.nanoTime();
+    try {
+      results = writer.apply(batch.stream().map(Request::item).toList());
+      batchSize.record(batch.size());
+      flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    } catch (Exception e) {
+      if (batch.size() == 1) {
+        batch.getFirst().result().completeExceptionally(e);
+      } else {
+        log.warn(
+            "⚠️ Batch of {} items failed on '{}', writing them one by one: {}",
+            batch.size(),
+            name,
+            e.getMessage());
+        batch.forEach(request -> write(List.of(request)));
+      }
+      return;
+    }
+
+    complete(batch, results);
+  }
+
+  private void complete(List<Request<T, R>> batch, List<R> results) {
+    if (results == null || results.size() != batch.size()) {
+      final IllegalStateException e =
+          new IllegalStateException(
+              "Writer of '%s' returned an unexpected number of results".formatted(name));
+      batch.forEach(request -> request.result().completeExceptionally(e));
+      return;
+    }
+
+    for (int i = 0; i < batch.size(); i++) {
+      batch.get(i).result().complete(results.get(i));
+    }
+  }
+
+  private record Request<T, R>(T item, CompletableFuture<R> result) {}
+}
@@ -0,0 +1,196 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.db.batch;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.sevice.ProcessFingerprintService;
+import com.raymice.sse.db.sevice.ProcessHistoryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.constraints.NotNull;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Writer of the process status transitions.
+ * <p>
+ * Transitions coming from all the routes are grouped in a single JDBC batch
+ * ('app.database.statusUpdate'). The caller waits for the commit of the
+ * statuses listed in 'syncStatuses' (e.g. terminal statuses), the other ones
+ * are written asynchronously.
+ * </p>
+ * <p>
+ * Each update is conditional: the row is only updated if its current status is
+ * an allowed predecessor of the new one ({@link ProcessEntity.Status#predecessors()}),
+ * so that redeliveries and concurrent consumers cannot move a process backward
+ * or rewrite the same status. The applied transitions are appended to the
+ * history in the same transaction, and the fingerprints of the failed
+ * processes are released (see {@link ProcessFingerprintService}).
+ * </p>
+ * <p>
+ * The creation date of the process is part of the condition, so that only
+ * its partition is scanned.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProcessStatusWriter {
+
+  private static final String UPDATE_STATUS_SQL =
+      "UPDATE process SET status = ?, updated_at = ?"
+          + " WHERE id = ? AND created_at = ? AND status = ANY (?)";
+
+  // Transition table, compiled once as SQL array parameters
+  private static final Map<ProcessEntity.Status, String[]> PREDECESSORS =
+      new EnumMap<>(ProcessEntity.Status.class);
+
+  static {
+    for (ProcessEntity.Status status : ProcessEntity.Status.values()) {
+      PREDECESSORS.put(
+          status, status.predecessors().stream().map(Enum::name).toArray(String[]::new));
+    }
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ProcessHistoryService processHistoryService;
+  private final ProcessFingerprintService processFingerprintService;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationConfig applicationConfig;
+  private final MeterRegistry meterRegistry;
+
+  // Group commit of the status transitions (null when disabled)
+  private GroupCommitExecutor<StatusUpdate, Boolean> executor;
+
+  @PostConstruct
+  void postConstruct() {
+    final ApplicationConfig.Batch conf = applicationConfig.getDatabase().getStatusUpdate();
+
+    if (conf.getEnabled()) {
+      executor =
+          new GroupCommitExecutor<>(
+              "process-status-update",
+              conf.getMaxSize(),
+              conf.getMaxDelay(),
+              this::updateAll,
+              meterRegistry);
+    }
+  }
+
+  @PreDestroy
+  void preDestroy() throws InterruptedException {
+    if (executor != null) {
+      executor.close();
+    }
+  }
+
+  /**
+   * Check if the transitions to the given status are written synchronously
+   *
+   * @param newStatus the new status
+   * @return true if the caller has to wait for the commit
+   */
+  public boolean isSync(@NotNull ProcessEntity.Status newStatus) {
+    return executor == null
+        || applicationConfig.getDatabase().getStatusUpdate().getSyncStatuses().contains(newStatus);
+  }
+
+  /**
+   * Write the new status of a process and wait for the commit
+   *
+   * @param processId the id of the process
+   * @param createdAt the creation date of the process (partition key)
+   * @param newStatus the new status
+   * @return true if the status was updated, false if the current status does
+   *         not allow the transition (or the process does not exist)
+   */
+  public boolean update(
+      long processId, @NotNull LocalDateTime createdAt, @NotNull ProcessEntity.Status newStatus) {
+    final StatusUpdate update =
+        new StatusUpdate(processId, createdAt, newStatus, LocalDateTime.now());
+
+    return executor != null ? executor.execute(update) : updateAll(List.of(update)).getFirst();
+  }
+
+  /**
+   * Queue the new status of a process without waiting for the commit
+   *
+   * @param processId the id of the process
+   * @param createdAt the creation date of the process (partition key)
+   * @param newStatus the new status
+   * @return a future completed with the result of
+   *         {@link #update(long, LocalDateTime, ProcessEntity.Status)}
+   */
+  public CompletableFuture<Boolean> submit(
+      long processId, @NotNull LocalDateTime createdAt, @NotNull ProcessEntity.Status newStatus) {
+    if (executor == null) {
+      return CompletableFuture.completedFuture(update(processId, createdAt, newStatus));
+    }
+
+    return executor.submit(new StatusUpdate(processId, createdAt, newStatus, LocalDateTime.now()));
+  }
+
+  /**
+   * Update the given statuses and append their history in a single transaction
+   *
+   * @return whether each status update was applied
+   */
+  private List<Boolean> updateAll(List<StatusUpdate> updates) {
+    return transactionTemplate.execute(
+        _ -> {
+          final int[] counts =
+              jdbcTemplate
+                  .batchUpdate(
+                      UPDATE_STATUS_SQL,
+                      updates,
+                      updates.size(),
+                      (ps, update) -> {
+                        ps.setString(1, update.status().name());
+                        ps.setTimestamp(2, Timestamp.valueOf(update.updatedAt()));
+                        ps.setLong(3, update.processId());
+                        ps.setTimestamp(4, Timestamp.valueOf(update.createdAt()));
+                        ps.setArray(
+                            5,
+                            ps.getConnection()
+                                .createArrayOf("varchar", PREDECESSORS.get(update.status())));
+                      })[0];
+
+          // Only the applied transitions are part of the history
+          final List<ProcessHistoryService.Entry> history = new ArrayList<>(updates.size());
+          final List<Long> failed = new ArrayList<>();
+          for (int i = 0; i < updates.size(); i++) {
+            if (counts[i] > 0) {
+              final StatusUpdate update = updates.get(i);
+              history.add(
+                  new ProcessHistoryService.Entry(
+                      update.processId(), update.status(), update.updatedAt()));
+              if (update.status() == ProcessEntity.Status.FAILED) {
+                failed.add(update.processId());
+              }
+            }
+          }
+          processHistoryService.appendAll(history);
+          processFingerprintService.releaseAll(failed);
+
+          return Arrays.stream(counts).mapToObj(count -> count > 0).toList();
+        });
+  }
+
+  private record StatusUpdate(
+      long processId,
+      LocalDateTime createdAt,
+      ProcessEntity.Status status,
+      LocalDateTime updatedAt) {}
+}
@@ -8,15 +8,19 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
  * Entity class representing a process in the database.
- * Contains information about process name, payload, status, and timestamps.
+ * Contains information about process name, payload reference, status, and
+ * timestamps (the payload itself is stored in {@link ProcessPayloadEntity}).
  */
 @NoArgsConstructor
 @AllArgsConstructor
@@ -27,9 +31,11 @@ public class ProcessEntity {
 
   /**
    * Unique identifier for the process.
+   * Allocated by blocks from a pooled sequence, so that inserts can be batched.
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "process_seq")
+  @SequenceGenerator(name = "process_seq", sequenceName = "process_seq", allocationSize = 50)
   private Long id;
 
   /**
@@ -39,10 +45,25 @@ public class ProcessEntity {
   private String name;
 
   /**
-   * Payload data associated with the process.
+   * Hash of the payload associated with the process (see
+   * {@link ProcessPayloadEntity}).
    */
+  @Column(name = "payload_hash", nullable = false)
+  private String payloadHash;
+
+  /**
+   * Identifier of the process of the archive the content was extracted from
+   * (null for a received file).
+   */
+  @Column(name = "parent_id")
+  private Long parentId;
+
+  /**
+   * Kind of content of the process.
+   */
+  @Enumerated(EnumType.STRING)
   @Column(nullable = false)
-  private String payload;
+  private Kind kind;
 
   /**
    * Current status of the process.
@@ -63,6 +84,27 @@ public class ProcessEntity {
   @Column(name = "updated_at", nullable = false)
   private LocalDateTime updatedAt;
 
+  /**
+   * Enumeration representing the kinds of content of a process.
+   */
+  public enum Kind {
+    /**
+     * File received, or extracted from an archive or an envelope.
+     */
+    FILE,
+
+    /**
+     * Archive split into processes (its payload is a description only).
+     */
+    ARCHIVE,
+
+    /**
+     * Envelope of business messages split into processes (its payload is a
+     * description only).
+     */
+    ENVELOPE
+  }
+
   /**
    * Enumeration representing the possible statuses of a process.
    */
@@ -90,6 +132,31 @@ public class ProcessEntity {
     /**
      * Process has failed.
      */
-    FAILED
+    FAILED,
+
+    /**
+     * Process content has already been received (not processed again).
+     */
+    DUPLICATE;
+
+    /**
+     * Statuses from which a process is allowed to move to this status.
+     * <ul>
+     * <li>'FAILED' can be reached from any other status, except 'DUPLICATE'</li>
+     * <li>'DUPLICATE' can only be reached from 'CREATED'</li>
+     * <li>'CREATED' can never be reached (no downgrade)</li>
+     * <li>the other statuses can be reached from any previous status</li>
+     * </ul>
+     *
+     * @return a new set of the allowed previous statuses
+     */
+    public Set<Status> predecessors() {
+      return switch (this) {
+        case CREATED -> EnumSet.noneOf(Status.class);
+        case FAILED -> EnumSet.complementOf(EnumSet.of(FAILED, DUPLICATE));
+        case DUPLICATE -> EnumSet.of(CREATED);
+        default -> EnumSet.range(CREATED, values()[ordinal() - 1]);
+      };
+    }
   }
 }
@@ -0,0 +1,71 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.db.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity class representing the content of a process, stored apart from the
+ * process row.
+ * Content-addressed by its hash: identical payloads are stored once.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Entity
+@Table(name = "process_payload")
+public class ProcessPayloadEntity {
+
+  /**
+   * SHA-256 of the original content (lowercase hex).
+   */
+  @Id private String hash;
+
+  /**
+   * Codec of the stored content.
+   */
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private Codec codec;
+
+  /**
+   * Stored (encoded) content.
+   */
+  @Column(nullable = false)
+  private byte[] content;
+
+  /**
+   * Size in bytes of the original content.
+   */
+  @Column(nullable = false)
+  private Integer size;
+
+  /**
+   * Timestamp when the content was first stored.
+   */
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  /**
+   * Enumeration representing the codecs of the stored content.
+   */
+  public enum Codec {
+    /**
+     * Content stored as is (UTF-8).
+     */
+    NONE,
+
+    /**
+     * Content compressed with Deflate.
+     */
+    DEFLATE
+  }
+}
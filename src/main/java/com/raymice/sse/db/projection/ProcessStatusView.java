@@ -0,0 +1,14 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.db.projection;
+
+import com.raymice.sse.db.entity.ProcessEntity;
+
+/**
+ * Projection of the status of a process.
+ */
+public interface ProcessStatusView {
+
+  Long getId();
+
+  ProcessEntity.Status getStatus();
+}
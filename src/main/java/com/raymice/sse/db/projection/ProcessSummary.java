@@ -0,0 +1,22 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.db.projection;
+
+import com.raymice.sse.db.entity.ProcessEntity;
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a process without its payload reference (only the selected
+ * columns are read).
+ */
+public interface ProcessSummary {
+
+  Long getId();
+
+  String getName();
+
+  ProcessEntity.Status getStatus();
+
+  LocalDateTime getCreatedAt();
+
+  LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,21 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.db.repository;
+
+import com.raymice.sse.db.entity.ProcessPayloadEntity;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProcessPayloadRepo extends JpaRepository<ProcessPayloadEntity, String> {
+
+  @Query(
+      value =
+          "SELECT pp FROM ProcessPayloadEntity pp, ProcessEntity p WHERE p.id = :id"
+              + " AND p.createdAt = :createdAt AND pp.hash = p.payloadHash")
+  Optional<ProcessPayloadEntity> findByProcessId(
+      @Param("id") long processId, @Param("createdAt") LocalDateTime createdAt);
+}
@@ -2,22 +2,63 @@
 package com.raymice.sse.db.repository;
 
 import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.projection.ProcessStatusView;
+import com.raymice.sse.db.projection.ProcessSummary;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface ProcessRepo extends JpaRepository<ProcessEntity, Long> {
 
-  @Transactional
-  @Modifying
+  // The lookups by id also filter on the creation date: only its partition is scanned
+  Optional<ProcessEntity> findByIdAndCreatedAt(long processId, LocalDateTime createdAt);
+
+  @Query(
+      value = "SELECT p.status FROM ProcessEntity p WHERE p.id = :id AND p.createdAt = :createdAt")
+  Optional<ProcessEntity.Status> findStatusById(
+      @Param("id") long processId, @Param("createdAt") LocalDateTime createdAt);
+
+  @Query(
+      value =
+          "SELECT p.id AS id, p.name AS name, p.status AS status, p.createdAt AS createdAt,"
+              + " p.updatedAt AS updatedAt FROM ProcessEntity p"
+              + " WHERE p.id = :id AND p.createdAt = :createdAt")
+  Optional<ProcessSummary> findSummaryById(
+      @Param("id") long processId, @Param("createdAt") LocalDateTime createdAt);
+
+  // Only the partitions of the creation window are scanned
+  @Query(
+      value =
+          "SELECT p.id AS id, p.status AS status FROM ProcessEntity p WHERE p.id IN :ids"
+              + " AND p.createdAt >= :from AND p.createdAt < :to")
+  List<ProcessStatusView> findStatusesByIds(
+      @Param("ids") Collection<Long> processIds,
+      @Param("from") LocalDateTime from,
+      @Param("to") LocalDateTime to);
+
+  // Probes the index of every partition, only for the processes whose creation date is unknown
+  @Query(value = "SELECT p.createdAt FROM ProcessEntity p WHERE p.id = :id")
+  Optional<LocalDateTime> findCreatedAtById(@Param("id") long processId);
+
+  // Processes of the bundles (archives, envelopes) are excluded: their content is not a message
   @Query(
       value =
-          "UPDATE ProcessEntity p SET p.status = :newStatus, p.updatedAt = instant WHERE p.id ="
-              + " :id")
-  void updateStatusById(
-      @Param("newStatus") ProcessEntity.Status status, @Param("id") long processId);
+          "SELECT p.id AS id, p.name AS name, p.status AS status, p.createdAt AS createdAt,"
+              + " p.updatedAt AS updatedAt FROM ProcessEntity p WHERE p.status IN :statuses"
+              + " AND p.createdAt >= :from AND p.createdAt < :to AND p.id > :afterId"
+              + " AND p.kind = com.raymice.sse.db.entity.ProcessEntity.Kind.FILE"
+              + " ORDER BY p.id")
+  List<ProcessSummary> findUnfinished(
+      @Param("statuses") Collection<ProcessEntity.Status> statuses,
+      @Param("from") LocalDateTime from,
+      @Param("to") LocalDateTime to,
+      @Param("afterId") long afterId,
+      Limit limit);
 }
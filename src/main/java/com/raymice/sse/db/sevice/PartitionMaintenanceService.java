@@ -0,0 +1,297 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.db.sevice;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.utils.PartitionUtils;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintenance of the daily range partitions (on 'created_at') of the process
+ * tables ('app.database.partition').
+ * <p>
+ * Partitions are created a few days in advance so that inserts always hit a
+ * small, hot partition. Partitions older than the retention are detached, or
+ * dropped along with the payloads no longer referenced.
+ * </p>
+ * <p>
+ * The tables are never locked against the queries for long:
+ * </p>
+ * <ul>
+ * <li>each partition is created apart and attached in its own short
+ * transaction (the attach does not block the reads and writes of the
+ * table);</li>
+ * <li>expired partitions are detached one by one, concurrently (outside of a
+ * transaction), a detach interrupted is finalized on the next run;</li>
+ * <li>the table locks are awaited at most 'lockTimeout', the partition is
+ * handled on the next run otherwise.</li>
+ * </ul>
+ * <p>
+ * There is no DEFAULT partition (it would prevent the concurrent detach and be
+ * scanned on each new partition): the 'premake' days created in advance are
+ * the slack of a failing maintenance. The startup fails if no partition
+ * receives the processes created now, rather than failing on each insert.
+ * </p>
+ * <p>
+ * Runs at startup and on schedule. Only one node runs it at a time
+ * (session-level advisory lock).
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PartitionMaintenanceService {
+
+  public static final List<String> PARTITIONED_TABLES = List.of("process", "process_history");
+
+  // Arbitrary key shared by all the nodes
+  private static final long ADVISORY_LOCK_KEY = 0x5353455041525449L;
+
+  private static final String FIND_PARTITIONS_SQL =
+      "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), i.inhdetachpending FROM pg_inherits i"
+          + " JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)";
+
+  // Created before the retention cutoff and no longer referenced by a process
+  private static final String PURGE_PAYLOADS_SQL =
+      "DELETE FROM process_payload pp WHERE pp.created_at < ?"
+          + " AND NOT EXISTS (SELECT 1 FROM process p WHERE p.payload_hash = pp.hash)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ApplicationConfig applicationConfig;
+
+  @EventListener(ApplicationReadyEvent.class)
+  void onApplicationReady() {
+    maintain();
+    checkCoverage(LocalDateTime.now());
+  }
+
+  /**
+   * Check that each partitioned table has a partition for the rows created at
+   * the given date
+   *
+   * @param at the creation date of the rows
+   * @throws IllegalStateException if a table has no such partition
+   */
+  public void checkCoverage(LocalDateTime at) {
+    final List<String> uncovered =
+        PARTITIONED_TABLES.stream()
+            .filter(
+                table ->
+                    findPartitions(jdbcTemplate, table).stream()
+                        .noneMatch(partition -> PartitionUtils.covers(partition.bound(), at)))
+            .toList();
+
+    if (!uncovered.isEmpty()) {
+      throw new IllegalStateException(
+          "No partition of %s for the rows created at %s (see app.database.partition)"
+              .formatted(uncovered, at));
+    }
+  }
+
+  /**
+   * Create the future partitions and expire the old ones
+   */
+  @Scheduled(cron = "#{@applicationConfig.database.partition.cron}")
+  public void maintain() {
+    final ApplicationConfig.Partition conf = applicationConfig.getDatabase().getPartition();
+
+    if (!conf.getEnabled()) {
+      return;
+    }
+
+    try {
+      // The lock and the settings belong to the session: all the statements share one connection
+      jdbcTemplate.execute(
+          (ConnectionCallback<Void>)
+              connection -> {
+                maintain(connection, conf);
+                return null;
+              });
+    } catch (DataAccessException e) {
+      log.error("‼️ Partition maintenance failed", e);
+    }
+  }
+
+  private void maintain(Connection connection, ApplicationConfig.Partition conf)
+      throws SQLException {
+    final JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+
+    final Boolean locked =
+        session.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+
+    if (!Boolean.TRUE.equals(locked)) {
+      log.debug("Partition maintenance already running on another node");
+      return;
+    }
+
+    final LocalDate today = LocalDate.now();
+    // Zero retention: the partitions are never expired
+    final Optional<LocalDateTime> cutoff =
+        conf.getRetention().isZero()
+            ? Optional.empty()
+            : Optional.of(today.atStartOfDay().minus(conf.getRetention()));
+
+    try {
+      session.execute("SET lock_timeout = %d".formatted(conf.getLockTimeout().toMillis()));
+
+      for (String table : PARTITIONED_TABLES) {
+        final List<Partition> partitions = findPartitions(session, table);
+        createPartitions(
+            session, connection, table, partitions, today, today.plusDays(conf.getPremake()));
+        if (cutoff.isPresent()) {
+          expirePartitions(session, table, partitions, cutoff.get(), conf.getDrop());
+        }
+      }
+
+      // Detached partitions still reference their payloads
+      if (cutoff.isPresent() && conf.getDrop()) {
+        final int purged = session.update(PURGE_PAYLOADS_SQL, Timestamp.valueOf(cutoff.get()));
+        if (purged > 0) {
+          log.info("🧹 {} unreferenced payloads purged", purged);
+        }
+      }
+    } finally {
+      session.execute("RESET lock_timeout");
+      session.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+    }
+  }
+
+  private List<Partition> findPartitions(JdbcTemplate session, String table) {
+    return session.query(
+        FIND_PARTITIONS_SQL,
+        (rs, _) ->
+            new Partition(
+                rs.getString(1),
+                rs.getString(2),
+                PartitionUtils.parseUpperBound(rs.getString(2)),
+                rs.getBoolean(3)),
+        table);
+  }
+
+  /**
+   * Create the daily partitions from the end of the existing ones up to the
+   * given day (included), one transaction each
+   */
+  private void createPartitions(
+      JdbcTemplate session,
+      Connection connection,
+      String table,
+      List<Partition> partitions,
+      LocalDate today,
+      LocalDate lastDay)
+      throws SQLException {
+
+    LocalDate day =
+        partitions.stream()
+            .map(Partition::upperBound)
+            .flatMap(Optional::stream)
+            .map(LocalDateTime::toLocalDate)
+            .max(LocalDate::compareTo)
+            .filter(end -> end.isAfter(today))
+            .orElse(today);
+
+    for (; !day.isAfter(lastDay); day = day.plusDays(1)) {
+      final String name = PartitionUtils.partitionName(table, day);
+      final LocalDate from = day;
+
+      try {
+        inTransaction(
+            connection,
+            () -> {
+              // Created apart then attached: a 'PARTITION OF' creation would lock the whole table
+              session.execute(
+                  "CREATE TABLE \"%s\" (LIKE \"%s\" INCLUDING DEFAULTS INCLUDING CONSTRAINTS)"
+                      .formatted(name, table));
+              session.execute(
+                  "ALTER TABLE \"%s\" ATTACH PARTITION \"%s\" FOR VALUES FROM ('%s') TO ('%s')"
+                      .formatted(table, name, from, from.plusDays(1)));
+            });
+      } catch (DataAccessException e) {
+        // The following days are created on the next run, in order
+        log.error("‼️ Creation of the partition '{}' failed", name, e);
+        return;
+      }
+
+      log.info("🗂️ Partition '{}' created", name);
+    }
+  }
+
+  /**
+   * Detach (and drop) the partitions whose upper bound is before the cutoff,
+   * one at a time
+   */
+  private void expirePartitions(
+      JdbcTemplate session,
+      String table,
+      List<Partition> partitions,
+      LocalDateTime cutoff,
+      boolean drop) {
+
+    for (Partition partition : partitions) {
+      final boolean expired =
+          partition.upperBound().isPresent() && !partition.upperBound().get().isAfter(cutoff);
+      if (!expired && !partition.detachPending()) {
+        continue;
+      }
+
+      try {
+        // Outside of a transaction: waits for the queries using the partition instead of
+        // blocking the table
+        session.execute(
+            "ALTER TABLE \"%s\" DETACH PARTITION \"%s\" %s"
+                .formatted(
+                    table,
+                    partition.name(),
+                    partition.detachPending() ? "FINALIZE" : "CONCURRENTLY"));
+
+        if (drop) {
+          session.execute("DROP TABLE \"%s\"".formatted(partition.name()));
+        }
+      } catch (DataAccessException e) {
+        log.error("‼️ Expiration of the partition '{}' failed", partition.name(), e);
+        continue;
+      }
+
+      if (drop) {
+        log.info("🗑️ Partition '{}' dropped (older than {})", partition.name(), cutoff);
+      } else {
+        log.info("📦 Partition '{}' detached (older than {})", partition.name(), cutoff);
+      }
+    }
+  }
+
+  /**
+   * Run the statements in a transaction of the given connection
+   */
+  private static void inTransaction(Connection connection, Runnable statements)
+      throws SQLException {
+    connection.setAutoCommit(false);
+    try {
+      statements.run();
+      connection.commit();
+    } catch (RuntimeException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(true);
+    }
+  }
+
+  private record Partition(
+      String name, String bound, Optional<LocalDateTime> upperBound, boolean detachPending) {}
+}
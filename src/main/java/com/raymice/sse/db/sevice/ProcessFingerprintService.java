@@ -0,0 +1,275 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.db.sevice;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.configuration.profile.annotation.TestProfileOnly;
+import com.raymice.sse.db.entity.ProcessEntity;
+import jakarta.validation.constraints.NotNull;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Detection of the files already received ('app.routing.file.input.duplicates').
+ * <p>
+ * The first process receiving a content registers its fingerprint (SHA-256 of
+ * the content, see {@link ProcessPayloadService}) in 'process_fingerprint',
+ * whose primary key arbitrates between the nodes. A content registered less
+ * than 'window' ago is a duplicate. The fingerprint of a process which failed
+ * is released, so that its content can be received again (e.g. resent after a
+ * transient failure).
+ * </p>
+ * <p>
+ * The fingerprints registered by this node are remembered in a bounded LRU
+ * cache, so that the files resent shortly after (e.g. batch retried by the
+ * sender) are confirmed by a read of their fingerprint instead of a
+ * registration attempt (the process may have failed on another node).
+ * </p>
+ */
+@Slf4j
+@Service
+public class ProcessFingerprintService {
+
+  // Expired fingerprints are taken over, the returned ids are the ones registered
+  private static final String REGISTER_SQL =
+      "INSERT INTO process_fingerprint(hash, process_id, created_at)"
+          + " SELECT * FROM unnest(?::varchar[], ?::bigint[], ?::timestamp[])"
+          + " ON CONFLICT (hash) DO UPDATE"
+          + " SET process_id = EXCLUDED.process_id, created_at = EXCLUDED.created_at"
+          + " WHERE process_fingerprint.created_at < ?"
+          + " RETURNING process_id";
+
+  private static final String CONFIRM_SQL =
+      "SELECT hash FROM process_fingerprint WHERE hash = ANY (?) AND created_at >= ?";
+
+  private static final String RELEASE_SQL =
+      "DELETE FROM process_fingerprint WHERE process_id = ANY (?) RETURNING hash";
+
+  private static final String PURGE_SQL = "DELETE FROM process_fingerprint WHERE created_at < ?";
+
+  private static final String DELETE_ALL_SQL = "DELETE FROM process_fingerprint";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ApplicationConfig.Duplicates conf;
+  private final RecentFingerprints recent;
+
+  public ProcessFingerprintService(JdbcTemplate jdbcTemplate, ApplicationConfig applicationConfig) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.conf = applicationConfig.getRouting().getFile().getInput().getDuplicates();
+    this.recent = new RecentFingerprints(conf.getCacheSize());
+  }
+
+  public boolean isEnabled() {
+    return conf.getEnabled();
+  }
+
+  /**
+   * Register the fingerprints of new processes, in a single statement. Must run
+   * in the transaction inserting the processes.
+   *
+   * @param processes the new processes (ids allocated)
+   * @return the ids of the processes whose content was already received
+   */
+  public Set<Long> registerAll(@NotNull List<ProcessEntity> processes) {
+    final Set<Long> duplicates = new HashSet<>();
+    if (!isEnabled() || processes.isEmpty()) {
+      return duplicates;
+    }
+
+    final LocalDateTime cutoff = LocalDateTime.now().minus(conf.getWindow());
+
+    // First process of each content, the other ones are duplicates
+    final Map<String, ProcessEntity> candidates = new LinkedHashMap<>();
+    for (ProcessEntity process : processes) {
+      if (candidates.putIfAbsent(process.getPayloadHash(), process) != null) {
+        duplicates.add(process.getId());
+      }
+    }
+
+    // Contents known as recent are duplicates while their fingerprint is registered
+    final List<String> remembered =
+        candidates.keySet().stream().filter(hash -> recent.contains(hash, cutoff)).toList();
+    if (!remembered.isEmpty()) {
+      final Set<String> confirmed = new HashSet<>(confirm(remembered, cutoff));
+      for (String hash : remembered) {
+        if (confirmed.contains(hash)) {
+          duplicates.add(candidates.remove(hash).getId());
+        } else {
+          recent.remove(hash);
+        }
+      }
+    }
+
+    if (candidates.isEmpty()) {
+      return duplicates;
+    }
+
+    final List<ProcessEntity> registering = new ArrayList<>(candidates.values());
+    final Set<Long> registered =
+        new HashSet<>(
+            jdbcTemplate.query(
+                connection -> {
+                  final var ps = connection.prepareStatement(REGISTER_SQL);
+                  ps.setArray(
+                      1,
+                      connection.createArrayOf(
+                          "varchar",
+                          registering.stream().map(ProcessEntity::getPayloadHash).toArray()));
+                  ps.setArray(
+                      2,
+                      connection.createArrayOf(
+                          "bigint", registering.stream().map(ProcessEntity::getId).toArray()));
+                  ps.setArray(
+                      3,
+                      connection.createArrayOf(
+                          "timestamp",
+                          registering.stream()
+                              .map(process -> Timestamp.valueOf(process.getCreatedAt()))
+                              .toArray()));
+                  ps.setTimestamp(4, Timestamp.valueOf(cutoff));
+                  return ps;
+                },
+                (rs, _) -> rs.getLong(1)));
+
+    registering.stream()
+        .map(ProcessEntity::getId)
+        .filter(id -> !registered.contains(id))
+        .forEach(duplicates::add);
+
+    return duplicates;
+  }
+
+  /**
+   * Release the fingerprints of the given failed processes, so that their
+   * content is not a duplicate anymore. Must run in the transaction updating
+   * their status.
+   *
+   * @param processIds the ids of the failed processes
+   */
+  public void releaseAll(@NotNull List<Long> processIds) {
+    if (!isEnabled() || processIds.isEmpty()) {
+      return;
+    }
+
+    final List<String> released =
+        jdbcTemplate.query(
+            connection -> {
+              final var ps = connection.prepareStatement(RELEASE_SQL);
+              ps.setArray(1, connection.createArrayOf("bigint", processIds.toArray()));
+              return ps;
+            },
+            (rs, _) -> rs.getString(1));
+
+    released.forEach(recent::remove);
+    if (!released.isEmpty()) {
+      log.debug("🔓 {} fingerprints of failed processes released", released.size());
+    }
+  }
+
+  /**
+   * Remember the fingerprints of the given processes, once their registration
+   * is committed (duplicates are ignored)
+   *
+   * @param processes the committed processes
+   */
+  public void rememberAll(@NotNull List<ProcessEntity> processes) {
+    if (!isEnabled()) {
+      return;
+    }
+
+    processes.stream()
+        .filter(process -> process.getStatus() != ProcessEntity.Status.DUPLICATE)
+        .forEach(process -> recent.put(process.getPayloadHash(), process.getCreatedAt()));
+  }
+
+  /**
+   * @return the given fingerprints still registered within the window
+   */
+  private List<String> confirm(List<String> hashes, LocalDateTime cutoff) {
+    return jdbcTemplate.query(
+        connection -> {
+          final var ps = connection.prepareStatement(CONFIRM_SQL);
+          ps.setArray(1, connection.createArrayOf("varchar", hashes.toArray()));
+          ps.setTimestamp(2, Timestamp.valueOf(cutoff));
+          return ps;
+        },
+        (rs, _) -> rs.getString(1));
+  }
+
+  /**
+   * Delete the fingerprints older than the detection window
+   */
+  @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+  public void purge() {
+    if (!isEnabled()) {
+      return;
+    }
+
+    try {
+      final int purged =
+          jdbcTemplate.update(
+              PURGE_SQL, Timestamp.valueOf(LocalDateTime.now().minus(conf.getWindow())));
+      if (purged > 0) {
+        log.info("🧹 {} expired fingerprints purged", purged);
+      }
+    } catch (DataAccessException e) {
+      log.error("‼️ Purge of the expired fingerprints failed", e);
+    }
+  }
+
+  /**
+   * Delete all the fingerprints, in database and in memory
+   */
+  @TestProfileOnly
+  public void deleteAll() {
+    jdbcTemplate.update(DELETE_ALL_SQL);
+    recent.clear();
+  }
+
+  /**
+   * LRU cache of the fingerprints registered by this node, bounded by their
+   * number.
+   */
+  private static class RecentFingerprints {
+
+    private final Map<String, LocalDateTime> fingerprints;
+
+    RecentFingerprints(int maxSize) {
+      this.fingerprints =
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalDateTime> eldest) {
+              return size() > maxSize;
+            }
+          };
+    }
+
+    synchronized boolean contains(String hash, LocalDateTime cutoff) {
+      final LocalDateTime registeredAt = fingerprints.get(hash);
+      return registeredAt != null && registeredAt.isAfter(cutoff);
+    }
+
+    synchronized void put(String hash, LocalDateTime registeredAt) {
+      fingerprints.put(hash, registeredAt);
+    }
+
+    synchronized void remove(String hash) {
+      fingerprints.remove(hash);
+    }
+
+    synchronized void clear() {
+      fingerprints.clear();
+    }
+  }
+}
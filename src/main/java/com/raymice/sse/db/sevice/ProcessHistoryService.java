@@ -0,0 +1,60 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.db.sevice;
+
+import com.raymice.sse.db.entity.ProcessEntity;
+import jakarta.validation.constraints.NotNull;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Append-only history of the process statuses ('process_history').
+ * <p>
+ * Entries are written by the batched writers of the processes, in the same
+ * transaction as the process inserts and status updates (replaces the
+ * per-row database trigger).
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ProcessHistoryService {
+
+  private static final String INSERT_HISTORY_SQL =
+      "INSERT INTO process_history(process_id, status, created_at) VALUES (?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Entry of the history of a process.
+   *
+   * @param processId the id of the process
+   * @param status    the new status of the process
+   * @param createdAt the time of the transition
+   */
+  public record Entry(long processId, ProcessEntity.Status status, LocalDateTime createdAt) {}
+
+  /**
+   * Append the given entries in a single JDBC batch (rewritten as a multi-row
+   * insert by the driver). Must run in the transaction writing the statuses.
+   *
+   * @param entries the entries to append
+   */
+  public void appendAll(@NotNull List<Entry> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+
+    jdbcTemplate.batchUpdate(
+        INSERT_HISTORY_SQL,
+        entries,
+        entries.size(),
+        (ps, entry) -> {
+          ps.setLong(1, entry.processId());
+          ps.setString(2, entry.status().name());
+          ps.setTimestamp(3, Timestamp.valueOf(entry.createdAt()));
+        });
+  }
+}
@@ -0,0 +1,158 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.db.sevice;
+
+import com.raymice.sse.db.entity.ProcessPayloadEntity;
+import com.raymice.sse.db.repository.ProcessPayloadRepo;
+import com.raymice.sse.utils.CompressionUtils;
+import com.raymice.sse.utils.HashUtils;
+import com.raymice.sse.utils.PayloadUtils;
+import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.Validate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Content store of the process payloads.
+ * <p>
+ * Payloads are compressed (Deflate) and keyed by the SHA-256 of their content,
+ * so that identical files are stored once and the process rows stay narrow.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessPayloadService {
+
+  private static final String INSERT_PAYLOAD_SQL =
+      "INSERT INTO process_payload(hash, codec, content, size, created_at) VALUES (?, ?, ?, ?, ?)"
+          + " ON CONFLICT (hash) DO NOTHING";
+
+  private final ProcessPayloadRepo processPayloadRepo;
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Hash and compress a payload (no database access, can run on the caller
+   * thread before the batched insert)
+   *
+   * @param payload the payload
+   * @return the payload entity to store
+   */
+  public ProcessPayloadEntity encode(@NotNull String payload) {
+    Validate.notNull(payload, "Payload must not be null");
+
+    final byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+
+    return new ProcessPayloadEntity(
+        HashUtils.sha256Hex(bytes),
+        ProcessPayloadEntity.Codec.DEFLATE,
+        CompressionUtils.deflate(bytes),
+        bytes.length,
+        LocalDateTime.now());
+  }
+
+  /**
+   * Read, hash and compress the payload of a file in a single streaming pass,
+   * without its line breaks (see {@link PayloadUtils#encode(Path)})
+   *
+   * @param file the received file
+   * @return the payload entity to store
+   * @throws IOException if the file cannot be read
+   */
+  public ProcessPayloadEntity encode(@NotNull Path file) throws IOException {
+    return toEntity(PayloadUtils.encode(file));
+  }
+
+  /**
+   * Read, hash and compress the payload of a stream (e.g. entry of an archive)
+   * in a single pass, without its line breaks (see
+   * {@link PayloadUtils#encode(InputStream)})
+   *
+   * @param in the stream to read, not closed
+   * @return the payload entity to store
+   * @throws IOException if the stream cannot be read
+   */
+  public ProcessPayloadEntity encode(@NotNull InputStream in) throws IOException {
+    return toEntity(PayloadUtils.encode(in));
+  }
+
+  /**
+   * Store the given payloads in a single JDBC batch, payloads already stored
+   * are skipped. Must run in the transaction inserting the processes
+   * referencing them.
+   *
+   * @param payloads the payloads to store
+   */
+  public void saveAll(@NotNull List<ProcessPayloadEntity> payloads) {
+    // Identical payloads of the same batch are written once
+    final Map<String, ProcessPayloadEntity> distinct = new LinkedHashMap<>();
+    payloads.forEach(payload -> distinct.putIfAbsent(payload.getHash(), payload));
+
+    jdbcTemplate.batchUpdate(
+        INSERT_PAYLOAD_SQL,
+        distinct.values(),
+        distinct.size(),
+        (ps, payload) -> {
+          ps.setString(1, payload.getHash());
+          ps.setString(2, payload.getCodec().name());
+          ps.setBytes(3, payload.getContent());
+          ps.setInt(4, payload.getSize());
+          ps.setTimestamp(5, Timestamp.valueOf(payload.getCreatedAt()));
+        });
+  }
+
+  /**
+   * Find the stored (encoded) payload of a process
+   *
+   * @param processId the id of the process
+   * @param createdAt the creation date of the process (partition key)
+   * @return the payload entity of the process
+   * @throws IllegalArgumentException if the process is not found
+   */
+  public ProcessPayloadEntity findEntityByProcessId(
+      long processId, @NotNull LocalDateTime createdAt) {
+    return processPayloadRepo
+        .findByProcessId(processId, createdAt)
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException("Process with id=%d not found".formatted(processId)));
+  }
+
+  /**
+   * @param payload the stored payload
+   * @return the decoded bytes of the payload
+   */
+  public static byte[] decodeBytes(@NotNull ProcessPayloadEntity payload) {
+    return switch (payload.getCodec()) {
+      case NONE -> payload.getContent();
+      case DEFLATE -> CompressionUtils.inflate(payload.getContent());
+    };
+  }
+
+  /**
+   * @param payload the stored payload
+   * @return the decoded payload
+   */
+  public static String decode(@NotNull ProcessPayloadEntity payload) {
+    return new String(decodeBytes(payload), StandardCharsets.UTF_8);
+  }
+
+  private static ProcessPayloadEntity toEntity(PayloadUtils.Encoded encoded) {
+    return new ProcessPayloadEntity(
+        encoded.hash(),
+        ProcessPayloadEntity.Codec.DEFLATE,
+        encoded.content(),
+        encoded.size(),
+        LocalDateTime.now());
+  }
+}
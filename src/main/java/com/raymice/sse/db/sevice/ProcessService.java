@@ -1,22 +1,40 @@
 /* Raymice - https://github.com/Raymice - 2025 */
 package com.raymice.sse.db.sevice;
 
+import com.raymice.sse.configuration.ApplicationConfig;
 import com.raymice.sse.configuration.mdc.MdcService;
 import com.raymice.sse.configuration.mdc.annotation.ExchangeMDC;
 import com.raymice.sse.configuration.opentelemetry.annotation.ExchangeSpan;
 import com.raymice.sse.configuration.profile.annotation.TestProfileOnly;
+import com.raymice.sse.db.batch.GroupCommitExecutor;
+import com.raymice.sse.db.batch.ProcessStatusWriter;
 import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.entity.ProcessPayloadEntity;
+import com.raymice.sse.db.projection.ProcessStatusView;
+import com.raymice.sse.db.projection.ProcessSummary;
 import com.raymice.sse.db.repository.ProcessRepo;
 import com.raymice.sse.exception.WorkflowStatusException;
 import com.raymice.sse.utils.CamelUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.constraints.NotNull;
-import java.rmi.UnexpectedException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.Exchange;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
@@ -25,23 +43,115 @@ public class ProcessService {
 
   private final ProcessRepo processRepo;
   private final MdcService mdcService;
+  private final ApplicationConfig applicationConfig;
+  private final ProcessPayloadService processPayloadService;
+  private final ProcessHistoryService processHistoryService;
+  private final ProcessFingerprintService processFingerprintService;
+  private final ProcessStatusWriter processStatusWriter;
+  private final TransactionTemplate transactionTemplate;
+  private final MeterRegistry meterRegistry;
+
+  // Group commit of the process creations (null when disabled)
+  private GroupCommitExecutor<NewProcess, ProcessEntity> processInsertExecutor;
+
+  @PostConstruct
+  void postConstruct() {
+    final ApplicationConfig.Batch conf = applicationConfig.getDatabase().getProcessInsert();
+
+    if (conf.getEnabled()) {
+      processInsertExecutor =
+          new GroupCommitExecutor<>(
+              "process-insert",
+              conf.getMaxSize(),
+              conf.getMaxDelay(),
+              this::insertAll,
+              meterRegistry);
+    }
+  }
+
+  @PreDestroy
+  void preDestroy() throws InterruptedException {
+    if (processInsertExecutor != null) {
+      processInsertExecutor.close();
+    }
+  }
 
   /**
    * Create a new process record in the database
+   * <p>
+   * Concurrent creations are grouped and inserted in a single JDBC batch
+   * ('app.database.processInsert'), the call returns once the batch is
+   * committed. The payload is compressed and stored apart from the process
+   * (see {@link ProcessPayloadService}).
+   * </p>
    *
    * @param name    file name
    * @param payload file content
    * @return the saved ProcessEntity
    */
   public ProcessEntity createProcess(String name, String payload) {
+    return createProcess(name, payload, ProcessEntity.Kind.FILE);
+  }
+
+  /**
+   * Create a new process record in the database (see
+   * {@link #createProcess(String, String)})
+   *
+   * @param name    file name
+   * @param payload file content, or description of a bundle
+   * @param kind    kind of content: an archive is never a duplicate, its
+   *                description does not identify its content
+   * @return the saved ProcessEntity
+   */
+  public ProcessEntity createProcess(String name, String payload, ProcessEntity.Kind kind) {
+    // Hash and compress on the caller thread (outside the batch)
+    return insert(name, processPayloadService.encode(payload), null, kind);
+  }
+
+  /**
+   * Create a new process record in the database, with its already encoded
+   * payload (see {@link ProcessPayloadService#encode(java.nio.file.Path)})
+   *
+   * @param name           file name
+   * @param processPayload encoded file content
+   * @return the saved ProcessEntity
+   */
+  public ProcessEntity createProcess(String name, ProcessPayloadEntity processPayload) {
+    return createProcess(name, processPayload, null);
+  }
+
+  /**
+   * Create a new process record in the database, for a content extracted from
+   * an archive
+   *
+   * @param name           entry name
+   * @param processPayload encoded entry content
+   * @param parentId       id of the process of the archive (null if none)
+   * @return the saved ProcessEntity
+   */
+  public ProcessEntity createProcess(
+      String name, ProcessPayloadEntity processPayload, Long parentId) {
+    return insert(name, processPayload, parentId, ProcessEntity.Kind.FILE);
+  }
+
+  private ProcessEntity insert(
+      String name, ProcessPayloadEntity processPayload, Long parentId, ProcessEntity.Kind kind) {
     ProcessEntity process = new ProcessEntity();
     process.setName(name);
-    process.setPayload(payload);
+    process.setPayloadHash(processPayload.getHash());
+    process.setParentId(parentId);
+    process.setKind(kind);
     process.setStatus(ProcessEntity.Status.CREATED);
-    process.setCreatedAt(LocalDateTime.now());
-    process.setUpdatedAt(LocalDateTime.now());
+    // Precision of the column: the date is carried by the exchange for the lookups by id
+    final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    process.setCreatedAt(now);
+    process.setUpdatedAt(now);
 
-    ProcessEntity savedProcess = processRepo.save(process);
+    final NewProcess newProcess = new NewProcess(process, processPayload);
+    ProcessEntity savedProcess =
+        processInsertExecutor != null
+            ? processInsertExecutor.execute(newProcess)
+            : insertAll(List.of(newProcess)).getFirst();
 
     mdcService.setProcessId(String.valueOf(savedProcess.getId()));
     log.info("💾Process with id={} saved successfully (file='{}')", savedProcess.getId(), name);
@@ -54,59 +164,160 @@ public class ProcessService {
    * Find a process by its id
    *
    * @param processId the id of the process to find
+   * @param createdAt the creation date of the process (partition key)
    * @return the found ProcessEntity
    * @throws IllegalArgumentException if the process is not found
    */
-  public ProcessEntity findById(long processId) {
+  public ProcessEntity findById(long processId, @NotNull LocalDateTime createdAt) {
+    return processRepo
+        .findByIdAndCreatedAt(processId, createdAt)
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException("Process with id=%d not found".formatted(processId)));
+  }
+
+  /**
+   * Find the summary of a process by its id (id, name, status and timestamps
+   * only)
+   *
+   * @param processId the id of the process to find
+   * @param createdAt the creation date of the process (partition key)
+   * @return the found ProcessSummary
+   * @throws IllegalArgumentException if the process is not found
+   */
+  public ProcessSummary findSummaryById(long processId, @NotNull LocalDateTime createdAt) {
     return processRepo
-        .findById(processId)
+        .findSummaryById(processId, createdAt)
         .orElseThrow(
             () ->
                 new IllegalArgumentException("Process with id=%d not found".formatted(processId)));
   }
 
+  /**
+   * Find the statuses of several processes in a single query, only the
+   * partitions of the creation window are scanned
+   *
+   * @param processIds the ids of the processes
+   * @param from       the minimum creation date (inclusive)
+   * @param to         the maximum creation date (exclusive)
+   * @return the status per process id (unknown ids, or created outside the
+   *         window, are absent)
+   */
+  public Map<Long, ProcessEntity.Status> findStatusesByIds(
+      Collection<Long> processIds, @NotNull LocalDateTime from, @NotNull LocalDateTime to) {
+    if (processIds.isEmpty()) {
+      return Map.of();
+    }
+
+    return processRepo.findStatusesByIds(processIds, from, to).stream()
+        .collect(Collectors.toMap(ProcessStatusView::getId, ProcessStatusView::getStatus));
+  }
+
+  /**
+   * Find the status of a process whose creation date is unknown (every
+   * partition is probed)
+   *
+   * @param processId the id of the process
+   * @return the status of the process, empty if not found
+   */
+  public Optional<ProcessEntity.Status> findStatus(long processId) {
+    return processRepo
+        .findCreatedAtById(processId)
+        .flatMap(createdAt -> processRepo.findStatusById(processId, createdAt));
+  }
+
+  /**
+   * Find the processes stopped in one of the given statuses, by pages ordered
+   * by id (keyset pagination)
+   * <p>
+   * Only the partitions of the creation window are scanned: there is no index
+   * on the status (see the lookup indexes migration), this is meant for the
+   * recovery at startup only.
+   * </p>
+   *
+   * @param statuses the statuses of the processes to find
+   * @param from     the minimum creation date (inclusive)
+   * @param to       the maximum creation date (exclusive)
+   * @param afterId  the id of the last process of the previous page (0 for the
+   *                 first page)
+   * @param limit    the maximum number of processes returned
+   * @return the summaries of the processes, ordered by id
+   */
+  public List<ProcessSummary> findUnfinished(
+      Collection<ProcessEntity.Status> statuses,
+      LocalDateTime from,
+      LocalDateTime to,
+      long afterId,
+      int limit) {
+    return processRepo.findUnfinished(statuses, from, to, afterId, Limit.of(limit));
+  }
+
+  /**
+   * Find the stored (encoded) payload of a process by its id
+   *
+   * @param processId the id of the process
+   * @param createdAt the creation date of the process (partition key), null
+   *                  if unknown
+   * @return the payload entity of the process
+   * @throws IllegalArgumentException if the process is not found
+   */
+  public ProcessPayloadEntity findPayloadEntity(long processId, @Nullable LocalDateTime createdAt) {
+    return processPayloadService.findEntityByProcessId(
+        processId, resolveCreatedAt(processId, createdAt));
+  }
+
   /**
    * Update the status of a process in the database
+   * <p>
+   * The transition is checked and applied by a single conditional update
+   * against the current status in database (see
+   * {@link ProcessEntity.Status#predecessors()}). Transitions are grouped in
+   * JDBC batches ('app.database.statusUpdate'), the call waits for the commit
+   * only for the statuses configured as synchronous.
+   * </p>
    *
    * @param exchange  Camel Exchange
    * @param newStatus the new status to set
+   * @throws WorkflowStatusException if the current status does not allow the
+   *                                 transition
    */
   @ExchangeMDC
   @ExchangeSpan(name = "update-process-status")
   public void updateProcessStatus(Exchange exchange, ProcessEntity.Status newStatus)
       throws Exception {
 
-    final String processId = CamelUtils.getProcessId(exchange);
-    final ProcessEntity.Status actualStatus = CamelUtils.getStatus(exchange);
+    final long processId = Long.parseLong(CamelUtils.getProcessId(exchange));
+    final LocalDateTime createdAt =
+        resolveCreatedAt(processId, CamelUtils.getProcessCreatedAt(exchange));
 
-    if (actualStatus == null) {
-      throw new UnexpectedException("No status on exchange");
+    if (!processStatusWriter.isSync(newStatus)) {
+      processStatusWriter
+          .submit(processId, createdAt, newStatus)
+          .whenComplete(
+              (updated, e) -> {
+                if (e != null) {
+                  log.error(
+                      "‼️ Asynchronous update of processId={} to status={} failed",
+                      processId,
+                      newStatus,
+                      e);
+                } else if (!updated) {
+                  // The process already moved on (e.g. completed by another consumer)
+                  log.warn(
+                      "⚠️ Asynchronous update of processId={} to status={} not applied",
+                      processId,
+                      newStatus);
+                }
+              });
+      return;
     }
 
-    // Check if status update is allowed
-    if (!isStatusAllowedToUpdate(actualStatus, newStatus)) {
-      log.error(
-          "‼️ Status update not allowed for processId={}: current status={}, attempted status={}",
-          processId,
-          actualStatus,
-          newStatus);
-
-      throw new WorkflowStatusException("Status update not allowed");
+    if (!processStatusWriter.update(processId, createdAt, newStatus)) {
+      onTransitionRejected(processId, createdAt, newStatus);
+      return;
     }
 
-    log.debug(
-        "Previous status of processId={} was {}, will be upddated to {}",
-        processId,
-        actualStatus,
-        newStatus);
-
-    processRepo.updateStatusById(newStatus, Long.parseLong(processId));
-
-    log.info(
-        "🔄Process with id={} updated from status={} to status={}",
-        processId,
-        actualStatus,
-        newStatus);
+    log.info("🔄Process with id={} updated to status={}", processId, newStatus);
   }
 
   @TestProfileOnly
@@ -117,31 +328,134 @@ public class ProcessService {
   @TestProfileOnly
   public void deleteAll() {
     processRepo.deleteAll();
+    // Otherwise the contents of the previous tests would be duplicates
+    processFingerprintService.deleteAll();
   }
 
-  private boolean isStatusAllowedToUpdate(
-      @NotNull ProcessEntity.Status actual, @NotNull ProcessEntity.Status newStatus) {
+  /**
+   * Insert the given processes, their payloads, their fingerprints and their
+   * history in a single transaction. The processes whose content was already
+   * received are inserted with the status 'DUPLICATE'.
+   */
+  private List<ProcessEntity> insertAll(List<NewProcess> newProcesses) {
+    final List<ProcessEntity> inserted =
+        transactionTemplate.execute(
+            _ -> {
+              processPayloadService.saveAll(
+                  newProcesses.stream().map(NewProcess::payload).toList());
+              // New entities on each attempt: the ones of a rolled back batch keep their id
+              final List<ProcessEntity> saved =
+                  processRepo.saveAll(newProcesses.stream().map(NewProcess::toEntity).toList());
 
-    if (actual == null || newStatus == null) {
-      // Null statuses are not allowed
-      return false;
-    }
+              // Ids are allocated from the sequence on save (rows are flushed on commit)
+              final Set<Long> duplicates =
+                  processFingerprintService.registerAll(fingerprinted(newProcesses, saved));
+              saved.stream()
+                  .filter(process -> duplicates.contains(process.getId()))
+                  .forEach(process -> process.setStatus(ProcessEntity.Status.DUPLICATE));
+
+              processHistoryService.appendAll(
+                  saved.stream()
+                      .map(
+                          process ->
+                              new ProcessHistoryService.Entry(
+                                  process.getId(), process.getStatus(), process.getCreatedAt()))
+                      .toList());
+              return saved;
+            });
+
+    processFingerprintService.rememberAll(fingerprinted(newProcesses, inserted));
+    return inserted;
+  }
 
-    if (newStatus == ProcessEntity.Status.FAILED) {
-      // Always allow updating to 'FAILED'
-      return true;
+  /**
+   * @return the saved processes (in the order of the new ones) to fingerprint
+   */
+  private static List<ProcessEntity> fingerprinted(
+      List<NewProcess> newProcesses, List<ProcessEntity> saved) {
+    return IntStream.range(0, saved.size())
+        .filter(i -> newProcesses.get(i).fingerprinted())
+        .mapToObj(saved::get)
+        .toList();
+  }
+
+  /**
+   * Creation date of a process, as carried by the exchange, or looked up by id
+   * in all the partitions for the messages sent before it was carried
+   */
+  private LocalDateTime resolveCreatedAt(long processId, @Nullable LocalDateTime createdAt) {
+    if (createdAt != null) {
+      return createdAt;
     }
 
-    if (actual == newStatus) {
-      // No need to update if the status is the same
-      return false;
+    log.debug("Creation date of processId={} unknown, looking it up in all partitions", processId);
+    return processRepo
+        .findCreatedAtById(processId)
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException("Process with id=%d not found".formatted(processId)));
+  }
+
+  /**
+   * Resolve a rejected transition: a redelivered transition is a no-op, any
+   * other one is not allowed.
+   */
+  private void onTransitionRejected(
+      long processId, LocalDateTime createdAt, ProcessEntity.Status newStatus)
+      throws WorkflowStatusException {
+
+    final ProcessEntity.Status actualStatus =
+        processRepo
+            .findStatusById(processId, createdAt)
+            .orElseThrow(
+                () ->
+                    new IllegalArgumentException(
+                        "Process with id=%d not found".formatted(processId)));
+
+    if (actualStatus == newStatus) {
+      log.debug("Process with id={} already has status={}, skipping", processId, newStatus);
+      return;
     }
 
-    if (newStatus == ProcessEntity.Status.CREATED) {
-      // Never allow downgrading to 'CREATED'
-      return false;
+    log.error(
+        "‼️ Status update not allowed for processId={}: current status={}, attempted status={}",
+        processId,
+        actualStatus,
+        newStatus);
+
+    throw new WorkflowStatusException("Status update not allowed");
+  }
+
+  /**
+   * A process to insert, with its encoded payload.
+   * <p>
+   * The process is the template of the inserted entity, never saved itself: a
+   * batch written again one by one after a failure (see
+   * {@link GroupCommitExecutor}) must insert new entities, not the ones of the
+   * rolled back attempt (id already allocated, 'DUPLICATE' status possibly
+   * set).
+   * </p>
+   */
+  private record NewProcess(ProcessEntity process, ProcessPayloadEntity payload) {
+
+    /**
+     * @return false for an archive, whose duplicates are detected entry by
+     *         entry: never detected as a duplicate
+     */
+    boolean fingerprinted() {
+      return process.getKind() != ProcessEntity.Kind.ARCHIVE;
     }
 
-    return actual.ordinal() < newStatus.ordinal();
+    ProcessEntity toEntity() {
+      final ProcessEntity entity = new ProcessEntity();
+      entity.setName(process.getName());
+      entity.setPayloadHash(process.getPayloadHash());
+      entity.setParentId(process.getParentId());
+      entity.setKind(process.getKind());
+      entity.setStatus(process.getStatus());
+      entity.setCreatedAt(process.getCreatedAt());
+      entity.setUpdatedAt(process.getUpdatedAt());
+      return entity;
+    }
   }
 }
@@ -0,0 +1,12 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.exception;
+
+/**
+ * Exception thrown when some messages of a bundle (archive, envelope) failed.
+ */
+public class BundleFailureException extends Exception {
+
+  public BundleFailureException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,19 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.exception;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when an archive cannot be read or exceeds the extraction
+ * limits (size, number of entries, compression ratio).
+ */
+public class MalformedArchiveException extends IOException {
+
+  public MalformedArchiveException(String message) {
+    super(message);
+  }
+
+  public MalformedArchiveException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,12 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.exception;
+
+/**
+ * Exception thrown when XML does not comply with its XSD schema.
+ */
+public class SchemaValidationException extends Exception {
+
+  public SchemaValidationException(String message) {
+    super(message);
+  }
+}
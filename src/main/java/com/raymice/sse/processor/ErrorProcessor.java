@@ -34,6 +34,8 @@ public class ErrorProcessor implements Processor {
 
     // Update process status to FAILED in database
     new UpdateStatusProcessor(processService, ProcessEntity.Status.FAILED).process(exchange);
+    // Seen by the bundle of the message, if any (see BundleEntriesStrategy)
+    CamelUtils.setStatus(exchange, ProcessEntity.Status.FAILED);
 
     // Set file name for output
     CamelUtils.setFileNameForOutput(exchange);
@@ -12,7 +12,8 @@ import org.apache.camel.Processor;
 
 /**
  * Processor to update the status of a process in database and in the Camel
- * exchange headers.
+ * exchange headers (informative only, the transition is checked against the
+ * status in database).
  * Could throw WorkflowStatusException if the status update is not allowed based
  * on the current status (see {@link ErrorProcessor}
  * {@link DefaultRoute#setupCommonExceptionHandling()}).
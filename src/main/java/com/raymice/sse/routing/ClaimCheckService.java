@@ -0,0 +1,158 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing;
+
+import static com.raymice.sse.utils.CamelUtils.getProcessCreatedAt;
+import static com.raymice.sse.utils.CamelUtils.getProcessId;
+import static com.raymice.sse.utils.CamelUtils.isClaimCheck;
+import static com.raymice.sse.utils.CamelUtils.setClaimCheck;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.db.entity.ProcessPayloadEntity;
+import com.raymice.sse.db.sevice.ProcessPayloadService;
+import com.raymice.sse.db.sevice.ProcessService;
+import jakarta.validation.constraints.NotNull;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Exchange;
+import org.springframework.stereotype.Service;
+
+/**
+ * Claim check of the payloads sent over ActiveMQ.
+ * <p>
+ * When enabled ('app.routing.claimCheck.enabled'), the messages only carry the
+ * custom headers (X_PROCESS_ID, X_MX_ID, ...) and the consumers load the
+ * payload lazily, from the memory of the node that received the file or from
+ * the database ('process_payload').
+ * </p>
+ * <p>
+ * Even when disabled, the payloads from the threshold size
+ * ('app.routing.claimCheck.threshold') are sent by reference: the decoded
+ * payload is only held in memory by the consumer processing it.
+ * </p>
+ * <p>
+ * Payloads are kept in memory encoded (compressed), as stored in database, and
+ * only decoded when checked out.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ClaimCheckService {
+
+  private final ProcessService processService;
+  private final ApplicationConfig.ClaimCheck conf;
+  private final LocalPayloadCache localCache;
+
+  public ClaimCheckService(ProcessService processService, ApplicationConfig applicationConfig) {
+    this.processService = processService;
+    this.conf = applicationConfig.getRouting().getClaimCheck();
+    this.localCache = new LocalPayloadCache(conf.getLocalCacheSize().toBytes());
+  }
+
+  public boolean isEnabled() {
+    return conf.getEnabled();
+  }
+
+  /**
+   * @param payload the encoded payload saved in database
+   * @return true if the payload is sent by reference only (enabled, or payload
+   *         from the threshold size)
+   */
+  public boolean isRequired(@NotNull ProcessPayloadEntity payload) {
+    return isEnabled() || payload.getSize() >= conf.getThreshold().toBytes();
+  }
+
+  /**
+   * Keep the payload in memory for the consumers running on this node (only
+   * if sent by reference)
+   *
+   * @param processId the process ID
+   * @param payload   the encoded payload saved in database
+   */
+  public void keepLocal(@NotNull Long processId, @NotNull ProcessPayloadEntity payload) {
+    if (isRequired(payload)) {
+      localCache.put(processId, payload);
+    }
+  }
+
+  /**
+   * Processor to remove the payload from the exchange before sending it to
+   * ActiveMQ (only the headers are sent): if enabled, if already flagged, or
+   * if the payload reaches the threshold size
+   */
+  public void checkIn(Exchange exchange) {
+    if (!isEnabled() && !isClaimCheck(exchange) && !exceedsThreshold(exchange.getIn().getBody())) {
+      return;
+    }
+
+    exchange.getIn().setBody(null);
+    setClaimCheck(exchange, true);
+  }
+
+  /**
+   * Processor to restore the payload of a checked-in exchange (no-op
+   * otherwise)
+   */
+  public void checkOut(Exchange exchange) {
+    if (!isClaimCheck(exchange)) {
+      return;
+    }
+
+    final long processId = Long.parseLong(getProcessId(exchange));
+    ProcessPayloadEntity payload = localCache.get(processId);
+
+    if (payload == null) {
+      log.debug("Loading payload of processId={} from database", processId);
+      payload = processService.findPayloadEntity(processId, getProcessCreatedAt(exchange));
+      keepLocal(processId, payload);
+    }
+
+    exchange.getIn().setBody(ProcessPayloadService.decode(payload));
+    setClaimCheck(exchange, false);
+  }
+
+  private boolean exceedsThreshold(Object body) {
+    final long threshold = conf.getThreshold().toBytes();
+    return switch (body) {
+      case byte[] bytes -> bytes.length >= threshold;
+      // Lower bound of its size in UTF-8
+      case String text -> text.length() >= threshold;
+      case null, default -> false;
+    };
+  }
+
+  /**
+   * LRU cache of encoded payloads bounded by their total size.
+   */
+  private static class LocalPayloadCache {
+
+    private final long maxSize;
+    private final Map<Long, ProcessPayloadEntity> payloads = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    LocalPayloadCache(long maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    synchronized ProcessPayloadEntity get(long processId) {
+      return payloads.get(processId);
+    }
+
+    synchronized void put(long processId, ProcessPayloadEntity payload) {
+      final ProcessPayloadEntity previous = payloads.put(processId, payload);
+      size += sizeOf(payload) - sizeOf(previous);
+
+      // Evict the least recently used payloads
+      Iterator<ProcessPayloadEntity> iterator = payloads.values().iterator();
+      while (size > maxSize && iterator.hasNext()) {
+        size -= sizeOf(iterator.next());
+        iterator.remove();
+      }
+    }
+
+    private static long sizeOf(ProcessPayloadEntity payload) {
+      return payload == null ? 0 : payload.getContent().length;
+    }
+  }
+}
@@ -5,12 +5,17 @@ import com.raymice.sse.configuration.ActiveMQConfig;
 import com.raymice.sse.configuration.ApplicationConfig;
 import com.raymice.sse.configuration.mdc.MdcService;
 import com.raymice.sse.db.sevice.ProcessService;
+import com.raymice.sse.exception.BundleFailureException;
+import com.raymice.sse.exception.MalformedArchiveException;
 import com.raymice.sse.exception.MalformedXmlException;
+import com.raymice.sse.exception.SchemaValidationException;
 import com.raymice.sse.exception.UnsupportedException;
 import com.raymice.sse.exception.WorkflowStatusException;
 import com.raymice.sse.processor.ErrorProcessor;
 import com.raymice.sse.processor.RetryProcessor;
 import com.raymice.sse.processor.UnsupportedProcessor;
+import com.raymice.sse.utils.ActiveMqUtils;
+import com.raymice.sse.utils.SedaUtils;
 import jakarta.annotation.PostConstruct;
 import java.net.URI;
 import java.rmi.UnexpectedException;
@@ -31,11 +36,11 @@ public abstract class DefaultRoute extends RouteBuilder {
   @Autowired private ProcessService processService;
   @Autowired private ApplicationConfig applicationConfig;
   @Autowired private ActiveMQConfig activeMQConfig;
+  @Autowired private ClaimCheckService claimCheckService;
+  @Autowired private FileOutputService fileOutputService;
+  @Autowired private JmsBatchService jmsBatchService;
 
   private final String routeId;
-  private String errorFileEndpoint;
-  private String unsupportedFileEndpoint;
-  private String successFileEndpoint;
   private String deadLetterQueueEndpoint;
 
   public DefaultRoute() {
@@ -45,18 +50,53 @@ public abstract class DefaultRoute extends RouteBuilder {
   @PostConstruct
   void postConstruct() {
     var routing = applicationConfig.getRouting();
-    var fileOutput = routing.getFile().getOutput();
 
-    this.errorFileEndpoint = URI.create(String.format("file:%s", fileOutput.getError())).toString();
-    this.unsupportedFileEndpoint =
-        URI.create(String.format("file:%s", fileOutput.getUnsupported())).toString();
-    this.successFileEndpoint =
-        URI.create(String.format("file:%s", fileOutput.getSuccess().getPath())).toString();
     this.deadLetterQueueEndpoint =
         URI.create(String.format("activemq:queue:%s", routing.getQueue().getDeadLetter()))
             .toString();
   }
 
+  /**
+   * @param queueName the name of the input queue of the route
+   * @return the URI consuming the queue: the in-memory queue (see
+   *         'app.routing.transport'), the queue itself, or the endpoint fed by
+   *         the transacted batch consumer (see {@link JmsBatchService})
+   */
+  protected String getInputQueueUri(String queueName) {
+    final ApplicationConfig.Transport transport = applicationConfig.getRouting().getTransport();
+    if (transport.isSeda()) {
+      return SedaUtils.getQueueUri(
+          queueName, transport.getSedaSize(), transport.getSedaConcurrentConsumers());
+    }
+
+    if (jmsBatchService.isEnabled()) {
+      return jmsBatchService.register(queueName);
+    }
+
+    // The autoscaling drives both bounds of the listener container, which must not scale by itself
+    return ActiveMqUtils.getQueueUri(
+        queueName,
+        activeMQConfig.getConcurrentConsumers(),
+        activeMQConfig.getAutoscaling().getEnabled()
+            ? 0
+            : activeMQConfig.getMaxConcurrentConsumers());
+  }
+
+  /**
+   * @param queueName the name of the queue the route sends to
+   * @return the URI of the in-memory queue (see 'app.routing.transport') or of
+   *         the ActiveMQ queue
+   */
+  protected String getOutputQueueUri(String queueName) {
+    final ApplicationConfig.Transport transport = applicationConfig.getRouting().getTransport();
+    if (transport.isSeda()) {
+      return SedaUtils.getQueueUri(
+          queueName, transport.getSedaSize(), transport.getSedaConcurrentConsumers());
+    }
+
+    return ActiveMqUtils.getQueueUri(queueName, activeMQConfig.getConcurrentConsumers());
+  }
+
   public void setupCommonExceptionHandling() {
     final ApplicationConfig.Redelivery redelivery = getApplicationConfig().getRedelivery();
 
@@ -64,19 +104,23 @@ public abstract class DefaultRoute extends RouteBuilder {
     onException(UnsupportedException.class)
         .handled(true)
         .process(new UnsupportedProcessor(processService))
-        .to(unsupportedFileEndpoint);
+        // Moves the received file, or restores and writes the payload
+        .process(fileOutputService.unsupported());
 
     // Non retryable exceptions
     onException(
             WorkflowStatusException.class,
             MalformedXmlException.class,
+            MalformedArchiveException.class,
+            BundleFailureException.class,
+            SchemaValidationException.class,
             UnexpectedException.class,
             NullPointerException.class)
         .handled(true)
+        .process(claimCheckService::checkOut)
         .process(new ErrorProcessor(processService, mdcService))
-        .multicast()
         .to(deadLetterQueueEndpoint)
-        .to(errorFileEndpoint);
+        .process(fileOutputService.error());
 
     // Manage disconnection of PostgresDB
     onException(
@@ -96,9 +140,9 @@ public abstract class DefaultRoute extends RouteBuilder {
         .maximumRedeliveryDelay(redelivery.getMaximumRedeliveryDelay())
         .useCollisionAvoidance()
         .handled(true)
+        .process(claimCheckService::checkOut)
         .process(new ErrorProcessor(processService, mdcService))
-        .multicast()
         .to(deadLetterQueueEndpoint)
-        .to(errorFileEndpoint);
+        .process(fileOutputService.error());
   }
 }
@@ -0,0 +1,264 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing;
+
+import static com.raymice.sse.utils.CamelUtils.getStagedFile;
+import static com.raymice.sse.utils.CamelUtils.getUpdatedFileName;
+import static com.raymice.sse.utils.CamelUtils.removeStagedFile;
+import static com.raymice.sse.utils.CamelUtils.setStagedFile;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.sevice.ProcessService;
+import com.raymice.sse.utils.FileUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.constraints.NotBlank;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.file.GenericFile;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Output of the processed files to the success, error, unsupported and
+ * duplicate directories.
+ * <p>
+ * When enabled ('app.routing.file.output.zeroCopy'), the received file is
+ * hard-linked into a staging directory ('app.routing.file.output.staged') as
+ * soon as its process is created, and atomically moved to its output directory
+ * (under its '$$id$$name' name) at the end: no read, encode and write of the
+ * payload. The payload is written through Camel when no staged file is
+ * available (not linked, other filesystem, payload transformed, see
+ * {@link com.raymice.sse.utils.CamelUtils#removeStagedFile(Exchange)}).
+ * </p>
+ * <ul>
+ * <li>A received file is only staged if its processed payload is the same
+ * (see {@link #PROCESSED_SIZE_PROPERTY}): the files with line breaks are
+ * written without them, as processed.</li>
+ * <li>At startup, the staged files left by a previous run whose process is
+ * finished (or unknown) are deleted.</li>
+ * </ul>
+ * The input and output directories must be on the same filesystem to benefit
+ * from it.
+ */
+@Slf4j
+@Service
+public class FileOutputService {
+
+  /**
+   * Exchange property of the size in bytes of the processed payload of a
+   * received file. The processing only strips bytes (line breaks): the
+   * payload is the received file as is when their sizes are equal.
+   */
+  public static final String PROCESSED_SIZE_PROPERTY = "SSE_PROCESSED_SIZE";
+
+  // Processes still expecting their output
+  private static final Set<ProcessEntity.Status> UNFINISHED =
+      EnumSet.of(ProcessEntity.Status.CREATED, ProcessEntity.Status.VALIDATED);
+
+  private final ApplicationConfig applicationConfig;
+  private final ClaimCheckService claimCheckService;
+  private final ProcessService processService;
+  private final ProducerTemplate producerTemplate;
+  private final boolean zeroCopy;
+  private final Path staged;
+
+  // Staged files found at startup, before the routes start
+  private List<Path> leftovers = List.of();
+
+  public FileOutputService(
+      ApplicationConfig applicationConfig,
+      ClaimCheckService claimCheckService,
+      ProcessService processService,
+      ProducerTemplate producerTemplate) {
+    this.applicationConfig = applicationConfig;
+    this.claimCheckService = claimCheckService;
+    this.processService = processService;
+    this.producerTemplate = producerTemplate;
+    this.zeroCopy = applicationConfig.getRouting().getFile().getOutput().getZeroCopy();
+    this.staged = Path.of(applicationConfig.getFileStagedPath());
+  }
+
+  @PostConstruct
+  void postConstruct() throws IOException {
+    if (zeroCopy) {
+      Files.createDirectories(staged);
+      try (Stream<Path> files = Files.list(staged)) {
+        leftovers = files.filter(Files::isRegularFile).toList();
+      }
+    }
+  }
+
+  /**
+   * Delete the staged files left by a previous run, once the application is
+   * ready (in the background)
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  void start() {
+    if (!leftovers.isEmpty()) {
+      Thread.ofVirtual().name("staged-cleanup").start(this::cleanUp);
+    }
+  }
+
+  /**
+   * Delete the staged files whose process is finished or unknown: their
+   * output is done, or they will never be moved. The other ones are kept for
+   * the messages still in flight (see {@link #restage(Exchange)}).
+   */
+  void cleanUp() {
+    int deleted = 0;
+    for (Path file : leftovers) {
+      try {
+        final long processId =
+            Long.parseLong(FileUtils.getProcessId(file.getFileName().toString()));
+        final boolean unfinished =
+            processService.findStatus(processId).filter(UNFINISHED::contains).isPresent();
+        if (!unfinished && Files.deleteIfExists(file)) {
+          deleted++;
+        }
+      } catch (RuntimeException | IOException e) {
+        log.warn("⚠️ Unable to clean up staged file {}", file, e);
+      }
+    }
+    leftovers = List.of();
+
+    if (deleted > 0) {
+      log.info("🧹 {} orphaned staged files deleted", deleted);
+    }
+  }
+
+  /**
+   * Processor to keep the received file (already pre-moved) for the output, as
+   * a hard link named after the process. A file whose processed payload
+   * differs (see {@link #PROCESSED_SIZE_PROPERTY}) is not kept.
+   */
+  public void stage(Exchange exchange) {
+    // File of the consumer, updated by the pre-move
+    if (!zeroCopy
+        || !(exchange.getProperty(Exchange.FILE_EXCHANGE_FILE) instanceof GenericFile<?> file)) {
+      return;
+    }
+
+    final Path source = Path.of(file.getAbsoluteFilePath());
+    final Path target = staged.resolve(getUpdatedFileName(exchange));
+
+    try {
+      final Long processedSize = exchange.getProperty(PROCESSED_SIZE_PROPERTY, Long.class);
+      if (processedSize != null && processedSize != Files.size(source)) {
+        log.debug("File {} changed by the processing, its payload will be written", source);
+        return;
+      }
+
+      Files.createLink(target, source);
+      setStagedFile(exchange, target.toString());
+    } catch (IOException | UnsupportedOperationException e) {
+      // The payload will be written instead
+      log.debug("Unable to link file {} to {}", source, target, e);
+    }
+  }
+
+  /**
+   * Processor to bind a process to the file staged by a previous run (e.g.
+   * before a restart), if it is still there
+   */
+  public void restage(Exchange exchange) {
+    if (!zeroCopy) {
+      return;
+    }
+
+    final Path target = staged.resolve(getUpdatedFileName(exchange));
+    if (Files.isRegularFile(target)) {
+      setStagedFile(exchange, target.toString());
+    }
+  }
+
+  /**
+   * @return the processor writing to the success directory
+   */
+  public Processor success() {
+    return output(applicationConfig.getFileOutputSuccessPath());
+  }
+
+  /**
+   * @return the processor writing to the error directory
+   */
+  public Processor error() {
+    return output(applicationConfig.getFileOutputErrorPath());
+  }
+
+  /**
+   * @return the processor writing to the unsupported directory
+   */
+  public Processor unsupported() {
+    return output(applicationConfig.getFileOutputUnsupportedPath());
+  }
+
+  /**
+   * @return the processor writing to the duplicate directory
+   */
+  public Processor duplicate() {
+    return output(applicationConfig.getFileOutputDuplicatePath());
+  }
+
+  /**
+   * @param directory the output directory
+   * @return the processor moving the staged file to the directory, or writing
+   *         the payload if there is none
+   */
+  private Processor output(@NotBlank String directory) {
+    final Path path = Path.of(directory);
+    final String endpoint = "file:" + directory;
+
+    return exchange -> {
+      if (move(exchange, path)) {
+        return;
+      }
+
+      claimCheckService.checkOut(exchange);
+      producerTemplate.send(endpoint, exchange);
+    };
+  }
+
+  /**
+   * @return true if the staged file has been moved to the directory
+   */
+  private boolean move(Exchange exchange, Path directory) {
+    final String stagedFile = getStagedFile(exchange);
+    if (stagedFile == null) {
+      return false;
+    }
+    removeStagedFile(exchange);
+
+    final Path source = Path.of(stagedFile);
+    final Path target = directory.resolve(source.getFileName());
+
+    try {
+      Files.createDirectories(directory);
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+      log.debug("File {} moved to {}", source.getFileName(), directory);
+      return true;
+    } catch (IOException e) {
+      log.warn("⚠️ Unable to move file {} to {}, writing it", source, directory, e);
+      deleteQuietly(source);
+      return false;
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.debug("Unable to delete file {}", path, e);
+    }
+  }
+}
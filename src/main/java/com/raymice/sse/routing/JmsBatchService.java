@@ -0,0 +1,307 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing;
+
+import com.raymice.sse.configuration.ActiveMQConfig;
+import com.raymice.sse.utils.ActiveMqUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.Session;
+import jakarta.validation.constraints.NotBlank;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.jms.JmsEndpoint;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Transacted batch consumption of the input queues
+ * ('spring.data.activemq.batch').
+ * <p>
+ * Instead of a JMS consumer acknowledging each message, each of the
+ * 'concurrentConsumers' loops of a queue receives up to 'size' messages (or
+ * what arrived within 'timeout') in a transacted session, processes them in
+ * parallel on virtual threads through the route (a direct endpoint, see
+ * {@link DefaultRoute#getInputQueueUri(String)}), then commits once.
+ * </p>
+ * <ul>
+ * <li>The status transitions of the messages of a batch are concurrent, so
+ * that the group commit of the status updates can write them in the same JDBC
+ * batch, as long as they are queued within its window
+ * ('app.database.statusUpdate.maxDelay').</li>
+ * <li>If the processing of a message fails (exception not handled by the
+ * route), the whole batch is rolled back and redelivered by the broker to the
+ * same session. The messages of the batch already processed are then
+ * committed without being processed again, since their effects (next queue,
+ * dead letter queue, output files) are not part of the transaction.</li>
+ * </ul>
+ * <p>
+ * The delivery is at-least-once: a batch left uncommitted by a crash or a
+ * failure of the session is redelivered elsewhere, and its messages already
+ * processed are forwarded again (their status transitions are no-ops, their
+ * output files written again under the same name).
+ * </p>
+ * <p>
+ * Metrics: 'jms.batch.size' (messages per batch) and 'jms.batch.rollbacks'.
+ * </p>
+ */
+@Slf4j
+@Service
+public class JmsBatchService {
+
+  private static final String ENDPOINT_PREFIX = "direct:batch-";
+
+  // Wait for the first message of a batch, so that the loops notice the shutdown
+  private static final long IDLE_RECEIVE_TIMEOUT_MS = 1000;
+
+  private final ActiveMQConfig activeMQConfig;
+  private final ActiveMQConfig.Batch conf;
+  private final ConnectionFactory connectionFactory;
+  private final CamelContext camelContext;
+  private final ProducerTemplate producerTemplate;
+  private final ExecutorService virtualThreadPool;
+  private final MeterRegistry meterRegistry;
+
+  // Queue name -> direct endpoint of its route
+  private final Map<String, String> queues = new ConcurrentHashMap<>();
+  private final List<Thread> loops = new ArrayList<>();
+
+  private volatile boolean running;
+  private Connection connection;
+
+  public JmsBatchService(
+      ActiveMQConfig activeMQConfig,
+      ConnectionFactory connectionFactory,
+      CamelContext camelContext,
+      ProducerTemplate producerTemplate,
+      @Qualifier("camelVirtualThreadPool") ExecutorService virtualThreadPool,
+      MeterRegistry meterRegistry) {
+    this.activeMQConfig = activeMQConfig;
+    this.conf = activeMQConfig.getBatch();
+    this.connectionFactory = connectionFactory;
+    this.camelContext = camelContext;
+    this.producerTemplate = producerTemplate;
+    this.virtualThreadPool = virtualThreadPool;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public boolean isEnabled() {
+    return conf.getEnabled();
+  }
+
+  /**
+   * Register an input queue, consumed by batch once the application is ready
+   *
+   * @param queueName the name of the queue
+   * @return the endpoint of the route receiving the messages of the queue
+   */
+  public String register(@NotBlank String queueName) {
+    return queues.computeIfAbsent(queueName, name -> ENDPOINT_PREFIX + name);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  void start() throws JMSException {
+    if (!isEnabled() || queues.isEmpty()) {
+      return;
+    }
+
+    connection = connectionFactory.createConnection();
+    connection.start();
+    running = true;
+
+    queues.forEach(
+        (queueName, endpoint) -> {
+          for (int i = 0; i < activeMQConfig.getConcurrentConsumers(); i++) {
+            loops.add(
+                Thread.ofVirtual()
+                    .name("jms-batch-%s-%d".formatted(queueName, i))
+                    .start(() -> consume(queueName, endpoint)));
+          }
+        });
+
+    log.info(
+        "📦 Consuming {} by batches of {} messages (timeout {}, {} consumers per queue)",
+        queues.keySet(),
+        conf.getSize(),
+        conf.getTimeout(),
+        activeMQConfig.getConcurrentConsumers());
+  }
+
+  @PreDestroy
+  void preDestroy() throws InterruptedException {
+    running = false;
+    for (Thread loop : loops) {
+      loop.join(TimeUnit.SECONDS.toMillis(10));
+    }
+    if (connection != null) {
+      try {
+        connection.close();
+      } catch (JMSException e) {
+        log.debug("Unable to close the batch connection", e);
+      }
+    }
+  }
+
+  /**
+   * Loop of a consumer of the queue: receive, process and commit batches until
+   * the shutdown
+   */
+  private void consume(String queueName, String endpoint) {
+    final JmsEndpoint jmsEndpoint =
+        camelContext.getEndpoint(ActiveMqUtils.getQueueUri(queueName, 0), JmsEndpoint.class);
+    final DistributionSummary batchSize =
+        DistributionSummary.builder("jms.batch.size")
+            .description("Messages per transacted batch")
+            .tag("queue", queueName)
+            .register(meterRegistry);
+    final Counter rollbacks =
+        Counter.builder("jms.batch.rollbacks")
+            .description("Transacted batches rolled back")
+            .tag("queue", queueName)
+            .register(meterRegistry);
+
+    while (running) {
+      try (Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+          MessageConsumer consumer = session.createConsumer(session.createQueue(queueName))) {
+
+        // Messages of the rolled back batches already processed, until redelivered to the session
+        final Set<String> processed = new HashSet<>();
+
+        while (running) {
+          final List<Message> batch = receive(consumer);
+          if (batch.isEmpty()) {
+            continue;
+          }
+          batchSize.record(batch.size());
+
+          if (process(jmsEndpoint, session, endpoint, batch, processed)) {
+            session.commit();
+          } else {
+            session.rollback();
+            rollbacks.increment();
+            log.warn(
+                "⚠️ Batch of {} messages from queue '{}' rolled back, redelivered by the broker",
+                batch.size(),
+                queueName);
+          }
+        }
+      } catch (JMSException | RuntimeException e) {
+        // Uncommitted messages are redelivered, the session is recreated
+        log.error("‼️ Batch consumption of queue '{}' failed", queueName, e);
+        pause();
+      }
+    }
+  }
+
+  /**
+   * @return up to 'size' messages, received within 'timeout' after the first
+   *         one (empty if the queue stayed idle)
+   */
+  private List<Message> receive(MessageConsumer consumer) throws JMSException {
+    final List<Message> batch = new ArrayList<>(conf.getSize());
+
+    final Message first = consumer.receive(IDLE_RECEIVE_TIMEOUT_MS);
+    if (first == null) {
+      return batch;
+    }
+    batch.add(first);
+
+    final long deadline = System.nanoTime() + conf.getTimeout().toNanos();
+    while (batch.size() < conf.getSize()) {
+      final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+      final Message next = remaining > 0 ? consumer.receive(remaining) : consumer.receiveNoWait();
+      if (next == null) {
+        break;
+      }
+      batch.add(next);
+    }
+    return batch;
+  }
+
+  /**
+   * Process the messages in parallel through the route, except the redelivered
+   * ones already processed
+   *
+   * @param processed the messages of the rolled back batches already processed,
+   *                  updated with the ones of this batch if it fails
+   * @return true if every message has been processed (or handled by the error
+   *         handling of the route)
+   */
+  private boolean process(
+      JmsEndpoint jmsEndpoint,
+      Session session,
+      String endpoint,
+      List<Message> batch,
+      Set<String> processed)
+      throws JMSException {
+
+    final List<String> skipped = new ArrayList<>();
+    final List<Message> pending = new ArrayList<>(batch.size());
+    for (Message message : batch) {
+      if (message.getJMSRedelivered() && processed.remove(message.getJMSMessageID())) {
+        skipped.add(message.getJMSMessageID());
+      } else {
+        pending.add(message);
+      }
+    }
+    if (!skipped.isEmpty()) {
+      log.debug("{} redelivered messages already processed, not processed again", skipped.size());
+    }
+
+    // Exchanges bound to the session in the thread of the consumer, the session is not shared
+    final List<CompletableFuture<Exchange>> results =
+        pending.stream()
+            .map(message -> jmsEndpoint.createExchange(message, session))
+            .map(
+                exchange ->
+                    CompletableFuture.supplyAsync(
+                        () -> producerTemplate.send(endpoint, exchange), virtualThreadPool))
+            .toList();
+
+    final List<String> succeeded = new ArrayList<>(pending.size());
+    boolean failed = false;
+    for (int i = 0; i < results.size(); i++) {
+      final Exchange exchange = results.get(i).join();
+      if (exchange.isFailed()) {
+        log.error("‼️ Processing of a batched message failed", exchange.getException());
+        failed = true;
+      } else {
+        succeeded.add(pending.get(i).getJMSMessageID());
+      }
+    }
+
+    if (failed) {
+      // Redelivered with the failed ones
+      processed.addAll(skipped);
+      processed.addAll(succeeded);
+    }
+    return !failed;
+  }
+
+  private static void pause() {
+    try {
+      Thread.sleep(IDLE_RECEIVE_TIMEOUT_MS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
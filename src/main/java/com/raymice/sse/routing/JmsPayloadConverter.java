@@ -0,0 +1,141 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing;
+
+import com.raymice.sse.db.entity.ProcessPayloadEntity;
+import com.raymice.sse.utils.CompressionUtils;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import jakarta.jms.ObjectMessage;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.apache.camel.WrappedFile;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+
+/**
+ * Conversion of the payloads sent over ActiveMQ
+ * ('spring.data.activemq.payload').
+ * <p>
+ * The payloads (XML as bytes or String) are sent as a BytesMessage of their
+ * UTF-8 bytes, instead of a TextMessage re-encoded by the client and the
+ * broker. Above the threshold, they are compressed with Deflate and the codec
+ * is set in the 'SSE_PAYLOAD_CODEC' property: the consumers decode them
+ * transparently, as byte[] bodies.
+ * </p>
+ * <ul>
+ * <li>A message without body (claim check) only carries the headers.</li>
+ * <li>The files (e.g. a received file sent to the dead letter queue by the
+ * file route) and the streams are sent as their bytes.</li>
+ * <li>The codec property is not mapped to a Camel header (see
+ * {@link #CODEC_PROPERTY}), so that it is never forwarded to the next
+ * queue.</li>
+ * <li>The other bodies are converted as by default (maps, serializable
+ * objects), or sent as the UTF-8 bytes of their text.</li>
+ * </ul>
+ */
+public class JmsPayloadConverter implements MessageConverter {
+
+  /**
+   * JMS property of the codec of a compressed payload (absent when sent as
+   * is), to exclude from the Camel headers.
+   */
+  public static final String CODEC_PROPERTY = "SSE_PAYLOAD_CODEC";
+
+  private final boolean compressed;
+  private final long compressionThreshold;
+  private final MessageConverter fallback = new SimpleMessageConverter();
+
+  /**
+   * @param compressed           compress the payloads above the threshold
+   * @param compressionThreshold the minimum size in bytes of a compressed
+   *                             payload
+   */
+  public JmsPayloadConverter(boolean compressed, long compressionThreshold) {
+    this.compressed = compressed;
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  @Override
+  public Message toMessage(Object object, Session session) throws JMSException {
+    if (object == null) {
+      return session.createMessage();
+    }
+
+    final byte[] payload = toBytes(object);
+    if (payload == null) {
+      return fallback.toMessage(object, session);
+    }
+
+    final BytesMessage message = session.createBytesMessage();
+    if (compressed && payload.length >= compressionThreshold) {
+      message.setStringProperty(CODEC_PROPERTY, ProcessPayloadEntity.Codec.DEFLATE.name());
+      message.writeBytes(CompressionUtils.deflate(payload));
+    } else {
+      message.writeBytes(payload);
+    }
+    return message;
+  }
+
+  /**
+   * @return the bytes of the payload, null if converted as by default
+   */
+  private static byte[] toBytes(Object object) {
+    try {
+      return switch (object) {
+        case byte[] bytes -> bytes;
+        case String text -> text.getBytes(StandardCharsets.UTF_8);
+        // GenericFile, not serializable
+        case WrappedFile<?> file -> toBytes(file.getFile());
+        case File file -> Files.readAllBytes(file.toPath());
+        case Path path -> Files.readAllBytes(path);
+        case InputStream stream -> stream.readAllBytes();
+        case Map<?, ?> _, Serializable _ -> null;
+        default -> String.valueOf(object).getBytes(StandardCharsets.UTF_8);
+      };
+    } catch (IOException e) {
+      throw new MessageConversionException(
+          "Unable to read the payload from " + object.getClass().getName(), e);
+    }
+  }
+
+  @Override
+  public Object fromMessage(Message message) throws JMSException {
+    return switch (message) {
+      case BytesMessage bytesMessage -> decode(bytesMessage);
+      case TextMessage textMessage -> textMessage.getText();
+      case MapMessage _, ObjectMessage _ -> fallback.fromMessage(message);
+      default -> null;
+    };
+  }
+
+  private static byte[] decode(BytesMessage message) throws JMSException {
+    final long length = message.getBodyLength();
+    if (length > Integer.MAX_VALUE) {
+      throw new MessageConversionException("Payload too large: " + length + " bytes");
+    }
+
+    final byte[] payload = new byte[(int) length];
+    message.readBytes(payload);
+
+    final String codec = message.getStringProperty(CODEC_PROPERTY);
+    if (codec == null) {
+      return payload;
+    }
+
+    return switch (ProcessPayloadEntity.Codec.valueOf(codec)) {
+      case NONE -> payload;
+      case DEFLATE -> CompressionUtils.inflate(payload);
+    };
+  }
+}
@@ -0,0 +1,175 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing;
+
+import static com.raymice.sse.utils.CamelUtils.setClaimCheck;
+import static com.raymice.sse.utils.CamelUtils.setFileName;
+import static com.raymice.sse.utils.CamelUtils.setOriginalFileName;
+import static com.raymice.sse.utils.CamelUtils.setProcessCreatedAt;
+import static com.raymice.sse.utils.CamelUtils.setProcessId;
+import static com.raymice.sse.utils.CamelUtils.setStatus;
+import static com.raymice.sse.utils.CamelUtils.setUpdatedFileName;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.entity.ProcessPayloadEntity;
+import com.raymice.sse.db.projection.ProcessSummary;
+import com.raymice.sse.db.sevice.ProcessPayloadService;
+import com.raymice.sse.db.sevice.ProcessService;
+import com.raymice.sse.utils.FileUtils;
+import com.raymice.sse.utils.SedaUtils;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Recovery of the in-memory transport ('app.routing.transport.mode=SEDA').
+ * <p>
+ * The messages waiting in the in-memory queues are lost when the node stops:
+ * the status of the process is the only durable state. At startup, the
+ * processes created before it and left unfinished are sent again to the queue
+ * of their next step:
+ * </p>
+ * <ul>
+ * <li>'CREATED' to the validation queue, 'VALIDATED' to the pacs.008
+ * queue.</li>
+ * <li>Only the '.xml' files: the other ones (unsupported files) and the
+ * bundles split into processes (archives, envelopes, see
+ * {@link ProcessEntity.Kind}) are left as they are.</li>
+ * <li>The file staged for the output (see
+ * {@link FileOutputService#restage(Exchange)}) is used if it is still
+ * there.</li>
+ * </ul>
+ * A process sent twice (e.g. already validated, its status update not yet
+ * committed) is harmless: the repeated transitions are no-ops.
+ */
+@Slf4j
+@Service
+public class TransportRecoveryService {
+
+  private static final Set<ProcessEntity.Status> UNFINISHED =
+      EnumSet.of(ProcessEntity.Status.CREATED, ProcessEntity.Status.VALIDATED);
+
+  private final ApplicationConfig applicationConfig;
+  private final ApplicationConfig.Transport conf;
+  private final ProcessService processService;
+  private final ClaimCheckService claimCheckService;
+  private final FileOutputService fileOutputService;
+  private final ProducerTemplate producerTemplate;
+
+  // Processes created from now on are sent by the routes
+  private final LocalDateTime startedAt = LocalDateTime.now();
+
+  public TransportRecoveryService(
+      ApplicationConfig applicationConfig,
+      ProcessService processService,
+      ClaimCheckService claimCheckService,
+      FileOutputService fileOutputService,
+      ProducerTemplate producerTemplate) {
+    this.applicationConfig = applicationConfig;
+    this.conf = applicationConfig.getRouting().getTransport();
+    this.processService = processService;
+    this.claimCheckService = claimCheckService;
+    this.fileOutputService = fileOutputService;
+    this.producerTemplate = producerTemplate;
+  }
+
+  /**
+   * Starts the recovery once the routes are started, in the background: the
+   * sending waits while the queues are full
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  void start() {
+    if (!conf.isSeda()) {
+      return;
+    }
+
+    Thread.ofVirtual().name("transport-recovery").start(this::recover);
+  }
+
+  /**
+   * Send the unfinished processes again, by pages
+   */
+  void recover() {
+    final ApplicationConfig.Queue queue = applicationConfig.getRouting().getQueue();
+    final Map<ProcessEntity.Status, String> endpoints =
+        Map.of(
+            ProcessEntity.Status.CREATED, getQueueUri(queue.getValidator()),
+            ProcessEntity.Status.VALIDATED, getQueueUri(queue.getPacs008()));
+
+    final LocalDateTime from = startedAt.minus(conf.getRecoveryWindow());
+    long afterId = 0;
+    int recovered = 0;
+    int skipped = 0;
+
+    try {
+      List<ProcessSummary> page;
+      do {
+        page =
+            processService.findUnfinished(
+                UNFINISHED, from, startedAt, afterId, conf.getRecoveryBatchSize());
+
+        for (ProcessSummary process : page) {
+          afterId = process.getId();
+          if (!process.getName().endsWith(".xml")) {
+            skipped++;
+            continue;
+          }
+
+          producerTemplate.send(endpoints.get(process.getStatus()), e -> prepare(e, process));
+          recovered++;
+        }
+      } while (page.size() == conf.getRecoveryBatchSize());
+    } catch (RuntimeException e) {
+      log.error("‼️ Recovery of the unfinished processes stopped after processId={}", afterId, e);
+    }
+
+    if (recovered > 0 || skipped > 0) {
+      log.info(
+          "🔁 {} unfinished processes sent again since {} ({} non-XML left as they are)",
+          recovered,
+          from,
+          skipped);
+    }
+  }
+
+  /**
+   * Rebuild the exchange of a process as sent by the previous step
+   */
+  private void prepare(Exchange exchange, ProcessSummary process) {
+    final String updatedFileName = FileUtils.addProcessId(process.getName(), process.getId());
+
+    setStatus(exchange, process.getStatus());
+    setFileName(exchange, updatedFileName);
+    setOriginalFileName(exchange, process.getName());
+    setUpdatedFileName(exchange, updatedFileName);
+    setProcessId(exchange, process.getId());
+    setProcessCreatedAt(exchange, process.getCreatedAt());
+
+    if (claimCheckService.isEnabled()) {
+      // Loaded by the consumer
+      setClaimCheck(exchange, true);
+    } else {
+      final ProcessPayloadEntity payload =
+          processService.findPayloadEntity(process.getId(), process.getCreatedAt());
+      if (claimCheckService.isRequired(payload)) {
+        setClaimCheck(exchange, true);
+      } else {
+        exchange.getIn().setBody(ProcessPayloadService.decode(payload));
+      }
+    }
+
+    fileOutputService.restage(exchange);
+  }
+
+  private String getQueueUri(String queueName) {
+    return SedaUtils.getQueueUri(queueName, conf.getSedaSize(), conf.getSedaConcurrentConsumers());
+  }
+}
@@ -4,7 +4,6 @@ package com.raymice.sse.routing.process.swift.mx;
 import com.raymice.sse.db.entity.ProcessEntity;
 import com.raymice.sse.processor.UpdateStatusProcessor;
 import com.raymice.sse.routing.DefaultRoute;
-import com.raymice.sse.utils.ActiveMqUtils;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -20,10 +19,7 @@ public class PACS_008_001_08Route extends DefaultRoute {
   public void configure() throws Exception {
 
     final var routeConfig = getApplicationConfig().getRouting();
-    final var concurrentConsumers = getActiveMQConfig().getConcurrentConsumers();
-    final String inputQueueUri =
-        ActiveMqUtils.getQueueUri(routeConfig.getQueue().getPacs008(), concurrentConsumers);
-    final String outputSuccessFilePath = getSuccessFileEndpoint();
+    final String inputQueueUri = getInputQueueUri(routeConfig.getQueue().getPacs008());
 
     // Call the parent method to apply the shared error handling
     setupCommonExceptionHandling();
@@ -32,10 +28,11 @@ public class PACS_008_001_08Route extends DefaultRoute {
     // route accordingly
     from(inputQueueUri)
         .routeId(getRouteId())
+        .process(getClaimCheckService()::checkOut)
         .process(pacs00800108RouteService::logProcessor)
         .process(pacs00800108RouteService::setNameProcessor)
         .process(new UpdateStatusProcessor(getProcessService(), ProcessEntity.Status.COMPLETED))
-        .to(outputSuccessFilePath)
+        .process(getFileOutputService().success())
         .end();
   }
 }
@@ -0,0 +1,270 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.configuration.RedisConfiguration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * Leases of the staging buckets to the nodes of the cluster
+ * ('app.routing.file.input.partitioning').
+ * <p>
+ * Instead of racing for every file through the shared read lock, each node
+ * only consumes the buckets it leases (see {@link BucketOwnershipFilter}): no
+ * Redis round trip per file, and the throughput grows with the number of
+ * nodes.
+ * </p>
+ * <ul>
+ * <li>Each node heartbeats its membership in a sorted set scored by expiration
+ * (Redis clock), the expired members are evicted on each heartbeat.</li>
+ * <li>Bucket 'b' is assigned to the member 'b % n' of the sorted live members:
+ * all the nodes compute the same assignment, and the buckets of a lost node are
+ * rebalanced once its membership expired.</li>
+ * <li>An assigned bucket is leased ('SET NX PX') or renewed, all in a single
+ * script. Buckets no longer assigned are released, so that their new owner can
+ * lease them.</li>
+ * <li>Locally, a lease is considered lost one heartbeat before its expiration
+ * in Redis, so that two nodes never consume the same bucket.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class BucketLeaseManager {
+
+  // Register the node, evict the expired ones and return the live members (sorted)
+  private static final RedisScript<List<Object>> HEARTBEAT_SCRIPT =
+      listScript(
+          """
+          local time = redis.call('time')
+          local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+          redis.call('zadd', KEYS[1], now + tonumber(ARGV[2]), ARGV[1])
+          redis.call('zremrangebyscore', KEYS[1], '-inf', now)
+          redis.call('pexpire', KEYS[1], tonumber(ARGV[2]) * 2)
+          return redis.call('zrange', KEYS[1], 0, -1)
+          """);
+
+  // Lease (or renew) each bucket, 1 if owned by the node
+  private static final RedisScript<List<Object>> ACQUIRE_SCRIPT =
+      listScript(
+          """
+          local result = {}
+          for i, key in ipairs(KEYS) do
+            local owner = redis.call('get', key)
+            if owner == ARGV[1] then
+              redis.call('pexpire', key, ARGV[2])
+              result[i] = 1
+            elseif not owner then
+              redis.call('set', key, ARGV[1], 'PX', ARGV[2])
+              result[i] = 1
+            else
+              result[i] = 0
+            end
+          end
+          return result
+          """);
+
+  // Only release the buckets still owned by the node
+  private static final RedisScript<Long> RELEASE_SCRIPT =
+      RedisScript.of(
+          """
+          local released = 0
+          for _, key in ipairs(KEYS) do
+            if redis.call('get', key) == ARGV[1] then
+              released = released + redis.call('del', key)
+            end
+          end
+          return released
+          """,
+          Long.class);
+
+  private final ApplicationConfig.Partitioning conf;
+  private final ApplicationConfig.Staging staging;
+  private final RedisTemplate<String, String> redisTemplate;
+  private final MeterRegistry meterRegistry;
+  private final String nodesKey;
+  private final List<String> bucketKeys = new ArrayList<>();
+  private final String nodeId = UUID.randomUUID().toString();
+
+  // Bucket -> expiration of the local lease (System.nanoTime), 0 if not owned
+  private AtomicLongArray leases = new AtomicLongArray(0);
+  private ScheduledExecutorService executor;
+
+  public BucketLeaseManager(
+      ApplicationConfig applicationConfig,
+      RedisConfiguration redisConfiguration,
+      RedisTemplate<String, String> redisTemplate,
+      MeterRegistry meterRegistry) {
+    final ApplicationConfig.Input input = applicationConfig.getRouting().getFile().getInput();
+    this.conf = input.getPartitioning();
+    this.staging = input.getStaging();
+    this.redisTemplate = redisTemplate;
+    this.meterRegistry = meterRegistry;
+    this.nodesKey = redisConfiguration.getRepositoryName() + ":buckets:nodes";
+
+    for (int i = 0; i < staging.getBuckets(); i++) {
+      bucketKeys.add(
+          redisConfiguration.getRepositoryName() + ":buckets:" + InboxStagingFeeder.bucketName(i));
+    }
+  }
+
+  @PostConstruct
+  void postConstruct() {
+    if (!conf.getEnabled()) {
+      return;
+    }
+
+    if (!staging.getEnabled() || staging.getBuckets() <= 0) {
+      throw new IllegalStateException(
+          "Partitioning requires the staging of the inbox with buckets"
+              + " (app.routing.file.input.staging.enabled,"
+              + " app.routing.file.input.staging.buckets)");
+    }
+    if (conf.getHeartbeat().multipliedBy(2).compareTo(conf.getLeaseTtl()) >= 0) {
+      throw new IllegalStateException(
+          "Heartbeat (%s) must be less than half of the lease TTL (%s)"
+              .formatted(conf.getHeartbeat(), conf.getLeaseTtl()));
+    }
+
+    leases = new AtomicLongArray(staging.getBuckets());
+
+    Gauge.builder("file.buckets.owned", this, BucketLeaseManager::countOwned)
+        .description("Staging buckets leased by this node")
+        .register(meterRegistry);
+
+    executor =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("bucket-lease").daemon().factory());
+    executor.scheduleWithFixedDelay(
+        this::heartbeat, 0, conf.getHeartbeat().toMillis(), TimeUnit.MILLISECONDS);
+
+    log.info(
+        "🧩 Node {} joining the lease of {} buckets (TTL {})",
+        nodeId,
+        staging.getBuckets(),
+        conf.getLeaseTtl());
+  }
+
+  @PreDestroy
+  void preDestroy() throws InterruptedException {
+    if (executor == null) {
+      return;
+    }
+
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+
+    // Hand over the buckets without waiting for the leases to expire
+    try {
+      for (int i = 0; i < leases.length(); i++) {
+        leases.set(i, 0);
+      }
+      redisTemplate.execute(RELEASE_SCRIPT, bucketKeys, nodeId);
+      redisTemplate.opsForZSet().remove(nodesKey, nodeId);
+    } catch (RuntimeException e) {
+      log.warn("⚠️ Release of the buckets of node {} failed, they will expire", nodeId, e);
+    }
+  }
+
+  /**
+   * @return true if the bucket of the given index is currently leased by this
+   *         node (always true when partitioning is disabled)
+   */
+  public boolean isOwned(int bucket) {
+    if (!conf.getEnabled()) {
+      return true;
+    }
+    if (bucket < 0 || bucket >= leases.length()) {
+      return false;
+    }
+    final long expiration = leases.get(bucket);
+    return expiration != 0 && expiration - System.nanoTime() > 0;
+  }
+
+  /**
+   * Renew the membership of the node, then lease its assigned buckets and
+   * release the other ones
+   */
+  void heartbeat() {
+    // Taken before the calls, the local leases never outlive the Redis ones
+    final long start = System.nanoTime();
+    final long ttl = conf.getLeaseTtl().toMillis();
+
+    try {
+      final List<Object> members =
+          redisTemplate.execute(HEARTBEAT_SCRIPT, List.of(nodesKey), nodeId, String.valueOf(ttl));
+
+      final List<String> nodes = members.stream().map(String::valueOf).toList();
+      final int self = nodes.indexOf(nodeId);
+
+      final List<Integer> assigned = new ArrayList<>();
+      final List<String> released = new ArrayList<>();
+      for (int i = 0; i < bucketKeys.size(); i++) {
+        if (self >= 0 && i % nodes.size() == self) {
+          assigned.add(i);
+        } else {
+          // Stop consuming before releasing the lease
+          if (leases.getAndSet(i, 0) != 0) {
+            released.add(bucketKeys.get(i));
+          }
+        }
+      }
+
+      if (!released.isEmpty()) {
+        redisTemplate.execute(RELEASE_SCRIPT, released, nodeId);
+        log.info("🔄 {} buckets handed over ({} live nodes)", released.size(), nodes.size());
+      }
+
+      if (!assigned.isEmpty()) {
+        final List<Object> acquired =
+            redisTemplate.execute(
+                ACQUIRE_SCRIPT,
+                assigned.stream().map(bucketKeys::get).toList(),
+                nodeId,
+                String.valueOf(ttl));
+
+        final long expiration = start + conf.getLeaseTtl().minus(conf.getHeartbeat()).toNanos();
+        for (int i = 0; i < assigned.size(); i++) {
+          // Still owned by the previous node until it releases it (or it expires)
+          final boolean owned = ((Number) acquired.get(i)).longValue() == 1;
+          leases.set(assigned.get(i), owned ? expiration : 0);
+        }
+      }
+    } catch (RuntimeException e) {
+      // Local leases expire on their own, the buckets are then taken over by other nodes
+      log.error("‼️ Heartbeat of node {} failed", nodeId, e);
+    }
+  }
+
+  /**
+   * Script returning a multi-bulk reply (elements as decoded by the value
+   * serializer)
+   */
+  @SuppressWarnings("unchecked")
+  private static RedisScript<List<Object>> listScript(String script) {
+    return RedisScript.of(script, (Class<List<Object>>) (Class<?>) List.class);
+  }
+
+  private double countOwned() {
+    int count = 0;
+    for (int i = 0; i < leases.length(); i++) {
+      if (isOwned(i)) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,34 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import java.io.File;
+import lombok.RequiredArgsConstructor;
+import org.apache.camel.component.file.GenericFile;
+import org.apache.camel.component.file.GenericFileFilter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Filter of the file consumer in partitioning mode
+ * ('app.routing.file.input.partitioning'): only the bucket directories leased
+ * by this node are scanned (see {@link BucketLeaseManager}).
+ * <p>
+ * Files are checked against their bucket too, in case the lease was lost
+ * between the listing of the directory and the one of its files.
+ * </p>
+ */
+@Component("bucketOwnershipFilter")
+@RequiredArgsConstructor
+public class BucketOwnershipFilter implements GenericFileFilter<File> {
+
+  private final BucketLeaseManager bucketLeaseManager;
+
+  @Override
+  public boolean accept(GenericFile<File> file) {
+    final String bucket =
+        file.isDirectory()
+            ? file.getFileNameOnly()
+            : file.getFile().getAbsoluteFile().getParentFile().getName();
+
+    return bucketLeaseManager.isOwned(InboxStagingFeeder.bucketIndex(bucket));
+  }
+}
@@ -0,0 +1,51 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import com.raymice.sse.constant.Header;
+import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.exception.BundleFailureException;
+import org.apache.camel.AggregationStrategy;
+import org.apache.camel.Exchange;
+
+/**
+ * Aggregation of the messages of a bundle (archive, envelope): the bundle
+ * exchange is kept as is, and the messages that failed are counted.
+ * <p>
+ * The errors of the messages are handled (their own process is 'FAILED'), so
+ * that the other messages go on: the bundle then fails once all of them are
+ * processed (see {@link #checkFailures(Exchange)}). Unsupported messages are
+ * not failures.
+ * </p>
+ */
+class BundleEntriesStrategy implements AggregationStrategy {
+
+  private static final String FAILED_PROPERTY = "SSE_FAILED_ENTRIES";
+
+  @Override
+  public Exchange aggregate(Exchange oldExchange, Exchange newExchange) {
+    throw new UnsupportedOperationException("The bundle exchange is required");
+  }
+
+  @Override
+  public Exchange aggregate(Exchange oldExchange, Exchange newExchange, Exchange inputExchange) {
+    // Called under the lock of the splitter
+    if (newExchange.getException() != null
+        || ProcessEntity.Status.FAILED
+            .name()
+            .equals(newExchange.getIn().getHeader(Header.CUSTOM_HEADER_STATUS))) {
+      inputExchange.setProperty(
+          FAILED_PROPERTY, inputExchange.getProperty(FAILED_PROPERTY, 0, Integer.class) + 1);
+    }
+    return inputExchange;
+  }
+
+  /**
+   * Processor failing the bundle if some of its messages failed
+   */
+  static void checkFailures(Exchange exchange) throws BundleFailureException {
+    final int failed = exchange.getProperty(FAILED_PROPERTY, 0, Integer.class);
+    if (failed > 0) {
+      throw new BundleFailureException("%d messages of the bundle failed".formatted(failed));
+    }
+  }
+}
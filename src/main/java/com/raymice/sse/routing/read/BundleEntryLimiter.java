@@ -0,0 +1,126 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Expression;
+import org.apache.camel.RuntimeCamelException;
+import org.apache.camel.support.ExpressionAdapter;
+import org.apache.camel.support.ObjectHelper;
+import org.apache.camel.support.SynchronizationAdapter;
+
+/**
+ * Limit of the messages of the bundles (archives, envelopes) in progress at a
+ * time, all the bundles of a route together.
+ * <p>
+ * A slot is taken before handing the next message of a bundle to the
+ * splitter (see {@link #limit(Expression)}), and given back once the message
+ * is done, successfully or not (see {@link #hold(Exchange)}). The reading of a
+ * bundle then waits while 'parallelism' messages are in progress: the memory
+ * stays bounded whatever the size and the number of the bundles (plus the
+ * message of each bundle read ahead by {@link Iterator#hasNext()}).
+ * </p>
+ * The bundles themselves do not take a slot: a bundle waiting for a slot only
+ * waits for messages that do not need another one. The slot is not taken by
+ * {@link Iterator#hasNext()}, which the splitter calls before running the
+ * message it has just read.
+ */
+public class BundleEntryLimiter {
+
+  private final Semaphore slots;
+
+  /**
+   * @param parallelism the maximum number of messages in progress
+   */
+  public BundleEntryLimiter(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+    }
+    this.slots = new Semaphore(parallelism);
+  }
+
+  /**
+   * @param messages the expression of the messages of a bundle
+   * @return the expression whose messages are read once a slot is free
+   */
+  public Expression limit(Expression messages) {
+    return new ExpressionAdapter() {
+      @Override
+      public Object evaluate(Exchange exchange) {
+        final Object value = messages.evaluate(exchange, Object.class);
+        return new LimitedIterator(ObjectHelper.createIterator(value), value);
+      }
+
+      @Override
+      public void init(CamelContext context) {
+        messages.init(context);
+      }
+    };
+  }
+
+  /**
+   * Processor of a message, first of its route: its slot is given back once
+   * it is done
+   */
+  public void hold(Exchange exchange) {
+    exchange
+        .getExchangeExtension()
+        .addOnCompletion(
+            new SynchronizationAdapter() {
+              @Override
+              public void onDone(Exchange exchange) {
+                slots.release();
+              }
+            });
+  }
+
+  /**
+   * Iterator taking a slot before handing the next message
+   */
+  private class LimitedIterator implements Iterator<Object>, Closeable {
+
+    private final Iterator<?> delegate;
+    private final Object source;
+
+    private LimitedIterator(Iterator<?> delegate, Object source) {
+      this.delegate = delegate;
+      this.source = source;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return delegate.hasNext();
+    }
+
+    @Override
+    public Object next() {
+      try {
+        slots.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeCamelException("Interrupted while waiting for a free slot", e);
+      }
+
+      try {
+        // Given back by the message itself (see hold)
+        return delegate.next();
+      } catch (RuntimeException e) {
+        slots.release();
+        throw e;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (source instanceof Closeable closeable) {
+        closeable.close();
+      } else if (delegate instanceof Closeable closeable) {
+        closeable.close();
+      }
+    }
+  }
+}
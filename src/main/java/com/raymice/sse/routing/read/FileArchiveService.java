@@ -0,0 +1,317 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.db.entity.ProcessPayloadEntity;
+import com.raymice.sse.db.sevice.ProcessPayloadService;
+import com.raymice.sse.exception.MalformedArchiveException;
+import com.raymice.sse.utils.ArchiveUtils;
+import com.raymice.sse.utils.CamelUtils;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.file.GenericFile;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.springframework.stereotype.Service;
+
+/**
+ * Extraction of the archives of messages ('app.routing.file.input.archives').
+ * <p>
+ * Entries are read sequentially from the archive stream, and each one is
+ * encoded on the fly (line breaks stripped, hashed and compressed, see
+ * {@link ProcessPayloadService}): nothing is written to disk, and only the
+ * encoded entries waiting for their process are held in memory.
+ * </p>
+ * <p>
+ * The extraction fails the whole archive (see {@link MalformedArchiveException})
+ * beyond the limits of the configuration: extracted size of an entry, number of
+ * entries, and ratio between the extracted and the read sizes (zip bombs,
+ * checked once 1MB has been extracted).
+ * </p>
+ */
+@Slf4j
+@Service
+public class FileArchiveService {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  // Extracted size from which the compression ratio is checked (small archives compress well)
+  private static final long RATIO_CHECK_MIN_SIZE = 1024 * 1024;
+
+  private final ProcessPayloadService processPayloadService;
+  private final ApplicationConfig.Archives conf;
+
+  public FileArchiveService(
+      ProcessPayloadService processPayloadService, ApplicationConfig applicationConfig) {
+    this.processPayloadService = processPayloadService;
+    this.conf = applicationConfig.getRouting().getFile().getInput().getArchives();
+  }
+
+  /**
+   * Entry of an archive, encoded.
+   *
+   * @param name    file name of the entry (without directories)
+   * @param payload encoded content of the entry
+   */
+  public record Entry(String name, ProcessPayloadEntity payload) {}
+
+  /**
+   * Predicate of the archives to extract
+   *
+   * @param exchange the exchange of the received file
+   * @return true if the file is a supported archive and extraction is enabled
+   */
+  public boolean isArchive(Exchange exchange) {
+    return conf.getEnabled()
+        && ArchiveUtils.getFormat(CamelUtils.getFileName(exchange)).isPresent();
+  }
+
+  /**
+   * Describe an archive for its own process: its content is not stored, and
+   * not read either (only its size). Its duplicates are detected entry by
+   * entry, the process of the archive is not fingerprinted.
+   *
+   * @param exchange the exchange of the received archive
+   * @return the description of the archive
+   * @throws IOException if the size of the archive cannot be read
+   */
+  public String describe(Exchange exchange) throws IOException {
+    return "archive size=%d".formatted(Files.size(getPath(exchange)));
+  }
+
+  /**
+   * Splitter of an archive: lazy iterator over its encoded entries, closed by
+   * the splitter at the end
+   *
+   * @param exchange the exchange of the received archive
+   * @return the iterator over the entries
+   * @throws IOException if the archive cannot be opened
+   */
+  public Iterator<Entry> entries(Exchange exchange) throws IOException {
+    final String fileName = CamelUtils.getOriginalFileName(exchange);
+    final ArchiveUtils.Format format =
+        ArchiveUtils.getFormat(fileName)
+            .orElseThrow(() -> new IllegalArgumentException("Not an archive: " + fileName));
+
+    // Bytes read from the archive file, for the compression ratio
+    final CountingInputStream in =
+        new CountingInputStream(
+            new BufferedInputStream(Files.newInputStream(getPath(exchange)), BUFFER_SIZE));
+    try {
+      return switch (format) {
+        case ZIP -> new EntryIterator(new ZipArchiveInputStream(in), in, null);
+        case TAR -> new EntryIterator(new TarArchiveInputStream(in), in, null);
+        case TAR_GZIP ->
+            new EntryIterator(
+                new TarArchiveInputStream(new GzipCompressorInputStream(in)), in, null);
+        case GZIP ->
+            new EntryIterator(
+                new GzipCompressorInputStream(in),
+                in,
+                ArchiveUtils.getCompressedEntryName(fileName));
+      };
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  private static Path getPath(Exchange exchange) {
+    // File of the consumer, updated by the pre-move
+    if (!(exchange.getProperty(Exchange.FILE_EXCHANGE_FILE) instanceof GenericFile<?> file)) {
+      throw new IllegalArgumentException("Exchange is not bound to a file");
+    }
+    return Path.of(file.getAbsoluteFilePath());
+  }
+
+  /**
+   * Iterator over the entries of an archive stream, or over the single entry
+   * of a compressed stream (when 'singleEntryName' is set).
+   */
+  private class EntryIterator implements Iterator<Entry>, Closeable {
+
+    private final InputStream stream;
+    private final CountingInputStream file;
+    private final String singleEntryName;
+    private final long maxEntrySize = Math.min(conf.getMaxEntrySize().toBytes(), Integer.MAX_VALUE);
+    private Entry next;
+    private boolean done;
+    private boolean singleEntryRead;
+    private int entries;
+    private long extracted;
+
+    EntryIterator(InputStream stream, CountingInputStream file, String singleEntryName) {
+      this.stream = stream;
+      this.file = file;
+      this.singleEntryName = singleEntryName;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next == null && !done) {
+        try {
+          next = read();
+        } catch (MalformedArchiveException e) {
+          throw new UncheckedIOException(e);
+        } catch (IOException e) {
+          // Not retried: the entries already read would be processed again
+          throw new UncheckedIOException(
+              new MalformedArchiveException("Unable to read archive entry", e));
+        }
+        done = next == null;
+      }
+      return next != null;
+    }
+
+    @Override
+    public Entry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Entry entry = next;
+      next = null;
+      return entry;
+    }
+
+    @Override
+    public void close() throws IOException {
+      done = true;
+      stream.close();
+    }
+
+    private Entry read() throws IOException {
+      if (singleEntryName != null) {
+        // Compressed file: a single entry, the whole stream
+        if (singleEntryRead) {
+          return null;
+        }
+        singleEntryRead = true;
+        return encode(singleEntryName, stream);
+      }
+
+      final ArchiveInputStream<?> archive = (ArchiveInputStream<?>) stream;
+      for (ArchiveEntry entry = archive.getNextEntry();
+          entry != null;
+          entry = archive.getNextEntry()) {
+        if (entry.isDirectory() || ArchiveUtils.isIgnored(entry.getName())) {
+          continue;
+        }
+        if (!archive.canReadEntryData(entry)) {
+          log.warn(
+              "⚠️ Unsupported entry '{}' skipped (encrypted or unknown method)", entry.getName());
+          continue;
+        }
+        if (++entries > conf.getMaxEntries()) {
+          throw new MalformedArchiveException(
+              "Archive has more than %d entries".formatted(conf.getMaxEntries()));
+        }
+        return encode(ArchiveUtils.getEntryFileName(entry.getName()), archive);
+      }
+      return null;
+    }
+
+    private Entry encode(String name, InputStream in) throws IOException {
+      return new Entry(name, processPayloadService.encode(new EntryInputStream(name, in)));
+    }
+
+    /**
+     * Stream of an entry, failing as soon as a limit is exceeded (the archive
+     * stream is not closed with it)
+     */
+    private class EntryInputStream extends FilterInputStream {
+
+      private final String name;
+      private long size;
+
+      EntryInputStream(String name, InputStream in) {
+        super(in);
+        this.name = name;
+      }
+
+      @Override
+      public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        final int read = in.read(b, off, len);
+        if (read > 0) {
+          size += read;
+          extracted += read;
+          check();
+        }
+        return read;
+      }
+
+      @Override
+      public void close() {
+        // Closed with the archive
+      }
+
+      private void check() throws MalformedArchiveException {
+        if (size > maxEntrySize) {
+          throw new MalformedArchiveException(
+              "Entry '%s' larger than %d bytes".formatted(name, maxEntrySize));
+        }
+        if (extracted > RATIO_CHECK_MIN_SIZE
+            && extracted > (long) conf.getMaxCompressionRatio() * file.count) {
+          throw new MalformedArchiveException(
+              "Archive expands more than %d times (%d bytes extracted from %d)"
+                  .formatted(conf.getMaxCompressionRatio(), extracted, file.count));
+        }
+      }
+    }
+  }
+
+  /**
+   * Stream counting the bytes read from it
+   */
+  private static class CountingInputStream extends FilterInputStream {
+
+    private long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int b = in.read();
+      if (b != -1) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      final int read = in.read(b, off, len);
+      if (read > 0) {
+        count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      final long skipped = in.skip(n);
+      count += skipped;
+      return skipped;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.db.sevice.ProcessPayloadService;
+import com.raymice.sse.utils.CamelUtils;
+import com.raymice.sse.utils.EnvelopeUtils;
+import com.raymice.sse.utils.HashUtils;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.xml.stream.XMLStreamException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.file.GenericFile;
+import org.springframework.stereotype.Service;
+
+/**
+ * Splitting of the envelopes of business messages
+ * ('app.routing.file.input.envelopes').
+ * <p>
+ * The envelope is read with StAX (see {@link EnvelopeUtils}) and each message
+ * is encoded as soon as it is read (line breaks stripped, hashed and
+ * compressed, see {@link ProcessPayloadService}): the envelope is never loaded
+ * in memory, only the encoded messages waiting for their process are.
+ * </p>
+ */
+@Slf4j
+@Service
+public class FileEnvelopeService {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final ProcessPayloadService processPayloadService;
+  private final ApplicationConfig.Envelopes conf;
+
+  public FileEnvelopeService(
+      ProcessPayloadService processPayloadService, ApplicationConfig applicationConfig) {
+    this.processPayloadService = processPayloadService;
+    this.conf = applicationConfig.getRouting().getFile().getInput().getEnvelopes();
+  }
+
+  /**
+   * Predicate of the envelopes to split
+   *
+   * @param exchange the exchange of the received file
+   * @return true if the file is an XML envelope of several messages and
+   *         splitting is enabled
+   */
+  public boolean isEnvelope(Exchange exchange) {
+    if (!conf.getEnabled() || !CamelUtils.getFileName(exchange).endsWith(".xml")) {
+      return false;
+    }
+
+    try (InputStream in = open(exchange)) {
+      return EnvelopeUtils.isEnvelope(in);
+    } catch (IOException e) {
+      // Processed as a single file, which reports the error
+      log.debug("Unable to read file {}", CamelUtils.getFileName(exchange), e);
+      return false;
+    }
+  }
+
+  /**
+   * Describe an envelope for its own process: its content is not stored, only
+   * its SHA-256 and size (identical envelopes are detected as duplicates)
+   *
+   * @param exchange the exchange of the received envelope
+   * @return the description of the envelope
+   * @throws IOException if the envelope cannot be read
+   */
+  public String describe(Exchange exchange) throws IOException {
+    final Path envelope = getPath(exchange);
+    return "envelope sha256=%s size=%d"
+        .formatted(HashUtils.sha256Hex(envelope), Files.size(envelope));
+  }
+
+  /**
+   * Splitter of an envelope: lazy iterator over its encoded messages, closed by
+   * the splitter at the end
+   *
+   * @param exchange the exchange of the received envelope
+   * @return the iterator over the messages
+   * @throws IOException        if the envelope cannot be opened
+   * @throws XMLStreamException if the envelope cannot be read
+   */
+  public Iterator<FileArchiveService.Entry> messages(Exchange exchange)
+      throws IOException, XMLStreamException {
+    final String fileName = CamelUtils.getOriginalFileName(exchange);
+
+    final InputStream in = open(exchange);
+    try {
+      return new MessageIterator(EnvelopeUtils.split(in), fileName);
+    } catch (XMLStreamException | RuntimeException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  private static InputStream open(Exchange exchange) throws IOException {
+    return new BufferedInputStream(Files.newInputStream(getPath(exchange)), BUFFER_SIZE);
+  }
+
+  private static Path getPath(Exchange exchange) {
+    // File of the consumer, updated by the pre-move
+    if (!(exchange.getProperty(Exchange.FILE_EXCHANGE_FILE) instanceof GenericFile<?> file)) {
+      throw new IllegalArgumentException("Exchange is not bound to a file");
+    }
+    return Path.of(file.getAbsoluteFilePath());
+  }
+
+  /**
+   * Iterator over the messages of an envelope, named after the envelope and
+   * their position in it.
+   */
+  private class MessageIterator implements Iterator<FileArchiveService.Entry>, Closeable {
+
+    private final EnvelopeUtils.Splitter splitter;
+    private final String envelopeFileName;
+    private FileArchiveService.Entry next;
+    private boolean done;
+    private int index;
+
+    MessageIterator(EnvelopeUtils.Splitter splitter, String envelopeFileName) {
+      this.splitter = splitter;
+      this.envelopeFileName = envelopeFileName;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next == null && !done) {
+        try {
+          next = read();
+        } catch (IOException e) {
+          throw new UncheckedIOException("Unable to read envelope message", e);
+        } catch (XMLStreamException e) {
+          throw new IllegalStateException("Malformed envelope: " + e.getMessage(), e);
+        }
+        done = next == null;
+      }
+      return next != null;
+    }
+
+    @Override
+    public FileArchiveService.Entry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final FileArchiveService.Entry entry = next;
+      next = null;
+      return entry;
+    }
+
+    @Override
+    public void close() {
+      done = true;
+      splitter.close();
+    }
+
+    private FileArchiveService.Entry read() throws IOException, XMLStreamException {
+      final byte[] message = splitter.next();
+      if (message == null) {
+        return null;
+      }
+
+      return new FileArchiveService.Entry(
+          EnvelopeUtils.getMessageFileName(envelopeFileName, ++index),
+          processPayloadService.encode(new ByteArrayInputStream(message)));
+    }
+  }
+}
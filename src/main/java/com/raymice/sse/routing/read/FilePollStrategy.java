@@ -0,0 +1,69 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Consumer;
+import org.apache.camel.Endpoint;
+import org.apache.camel.spi.PollingConsumerPollStrategy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Poll strategy of the file consumer, publishing the poll metrics:
+ * 'file.poll' (time to list the directory and pick the files) and
+ * 'file.poll.messages' (files picked per poll).
+ * <p>
+ * Bound to a single consumer (polls never overlap).
+ * </p>
+ */
+@Slf4j
+@Component("filePollStrategy")
+public class FilePollStrategy implements PollingConsumerPollStrategy {
+
+  private final MeterRegistry meterRegistry;
+  private final Timer pollTimer;
+  private final DistributionSummary pollMessages;
+
+  private Timer.Sample sample;
+
+  public FilePollStrategy(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    this.pollTimer =
+        Timer.builder("file.poll")
+            .description("Time to list the input directory and pick the files")
+            .register(meterRegistry);
+    this.pollMessages =
+        DistributionSummary.builder("file.poll.messages")
+            .description("Number of files picked per poll")
+            .register(meterRegistry);
+  }
+
+  @Override
+  public boolean begin(Consumer consumer, Endpoint endpoint) {
+    sample = Timer.start(meterRegistry);
+    return true;
+  }
+
+  @Override
+  public void commit(Consumer consumer, Endpoint endpoint, int polledMessages) {
+    stop();
+    pollMessages.record(polledMessages);
+  }
+
+  @Override
+  public boolean rollback(Consumer consumer, Endpoint endpoint, int retryCounter, Exception e) {
+    stop();
+    log.warn("⚠️ Poll of {} failed: {}", endpoint, e.getMessage());
+    // Same as the default strategy: no retry, wait for the next poll
+    return false;
+  }
+
+  private void stop() {
+    if (sample != null) {
+      sample.stop(pollTimer);
+      sample = null;
+    }
+  }
+}
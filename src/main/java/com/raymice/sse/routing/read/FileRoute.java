@@ -1,13 +1,17 @@
 /* Raymice - https://github.com/Raymice - 2025 */
 package com.raymice.sse.routing.read;
 
+import com.raymice.sse.configuration.ApplicationConfig;
 import com.raymice.sse.configuration.CamelConfig;
+import com.raymice.sse.constant.Header;
+import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.processor.UpdateStatusProcessor;
 import com.raymice.sse.routing.DefaultRoute;
-import com.raymice.sse.utils.ActiveMqUtils;
 import java.util.concurrent.ExecutorService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.Exchange;
-import org.apache.camel.component.redis.processor.idempotent.SpringRedisIdempotentRepository;
+import org.apache.camel.Expression;
+import org.apache.camel.Processor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
@@ -21,18 +25,30 @@ import org.springframework.web.util.UriComponentsBuilder;
 public class FileRoute extends DefaultRoute {
 
   @SuppressWarnings("unused")
-  private final SpringRedisIdempotentRepository myRedisIdempotentRepository;
+  private final RedisReadLockRepository myRedisIdempotentRepository;
 
   private final FileRouteService fileRouteService;
 
+  private final FileArchiveService fileArchiveService;
+
+  private final FileEnvelopeService fileEnvelopeService;
+
   private final CamelConfig camelConfig;
 
+  private static final String ARCHIVE_ENDPOINT = "direct:file-archive";
+  private static final String ENVELOPE_ENDPOINT = "direct:file-envelope";
+  private static final String DISPATCH_ENDPOINT = "direct:file-dispatch";
+
   public FileRoute(
-      SpringRedisIdempotentRepository myRedisIdempotentRepository,
+      RedisReadLockRepository myRedisIdempotentRepository,
       FileRouteService fileRouteService,
+      FileArchiveService fileArchiveService,
+      FileEnvelopeService fileEnvelopeService,
       CamelConfig camelConfig) {
     this.myRedisIdempotentRepository = myRedisIdempotentRepository;
     this.fileRouteService = fileRouteService;
+    this.fileArchiveService = fileArchiveService;
+    this.fileEnvelopeService = fileEnvelopeService;
     this.camelConfig = camelConfig;
   }
 
@@ -46,10 +62,7 @@ public class FileRoute extends DefaultRoute {
     // Define the route to consume files from a directory
     final String inputPath = buildFileUri();
 
-    final String outputQueueUri =
-        ActiveMqUtils.getQueueUri(
-            getApplicationConfig().getQueueValidatorName(),
-            getActiveMQConfig().getConcurrentConsumers());
+    final String outputQueueUri = getOutputQueueUri(getApplicationConfig().getQueueValidatorName());
 
     // Call the parent method to apply the shared error handling
     setupCommonExceptionHandling();
@@ -59,10 +72,48 @@ public class FileRoute extends DefaultRoute {
         .routeId(getRouteId())
         .threads()
         .executorService(virtualThreadPool)
+        .choice()
+        // Bundles of messages (see FileArchiveService, FileEnvelopeService)
+        .when(fileArchiveService::isArchive)
+        .to(ARCHIVE_ENDPOINT)
+        .when(fileEnvelopeService::isEnvelope)
+        .to(ENVELOPE_ENDPOINT)
+        .otherwise()
         .process(fileRouteService::createProcess)
+        // Keep the received file for the output stage (zero copy)
+        .process(getFileOutputService()::stage)
+        .to(DISPATCH_ENDPOINT)
+        .end();
+
+    final ApplicationConfig.Input input = getApplicationConfig().getRouting().getFile().getInput();
+
+    // Route for extracting the entries of an archive, each one becoming a process
+    configureBundleRoute(
+        ARCHIVE_ENDPOINT,
+        getRouteId() + "Archive",
+        fileRouteService::createArchiveProcess,
+        method(fileArchiveService, "entries"),
+        input.getArchives().getParallelism());
+
+    // Route for splitting the messages of an envelope, each one becoming a process
+    configureBundleRoute(
+        ENVELOPE_ENDPOINT,
+        getRouteId() + "Envelope",
+        fileRouteService::createEnvelopeProcess,
+        method(fileEnvelopeService, "messages"),
+        input.getEnvelopes().getParallelism());
+
+    // Route for sending a process to the validation, according to its status and type
+    from(DISPATCH_ENDPOINT)
+        .routeId(getRouteId() + "Dispatch")
         .choice()
+        // Content already received (see ProcessFingerprintService)
+        .when(header(Header.CUSTOM_HEADER_STATUS).isEqualTo(ProcessEntity.Status.DUPLICATE.name()))
+        .process(fileRouteService::duplicateProcessor)
+        .process(getFileOutputService().duplicate())
         .when(header(Exchange.FILE_NAME).endsWith(".xml"))
         .process(fileRouteService::successProcessor)
+        .process(getClaimCheckService()::checkIn)
         .to(outputQueueUri)
         .otherwise()
         .process(fileRouteService::unsupportedProcessor)
@@ -70,6 +121,52 @@ public class FileRoute extends DefaultRoute {
         .end();
   }
 
+  /**
+   * Route of a bundle of messages (archive, envelope): its own process is
+   * created, then each message is read and processed as a received file.
+   * <p>
+   * Messages run on virtual threads, at most 'parallelism' at a time for all
+   * the bundles of the route together: the reading of a bundle waits for a
+   * free slot, so that the memory stays bounded whatever the size and the
+   * number of the bundles (see {@link BundleEntryLimiter}).
+   * </p>
+   * The bundle is 'FAILED' if it cannot be read, or if some of its messages
+   * failed (see {@link BundleEntriesStrategy}).
+   */
+  private void configureBundleRoute(
+      String endpoint,
+      String routeId,
+      Processor createProcess,
+      Expression splitter,
+      int parallelism) {
+
+    final BundleEntryLimiter limiter = new BundleEntryLimiter(parallelism);
+
+    from(endpoint)
+        .routeId(routeId)
+        .process(createProcess)
+        .process(getFileOutputService()::stage)
+        .choice()
+        // Bundle already received, its messages are not processed again
+        .when(header(Header.CUSTOM_HEADER_STATUS).isEqualTo(ProcessEntity.Status.DUPLICATE.name()))
+        .process(fileRouteService::duplicateProcessor)
+        .process(getFileOutputService().duplicate())
+        .otherwise()
+        .split(limiter.limit(splitter), new BundleEntriesStrategy())
+        .streaming()
+        .parallelProcessing()
+        .executorService(virtualThreadPool)
+        .process(limiter::hold)
+        .process(fileRouteService::createEntryProcess)
+        .to(DISPATCH_ENDPOINT)
+        .end()
+        .process(BundleEntriesStrategy::checkFailures)
+        .process(new UpdateStatusProcessor(getProcessService(), ProcessEntity.Status.COMPLETED))
+        .process(getFileOutputService().success())
+        .endChoice()
+        .end();
+  }
+
   /**
    * Builds the file URI for consuming files from a directory with various
    * configuration parameters.
@@ -87,27 +184,65 @@ public class FileRoute extends DefaultRoute {
 
     var conf = camelConfig.getFileProcessor();
 
-    return UriComponentsBuilder.fromPath(
-            String.format("file:%s", getApplicationConfig().getFileInputPath()))
-        .queryParam("autoCreate", conf.getAutoCreate())
-        .queryParam("noop", conf.getNoop())
-        .queryParam("recursive", conf.getRecursive())
-        .queryParam("preMove", conf.getPreMoveFolder())
-        .queryParam("includeHiddenFiles", conf.getHiddenFiles())
-        .queryParam("includeHiddenDirs", conf.getHiddenDirs())
-        .queryParam("exchangePattern", "InOnly")
-        .queryParam("charset", conf.getCharset())
-        // This combines the idempotent and changed strategies, providing a
-        // robust read lock that leverages both change detection and an idempotent
-        // repository
-        // for clustered scenarios
-        .queryParam("readLock", "idempotent-changed")
-        // Use a shared Redis-based Idempotent Repository for read lock to prevent
-        // multiple instances processing the same file
-        .queryParam("idempotentRepository", "#myRedisIdempotentRepository")
-        .queryParam("readLockCheckInterval", conf.getReadLockCheckInterval())
-        .queryParam("readLockTimeout", conf.getReadLockTimeout())
-        .build()
-        .toUriString();
+    // In WATCH mode the polls only examine the notified files (see WatchFileComponent)
+    final String scheme =
+        conf.getDiscovery() == CamelConfig.Discovery.WATCH ? WatchFileComponent.SCHEME : "file";
+
+    final UriComponentsBuilder builder =
+        UriComponentsBuilder.fromPath(
+                String.format("%s:%s", scheme, getApplicationConfig().getFileConsumerPath()))
+            .queryParam("autoCreate", conf.getAutoCreate())
+            .queryParam("noop", conf.getNoop())
+            .queryParam("recursive", conf.getRecursive())
+            .queryParam("preMove", conf.getPreMoveFolder())
+            .queryParam("includeHiddenFiles", conf.getHiddenFiles())
+            .queryParam("includeHiddenDirs", conf.getHiddenDirs())
+            .queryParam("exchangePattern", "InOnly")
+            .queryParam("charset", conf.getCharset())
+            // By default, this combines the idempotent and changed strategies, providing a
+            // robust read lock that leverages both change detection and an idempotent
+            // repository
+            // for clustered scenarios
+            .queryParam("readLock", conf.getReadLock())
+            // Use a shared Redis-based Idempotent Repository for read lock to prevent
+            // multiple instances processing the same file
+            .queryParam("idempotentRepository", "#myRedisIdempotentRepository")
+            .queryParam("readLockCheckInterval", conf.getReadLockCheckInterval())
+            .queryParam("readLockTimeout", conf.getReadLockTimeout())
+            // Metrics of the polls (see FilePollStrategy)
+            .queryParam("pollStrategy", "#filePollStrategy");
+
+    if (conf.getMaxMessagesPerPoll() > 0) {
+      // Stop picking files once the limit is reached, then poll again immediately
+      builder
+          .queryParam("maxMessagesPerPoll", conf.getMaxMessagesPerPoll())
+          .queryParam("eagerMaxMessagesPerPoll", true)
+          .queryParam("greedy", true);
+    }
+
+    final var staging = getApplicationConfig().getRouting().getFile().getInput().getStaging();
+    if (staging.getEnabled() && staging.getBuckets() > 0) {
+      // Files are staged in hashed sub-directories (see InboxStagingFeeder)
+      builder
+          .replaceQueryParam("recursive", true)
+          .queryParam("minDepth", 2)
+          .queryParam("maxDepth", 2);
+    }
+
+    if (getApplicationConfig().getRouting().getFile().getInput().getPartitioning().getEnabled()) {
+      // Each node only scans the buckets it leases (see BucketLeaseManager): no per-file lock
+      // in Redis, the change detection alone is enough
+      builder
+          .replaceQueryParam("readLock", "changed")
+          .replaceQueryParam("idempotentRepository")
+          .queryParam("filter", "#bucketOwnershipFilter");
+    }
+
+    if (conf.getDiscovery() == CamelConfig.Discovery.WATCH) {
+      // Poll the notified files instead of a periodic scan (see FileWatchScheduler)
+      builder.queryParam("scheduler", "#fileWatchScheduler");
+    }
+
+    return builder.build().toUriString();
   }
 }
@@ -3,8 +3,12 @@ package com.raymice.sse.routing.read;
 
 import static com.raymice.sse.utils.CamelUtils.getFileName;
 import static com.raymice.sse.utils.CamelUtils.getOriginalFileName;
+import static com.raymice.sse.utils.CamelUtils.getProcessId;
+import static com.raymice.sse.utils.CamelUtils.removeStagedFile;
+import static com.raymice.sse.utils.CamelUtils.setClaimCheck;
 import static com.raymice.sse.utils.CamelUtils.setFileName;
 import static com.raymice.sse.utils.CamelUtils.setOriginalFileName;
+import static com.raymice.sse.utils.CamelUtils.setProcessCreatedAt;
 import static com.raymice.sse.utils.CamelUtils.setProcessId;
 import static com.raymice.sse.utils.CamelUtils.setStatus;
 import static com.raymice.sse.utils.CamelUtils.setUpdatedFileName;
@@ -12,12 +16,20 @@ import static com.raymice.sse.utils.CamelUtils.setUpdatedFileName;
 import com.raymice.sse.configuration.mdc.annotation.ExchangeMDC;
 import com.raymice.sse.configuration.opentelemetry.annotation.ExchangeSpan;
 import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.entity.ProcessPayloadEntity;
+import com.raymice.sse.db.sevice.ProcessPayloadService;
 import com.raymice.sse.db.sevice.ProcessService;
 import com.raymice.sse.exception.UnsupportedException;
+import com.raymice.sse.routing.ClaimCheckService;
+import com.raymice.sse.routing.FileOutputService;
 import com.raymice.sse.utils.FileUtils;
+import com.raymice.sse.utils.PayloadUtils;
+import java.io.IOException;
+import java.nio.file.Path;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.Exchange;
+import org.apache.camel.component.file.GenericFile;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -26,29 +38,140 @@ import org.springframework.stereotype.Service;
 public class FileRouteService {
 
   private final ProcessService processService;
+  private final ProcessPayloadService processPayloadService;
+  private final ClaimCheckService claimCheckService;
+  private final FileArchiveService fileArchiveService;
+  private final FileEnvelopeService fileEnvelopeService;
 
   /**
    * Processor to handle pre-processing of incoming files
    * - Save in database, renames file, sets headers
+   * <p>
+   * The file is streamed once (line breaks stripped, hashed and compressed on
+   * the fly, see {@link PayloadUtils}): its content is never held in memory as
+   * a String. With the claim check (enabled, or payload from the threshold
+   * size), the body only carries a reference to the process; otherwise it is
+   * replaced by the content without line breaks, for ActiveMQ.
+   * </p>
    */
   @ExchangeMDC
   @ExchangeSpan(name = "create-process")
-  public void createProcess(Exchange exchange) {
+  public void createProcess(Exchange exchange) throws IOException {
 
     final String inputPath = exchange.getFromEndpoint().getEndpointUri();
     final String originalFileName = getFileName(exchange);
-    // Remove all line breaks from file content
-    final String fileContent = exchange.getIn().getBody(String.class).replaceAll("\\R", "");
+
+    // Remove all line breaks from file content, hash and compress it
+    final ProcessPayloadEntity payload =
+        exchange.getProperty(Exchange.FILE_EXCHANGE_FILE) instanceof GenericFile<?> file
+            ? processPayloadService.encode(Path.of(file.getAbsoluteFilePath()))
+            : processPayloadService.encode(
+                exchange.getIn().getBody(String.class).replaceAll("\\R", ""));
+
+    // Persist process entity in DB
+    ProcessEntity process = processService.createProcess(originalFileName, payload);
+
+    log.info("📥 Receiving file '{}' from: {}", originalFileName, inputPath);
+
+    // Compared to the received file before keeping it for the output (zero copy)
+    exchange.setProperty(FileOutputService.PROCESSED_SIZE_PROPERTY, payload.getSize());
+    setPayload(exchange, process.getId(), payload);
+    setProcessHeaders(exchange, originalFileName, process);
+  }
+
+  /**
+   * Processor to create the process of a received archive
+   * - Save in database (description of the archive only), renames file, sets
+   * headers
+   */
+  @ExchangeMDC
+  @ExchangeSpan(name = "create-archive-process")
+  public void createArchiveProcess(Exchange exchange) throws IOException {
+    // Its content is not hashed: duplicates are detected entry by entry
+    createParentProcess(
+        exchange,
+        fileArchiveService.describe(exchange),
+        ProcessEntity.Kind.ARCHIVE,
+        "📦 Receiving archive");
+  }
+
+  /**
+   * Processor to create the process of a received envelope of messages
+   * - Save in database (description of the envelope only), renames file, sets
+   * headers
+   */
+  @ExchangeMDC
+  @ExchangeSpan(name = "create-envelope-process")
+  public void createEnvelopeProcess(Exchange exchange) throws IOException {
+    createParentProcess(
+        exchange,
+        fileEnvelopeService.describe(exchange),
+        ProcessEntity.Kind.ENVELOPE,
+        "✉️ Receiving envelope");
+  }
+
+  private void createParentProcess(
+      Exchange exchange, String description, ProcessEntity.Kind kind, String message) {
+
+    final String inputPath = exchange.getFromEndpoint().getEndpointUri();
+    final String originalFileName = getFileName(exchange);
+
+    // Persist process entity in DB
+    ProcessEntity process = processService.createProcess(originalFileName, description, kind);
+
+    log.info("{} '{}' from: {}", message, originalFileName, inputPath);
+
+    setProcessHeaders(exchange, originalFileName, process);
+  }
+
+  /**
+   * Processor to create the process of an entry extracted from an archive or
+   * an envelope (see {@link FileArchiveService#entries(Exchange)},
+   * {@link FileEnvelopeService#messages(Exchange)})
+   * - Save in database with a reference to the parent process, sets headers
+   */
+  @ExchangeMDC
+  @ExchangeSpan(name = "create-entry-process")
+  public void createEntryProcess(Exchange exchange) {
+
+    final FileArchiveService.Entry entry = exchange.getIn().getBody(FileArchiveService.Entry.class);
+    // Headers inherited from the archive exchange
+    final Long parentId = Long.valueOf(getProcessId(exchange));
+    removeStagedFile(exchange);
 
     // Persist process entity in DB
-    ProcessEntity process = processService.createProcess(originalFileName, fileContent);
-    Long processId = process.getId();
+    ProcessEntity process = processService.createProcess(entry.name(), entry.payload(), parentId);
+
+    log.info("📥 Receiving file '{}' from parent processId={}", entry.name(), parentId);
+
+    // No file behind the entry, the payload is restored from the claim check when needed
+    setPayload(exchange, process.getId(), entry.payload());
+    setProcessHeaders(exchange, entry.name(), process);
+  }
+
+  /**
+   * Keep the payload in memory for the consumers of this node (claim check),
+   * or set it as body to be sent as is to ActiveMQ
+   */
+  private void setPayload(Exchange exchange, Long processId, ProcessPayloadEntity payload) {
+    claimCheckService.keepLocal(processId, payload);
+
+    if (claimCheckService.isRequired(payload)) {
+      // Never decoded here, restored by the consumers
+      exchange.getIn().setBody(null);
+      setClaimCheck(exchange, true);
+    } else {
+      exchange.getIn().setBody(ProcessPayloadService.decodeBytes(payload));
+    }
+  }
+
+  private static void setProcessHeaders(
+      Exchange exchange, String originalFileName, ProcessEntity process) {
+    final Long processId = process.getId();
 
     // Add status in header
     setStatus(exchange, process.getStatus());
 
-    log.info("📥 Receiving file '{}' from: {}", originalFileName, inputPath);
-
     // Add Process ID to filename to ensure uniqueness
     final String newFileName = FileUtils.addProcessId(originalFileName, processId);
     setFileName(exchange, newFileName);
@@ -57,6 +180,7 @@ public class FileRouteService {
     setOriginalFileName(exchange, originalFileName);
     setUpdatedFileName(exchange, newFileName);
     setProcessId(exchange, processId);
+    setProcessCreatedAt(exchange, process.getCreatedAt());
   }
 
   /**
@@ -69,6 +193,16 @@ public class FileRouteService {
     log.info("📤 Sending file to ActiveMQ: '{}'", fileName);
   }
 
+  /**
+   * Processor to log files whose content was already received
+   * - logs file name, the process is not sent to ActiveMQ
+   */
+  @ExchangeMDC
+  public void duplicateProcessor(Exchange exchange) {
+    final String fileName = getOriginalFileName(exchange);
+    log.warn("♻️ Duplicate file '{}': content already received, skipping", fileName);
+  }
+
   /**
    * Processor to handle unsupported file types
    * - logs warning with file name and Process ID
@@ -0,0 +1,345 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.raymice.sse.configuration.CamelConfig;
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Consumer;
+import org.apache.camel.component.file.FileEndpoint;
+import org.apache.camel.spi.ScheduledPollConsumerScheduler;
+import org.apache.camel.support.service.ServiceSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Event-driven scheduler of the file consumer
+ * ('spring.camel.fileProcessor.discovery=WATCH').
+ * <p>
+ * The consumer polls as soon as the inbox directory notifies a new or modified
+ * file ({@link WatchService}), instead of scanning it periodically. The poll
+ * only examines the notified files (see {@link WatchFileConsumer}): the
+ * directory is not listed again on each event. Events received while a poll is
+ * running are coalesced into a single next poll.
+ * </p>
+ * <p>
+ * A periodic poll ('reconcileInterval') lists the whole directory as a safety
+ * net, for the files present at startup, the lost events (overflow) and the
+ * files left by a failed poll.
+ * </p>
+ * <p>
+ * The non-hidden sub-directories are watched too, the ones existing at
+ * startup and the ones created afterwards (e.g. buckets of the staging
+ * directory, see {@link InboxStagingFeeder}).
+ * </p>
+ * Bound to a single consumer (the one of {@link FileRoute}).
+ */
+@Slf4j
+@Component("fileWatchScheduler")
+public class FileWatchScheduler extends ServiceSupport implements ScheduledPollConsumerScheduler {
+
+  private final long reconcileInterval;
+  private final AtomicBoolean pollRequested = new AtomicBoolean();
+
+  // Files notified since the last poll, in order of arrival
+  private final Set<Path> changedFiles = new LinkedHashSet<>();
+
+  private CamelContext camelContext;
+  private Path directory;
+  private volatile Runnable task;
+  private volatile boolean reconciling;
+  private ScheduledExecutorService poller;
+  private WatchService watchService;
+  private Thread watcher;
+
+  public FileWatchScheduler(CamelConfig camelConfig) {
+    this.reconcileInterval = camelConfig.getFileProcessor().getReconcileInterval();
+  }
+
+  @Override
+  public void setCamelContext(CamelContext camelContext) {
+    this.camelContext = camelContext;
+  }
+
+  @Override
+  public CamelContext getCamelContext() {
+    return camelContext;
+  }
+
+  @Override
+  public void onInit(Consumer consumer) {
+    if (!(consumer.getEndpoint() instanceof FileEndpoint endpoint)) {
+      throw new IllegalArgumentException(
+          "FileWatchScheduler only supports file consumers: " + consumer.getEndpoint());
+    }
+    this.directory = endpoint.getFile().toPath();
+  }
+
+  @Override
+  public void scheduleTask(Runnable task) {
+    this.task = task;
+  }
+
+  @Override
+  public void unscheduleTask() {
+    this.task = null;
+  }
+
+  @Override
+  public synchronized void startScheduler() {
+    if (isSchedulerStarted()) {
+      return;
+    }
+
+    try {
+      Files.createDirectories(directory);
+      watchService = directory.getFileSystem().newWatchService();
+      // Files present at startup are found by the first reconciliation
+      register(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to watch directory " + directory, e);
+    }
+
+    // Single thread: polls never overlap
+    poller =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("file-poll").daemon().factory());
+    poller.scheduleWithFixedDelay(() -> poll(true), 0, reconcileInterval, TimeUnit.MILLISECONDS);
+
+    watcher = Thread.ofPlatform().name("file-watch").daemon().start(this::watch);
+
+    log.info("👀 Watching directory {} (reconciliation every {} ms)", directory, reconcileInterval);
+  }
+
+  @Override
+  public synchronized boolean isSchedulerStarted() {
+    return poller != null && !poller.isShutdown();
+  }
+
+  /**
+   * Take the files to examine by the running poll
+   *
+   * @return the files notified since the last poll, or null if the poll has to
+   *         list the whole directory (reconciliation)
+   */
+  @Nullable
+  Collection<Path> takeChangedFiles() {
+    if (reconciling) {
+      return null;
+    }
+
+    synchronized (changedFiles) {
+      final List<Path> files = new ArrayList<>(changedFiles);
+      changedFiles.clear();
+      return files;
+    }
+  }
+
+  /**
+   * Give back the files not examined by the running poll (e.g. limit of files
+   * per poll reached), for the next one
+   *
+   * @param files the files to examine again
+   */
+  void requeue(Collection<Path> files) {
+    if (files.isEmpty()) {
+      return;
+    }
+
+    synchronized (changedFiles) {
+      changedFiles.addAll(files);
+    }
+    requestPoll();
+  }
+
+  @Override
+  protected synchronized void doStop() throws Exception {
+    if (watchService != null) {
+      // Unblocks the watcher thread
+      watchService.close();
+      watchService = null;
+    }
+    if (watcher != null) {
+      watcher.join(TimeUnit.SECONDS.toMillis(5));
+      watcher = null;
+    }
+    if (poller != null) {
+      poller.shutdown();
+      poller.awaitTermination(30, TimeUnit.SECONDS);
+      poller = null;
+    }
+  }
+
+  private void watch() {
+    final WatchService service = watchService;
+
+    try {
+      while (true) {
+        final WatchKey key = service.take();
+        final Path watched = (Path) key.watchable();
+        boolean overflow = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == OVERFLOW) {
+            overflow = true;
+          } else {
+            onEvent(watched.resolve((Path) event.context()), event.kind() == ENTRY_CREATE);
+          }
+        }
+
+        if (overflow) {
+          // Events lost: the next poll lists the whole directory
+          log.warn("⚠️ Events of directory {} lost, reconciling", watched);
+          requestReconciliation();
+        } else {
+          requestPoll();
+        }
+
+        if (!key.reset()) {
+          log.debug("Directory {} is no longer watched", watched);
+          if (watched.equals(directory)) {
+            log.warn("⚠️ Directory {} is no longer watched", directory);
+            return;
+          }
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      log.debug("Watch service of {} closed", directory);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void onEvent(Path path, boolean created) {
+    if (created && Files.isDirectory(path)) {
+      if (!isHidden(path)) {
+        try {
+          // Files created before the registration are not notified: examined with the directory
+          register(path);
+        } catch (IOException e) {
+          log.warn("⚠️ Unable to watch directory {}, left to the reconciliation", path, e);
+        }
+      }
+      return;
+    }
+
+    synchronized (changedFiles) {
+      changedFiles.add(path);
+    }
+  }
+
+  /**
+   * Watch a directory and its non-hidden sub-directories, the files they
+   * already contain are examined by the next poll
+   */
+  private void register(Path root) throws IOException {
+    // The files of the inbox itself are left to the reconciliation
+    final boolean examineFiles = !root.equals(directory);
+    final List<Path> existing = new ArrayList<>();
+
+    Files.walkFileTree(
+        root,
+        new SimpleFileVisitor<>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+              throws IOException {
+            if (!dir.equals(root) && isHidden(dir)) {
+              return FileVisitResult.SKIP_SUBTREE;
+            }
+            dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (examineFiles) {
+              existing.add(file);
+            }
+            return FileVisitResult.CONTINUE;
+          }
+        });
+
+    synchronized (changedFiles) {
+      changedFiles.addAll(existing);
+    }
+  }
+
+  private static boolean isHidden(Path path) {
+    return path.getFileName().toString().startsWith(".");
+  }
+
+  private void requestPoll() {
+    // At most one pending poll, events arriving during a poll trigger the next one
+    if (pollRequested.compareAndSet(false, true)) {
+      try {
+        poller.execute(() -> poll(false));
+      } catch (RuntimeException e) {
+        // Scheduler stopped
+        pollRequested.set(false);
+      }
+    }
+  }
+
+  private void requestReconciliation() {
+    try {
+      poller.execute(() -> poll(true));
+    } catch (RuntimeException e) {
+      log.debug("Scheduler of {} stopped", directory);
+    }
+  }
+
+  /**
+   * Run the poll of the consumer
+   *
+   * @param reconcile list the whole directory, otherwise only examine the
+   *                  notified files
+   */
+  private void poll(boolean reconcile) {
+    pollRequested.set(false);
+
+    final Runnable current = task;
+    if (current == null) {
+      return;
+    }
+
+    if (reconcile) {
+      // Notified files are found by the listing
+      synchronized (changedFiles) {
+        changedFiles.clear();
+      }
+    }
+
+    reconciling = reconcile;
+    try {
+      current.run();
+    } catch (Exception e) {
+      // Never let an error cancel the periodic reconciliation
+      log.error("‼️ Poll of directory {} failed", directory, e);
+    } finally {
+      reconciling = false;
+    }
+  }
+}
@@ -0,0 +1,294 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeder of the staging directory of the inbox
+ * ('app.routing.file.input.staging').
+ * <p>
+ * The Camel file consumer lists its whole directory on each poll. With a large
+ * backlog in the inbox, the files are instead moved by small batches into a
+ * staging directory whose size is bounded ('maxFiles'), and Camel only lists
+ * the staging directory: the poll cost stays flat whatever the backlog.
+ * </p>
+ * <p>
+ * The inbox is walked incrementally with a {@link DirectoryStream} kept open
+ * between cycles (cursor), so that each cycle only reads the entries it needs.
+ * Optionally, the staging directory is split into hashed sub-directories
+ * ('buckets') so that each directory stays small.
+ * </p>
+ * <p>
+ * The move bypasses the read lock of the file consumer: only the files not
+ * modified for 'minAge' are moved, the ones still being written are left in
+ * the inbox until the next walk.
+ * </p>
+ * <p>
+ * Metrics: 'file.inbox.scan' (time of a cycle), 'file.inbox.backlog' (files
+ * seen in the inbox during the last complete walk) and 'file.inbox.staged'
+ * (files waiting in the staging directory).
+ * </p>
+ */
+@Slf4j
+@Component
+public class InboxStagingFeeder {
+
+  private final ApplicationConfig.Staging conf;
+  private final Path inbox;
+  private final Path staging;
+  private final List<Path> buckets = new ArrayList<>();
+  private final MeterRegistry meterRegistry;
+  private final AtomicLong backlog = new AtomicLong();
+  private final AtomicLong staged = new AtomicLong();
+
+  private Timer scanTimer;
+  private ScheduledExecutorService executor;
+
+  // Cursor over the inbox, only used by the feeder thread
+  private DirectoryStream<Path> stream;
+  private Iterator<Path> cursor;
+  private long seen;
+
+  public InboxStagingFeeder(ApplicationConfig applicationConfig, MeterRegistry meterRegistry) {
+    this.conf = applicationConfig.getRouting().getFile().getInput().getStaging();
+    this.inbox = Path.of(applicationConfig.getFileInputPath());
+    this.staging = Path.of(applicationConfig.getFileConsumerPath());
+    this.meterRegistry = meterRegistry;
+  }
+
+  @PostConstruct
+  void postConstruct() throws IOException {
+    if (!conf.getEnabled()) {
+      return;
+    }
+
+    // Created before the file consumer starts (and watches them)
+    Files.createDirectories(staging);
+    for (int i = 0; i < conf.getBuckets(); i++) {
+      buckets.add(Files.createDirectories(staging.resolve(bucketName(i))));
+    }
+
+    scanTimer =
+        Timer.builder("file.inbox.scan")
+            .description("Time to move a batch of inbox files to the staging directory")
+            .register(meterRegistry);
+    Gauge.builder("file.inbox.backlog", backlog, AtomicLong::get)
+        .description("Files seen in the inbox during the last complete walk")
+        .register(meterRegistry);
+    Gauge.builder("file.inbox.staged", staged, AtomicLong::get)
+        .description("Files waiting in the staging directory")
+        .register(meterRegistry);
+
+    executor =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("inbox-feeder").daemon().factory());
+    executor.scheduleWithFixedDelay(
+        this::feed, 0, conf.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+
+    log.info("📂 Staging files of {} into {} ({} buckets)", inbox, staging, conf.getBuckets());
+  }
+
+  @PreDestroy
+  void preDestroy() throws InterruptedException {
+    if (executor != null) {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+      closeCursor();
+    }
+  }
+
+  /**
+   * Move the next inbox files to the staging directory, up to its capacity (one
+   * cycle of the feeder)
+   */
+  public void feed() {
+    final Timer.Sample sample = Timer.start(meterRegistry);
+
+    try {
+      final long waiting = countStaged();
+      final long limit = Math.min(conf.getMaxFiles() - waiting, conf.getBatchSize());
+      long moved = 0;
+
+      while (moved < limit) {
+        final Path next = nextCandidate();
+        if (next == null) {
+          // End of the walk, next cycle starts a new one
+          break;
+        }
+        if (stage(next)) {
+          moved++;
+        }
+      }
+
+      staged.set(waiting + moved);
+    } catch (IOException | RuntimeException e) {
+      log.error("‼️ Staging of the files of {} failed", inbox, e);
+      closeCursor();
+    } finally {
+      sample.stop(scanTimer);
+    }
+  }
+
+  /**
+   * @return the next regular, non-hidden file of the inbox, or null at the end
+   *         of the walk
+   */
+  private Path nextCandidate() throws IOException {
+    if (cursor == null) {
+      stream = Files.newDirectoryStream(inbox);
+      cursor = stream.iterator();
+      seen = 0;
+    }
+
+    while (cursor.hasNext()) {
+      final Path path = cursor.next();
+      if (isHidden(path)) {
+        continue;
+      }
+
+      final BasicFileAttributes attributes;
+      try {
+        attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      } catch (NoSuchFileException e) {
+        // Taken in the meantime (e.g. by another node)
+        continue;
+      }
+
+      if (attributes.isRegularFile()) {
+        seen++;
+        if (isStable(path, attributes)) {
+          return path;
+        }
+      }
+    }
+
+    backlog.set(seen);
+    closeCursor();
+    return null;
+  }
+
+  /**
+   * A file is stable once not modified for 'minAge' (as the 'changed' read lock
+   * of the file consumer, which the move bypasses)
+   */
+  private boolean isStable(Path file, BasicFileAttributes attributes) {
+    final Instant modified = attributes.lastModifiedTime().toInstant();
+
+    if (modified.isAfter(Instant.now().minus(conf.getMinAge()))) {
+      log.debug("File {} modified less than {} ago, left in the inbox", file, conf.getMinAge());
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Atomic move of a file to the staging directory (or its bucket)
+   *
+   * @return false if the file was already taken (e.g. by another node)
+   */
+  private boolean stage(Path file) throws IOException {
+    final Path target = targetDirectory(file.getFileName().toString()).resolve(file.getFileName());
+
+    // An atomic move (rename) silently replaces an existing target
+    if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+      log.warn("⚠️ File {} already staged, keeping it in the inbox", file.getFileName());
+      return false;
+    }
+
+    try {
+      Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+      return true;
+    } catch (NoSuchFileException e) {
+      log.debug("File {} already taken", file);
+      return false;
+    } catch (FileAlreadyExistsException e) {
+      // Same name still waiting in the staging directory (non-POSIX file systems), retried on
+      // the next walk
+      log.warn("⚠️ File {} already staged, keeping it in the inbox", file.getFileName());
+      return false;
+    }
+  }
+
+  private Path targetDirectory(String fileName) {
+    if (buckets.isEmpty()) {
+      return staging;
+    }
+    return buckets.get(Math.floorMod(fileName.hashCode(), buckets.size()));
+  }
+
+  private long countStaged() throws IOException {
+    long count = 0;
+    for (Path directory : buckets.isEmpty() ? List.of(staging) : buckets) {
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+        for (Path path : files) {
+          if (!isHidden(path)) {
+            count++;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  private void closeCursor() {
+    if (stream != null) {
+      try {
+        stream.close();
+      } catch (IOException e) {
+        log.debug("Unable to close the walk of {}", inbox, e);
+      }
+    }
+    stream = null;
+    cursor = null;
+  }
+
+  private static boolean isHidden(Path path) {
+    return path.getFileName().toString().startsWith(".");
+  }
+
+  /**
+   * @return the name of the bucket directory of the given index
+   */
+  public static String bucketName(int index) {
+    return "%02x".formatted(index);
+  }
+
+  /**
+   * @return the index of the bucket directory of the given name, or -1 if it
+   *         is not a bucket directory
+   */
+  static int bucketIndex(String name) {
+    if (name == null || name.length() != 2) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(name, 16);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
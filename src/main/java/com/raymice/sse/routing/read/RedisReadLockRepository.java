@@ -0,0 +1,225 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.spi.IdempotentRepository;
+import org.apache.camel.support.service.ServiceSupport;
+import org.apache.commons.lang3.Validate;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Idempotent repository backing the shared read lock of the file consumer
+ * (one Redis key per file, shared by all the nodes).
+ * <ul>
+ * <li>Each key expires ('ttl'): Redis memory stays bounded, and a file
+ * dropped again with the same name is processed once the key expired.</li>
+ * <li>A lock is taken with a single 'SET key NX PX ttl' round trip.</li>
+ * <li>The keys owned by this node, and the ones rejected because another node
+ * owns them (for 'rejectedTtl'), are kept in a local near-cache, so that the
+ * next scans do not ask Redis again.</li>
+ * <li>Removals (read lock released on rollback) are queued and flushed in a
+ * single pipeline, a lock is only deleted if still owned by this node.</li>
+ * <li>Keys and values are plain strings (own template, whatever the
+ * serializers of the shared one), so that 'clear' can match the prefix with
+ * SCAN.</li>
+ * </ul>
+ */
+@Slf4j
+public class RedisReadLockRepository extends ServiceSupport implements IdempotentRepository {
+
+  private static final Duration FLUSH_INTERVAL = Duration.ofMillis(50);
+
+  // Only delete the locks still owned by this node (a lock may have expired and been taken since)
+  private static final byte[] RELEASE_SCRIPT =
+      "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0"
+          .getBytes(StandardCharsets.UTF_8);
+
+  private final StringRedisTemplate redisTemplate;
+  private final String prefix;
+  private final Duration ttl;
+  private final Duration rejectedTtl;
+  // Value of the locks owned by this node
+  private final String owner = UUID.randomUUID().toString();
+
+  // Key -> expiration (System.nanoTime), lock-free reads
+  private final Map<String, Long> owned = new ConcurrentHashMap<>();
+  private final Map<String, Long> rejected = new ConcurrentHashMap<>();
+  private final Queue<String> pendingRemovals = new ConcurrentLinkedQueue<>();
+
+  private ScheduledExecutorService flusher;
+
+  /**
+   * @param connectionFactory the Redis connection factory
+   * @param repositoryName    prefix of the keys in Redis
+   * @param ttl               lifetime of a lock
+   * @param rejectedTtl       time during which a lock owned by another node is
+   *                          not asked again
+   */
+  public RedisReadLockRepository(
+      @NotNull RedisConnectionFactory connectionFactory,
+      @NotBlank String repositoryName,
+      @NotNull Duration ttl,
+      @NotNull Duration rejectedTtl) {
+    Validate.notNull(connectionFactory, "ConnectionFactory must not be null");
+    Validate.notBlank(repositoryName, "RepositoryName must not be blank");
+    Validate.isTrue(ttl.isPositive(), "Ttl must be positive");
+    Validate.notNull(rejectedTtl, "RejectedTtl must not be null");
+
+    this.redisTemplate = new StringRedisTemplate(connectionFactory);
+    this.prefix = repositoryName + ":";
+    this.ttl = ttl;
+    this.rejectedTtl = rejectedTtl;
+  }
+
+  @Override
+  public boolean add(String key) {
+    final long now = System.nanoTime();
+
+    if (isValid(owned.get(key), now) || isValid(rejected.get(key), now)) {
+      return false;
+    }
+
+    final Boolean acquired = redisTemplate.opsForValue().setIfAbsent(redisKey(key), owner, ttl);
+
+    if (Boolean.TRUE.equals(acquired)) {
+      owned.put(key, now + ttl.toNanos());
+      return true;
+    }
+
+    if (rejectedTtl.isPositive()) {
+      rejected.put(key, now + rejectedTtl.toNanos());
+    }
+    return false;
+  }
+
+  @Override
+  public boolean contains(String key) {
+    final long now = System.nanoTime();
+
+    if (isValid(owned.get(key), now)) {
+      return true;
+    }
+    return Boolean.TRUE.equals(redisTemplate.hasKey(redisKey(key)));
+  }
+
+  @Override
+  public boolean remove(String key) {
+    final boolean wasOwned = owned.remove(key) != null;
+    rejected.remove(key);
+
+    // Until the flush, the key is still seen as locked by the other nodes (safe)
+    pendingRemovals.add(key);
+    return wasOwned;
+  }
+
+  @Override
+  public boolean confirm(String key) {
+    // Keys are effective when added, they expire on their own
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    owned.clear();
+    rejected.clear();
+    pendingRemovals.clear();
+
+    final List<String> keys = new ArrayList<>();
+    try (var cursor =
+        redisTemplate.scan(ScanOptions.scanOptions().match(prefix + "*").count(1000).build())) {
+      cursor.forEachRemaining(keys::add);
+    }
+    if (!keys.isEmpty()) {
+      redisTemplate.delete(keys);
+    }
+  }
+
+  @Override
+  protected void doStart() {
+    flusher =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("read-lock-flush").daemon().factory());
+    flusher.scheduleWithFixedDelay(
+        this::flush, FLUSH_INTERVAL.toMillis(), FLUSH_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  protected void doStop() throws InterruptedException {
+    if (flusher != null) {
+      flusher.shutdown();
+      flusher.awaitTermination(5, TimeUnit.SECONDS);
+      flusher = null;
+    }
+    // Release the remaining locks
+    flush();
+  }
+
+  /**
+   * Send the queued removals in a single pipeline and evict the expired
+   * entries of the near-cache
+   */
+  private void flush() {
+    try {
+      final List<byte[]> keys = new ArrayList<>();
+      for (String key = pendingRemovals.poll(); key != null; key = pendingRemovals.poll()) {
+        keys.add(serialize(redisKey(key)));
+      }
+
+      if (!keys.isEmpty()) {
+        redisTemplate.executePipelined(
+            (RedisCallback<Object>)
+                connection -> {
+                  releaseAll(connection, keys);
+                  return null;
+                });
+        log.debug("{} read locks released", keys.size());
+      }
+
+      final long now = System.nanoTime();
+      owned.values().removeIf(expiration -> !isValid(expiration, now));
+      rejected.values().removeIf(expiration -> !isValid(expiration, now));
+    } catch (RuntimeException e) {
+      log.error("‼️ Release of the read locks failed", e);
+    }
+  }
+
+  private void releaseAll(RedisConnection connection, List<byte[]> keys) {
+    final byte[] value = serialize(owner);
+    for (byte[] key : keys) {
+      connection.scriptingCommands().eval(RELEASE_SCRIPT, ReturnType.INTEGER, 1, key, value);
+    }
+  }
+
+  private static byte[] serialize(String value) {
+    // Same serialization as the template operations
+    return RedisSerializer.string().serialize(value);
+  }
+
+  private String redisKey(String key) {
+    return prefix + key;
+  }
+
+  private static boolean isValid(Long expiration, long now) {
+    return expiration != null && expiration - now > 0;
+  }
+}
@@ -0,0 +1,61 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import java.io.File;
+import java.util.Map;
+import org.apache.camel.Processor;
+import org.apache.camel.component.file.FileComponent;
+import org.apache.camel.component.file.FileConsumer;
+import org.apache.camel.component.file.FileEndpoint;
+import org.apache.camel.component.file.GenericFileConfiguration;
+import org.apache.camel.component.file.GenericFileEndpoint;
+import org.apache.camel.component.file.GenericFileOperations;
+import org.apache.camel.util.FileUtil;
+import org.springframework.stereotype.Component;
+
+/**
+ * File component of the event-driven discovery ('watchfile:' endpoints,
+ * 'spring.camel.fileProcessor.discovery=WATCH').
+ * <p>
+ * Same options as the 'file:' component, its consumers only examine the files
+ * notified to their {@link FileWatchScheduler} (see
+ * {@link WatchFileConsumer}).
+ * </p>
+ */
+@Component(WatchFileComponent.SCHEME)
+public class WatchFileComponent extends FileComponent {
+
+  public static final String SCHEME = "watchfile";
+
+  @Override
+  protected GenericFileEndpoint<File> buildFileEndpoint(
+      String uri, String remaining, Map<String, Object> parameters) throws Exception {
+    final File file = new File(remaining);
+
+    final FileEndpoint endpoint = new WatchFileEndpoint(uri, this);
+    endpoint.setFile(file);
+
+    final GenericFileConfiguration configuration = new GenericFileConfiguration();
+    configuration.setDirectory(FileUtil.isAbsolute(file) ? file.getAbsolutePath() : file.getPath());
+    endpoint.setConfiguration(configuration);
+
+    return endpoint;
+  }
+
+  private static class WatchFileEndpoint extends FileEndpoint {
+
+    WatchFileEndpoint(String uri, FileComponent component) {
+      super(uri, component);
+    }
+
+    @Override
+    protected FileConsumer newFileConsumer(
+        Processor processor, GenericFileOperations<File> operations) {
+      return new WatchFileConsumer(
+          this,
+          processor,
+          operations,
+          getProcessStrategy() != null ? getProcessStrategy() : createGenericFileStrategy());
+    }
+  }
+}
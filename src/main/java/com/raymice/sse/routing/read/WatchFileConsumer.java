@@ -0,0 +1,124 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.read;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.component.file.FileConsumer;
+import org.apache.camel.component.file.FileEndpoint;
+import org.apache.camel.component.file.GenericFile;
+import org.apache.camel.component.file.GenericFileOperations;
+import org.apache.camel.component.file.GenericFileProcessStrategy;
+
+/**
+ * File consumer examining only the files notified to its
+ * {@link FileWatchScheduler}, instead of listing the whole directory on each
+ * poll.
+ * <p>
+ * The notified files go through the same checks as the listed ones (depth,
+ * hidden files, filters, in-progress and idempotent repositories). The
+ * directory is listed as usual by the reconciliation polls, or when the
+ * consumer is not scheduled by a {@link FileWatchScheduler}.
+ * </p>
+ */
+public class WatchFileConsumer extends FileConsumer {
+
+  private static final File[] NO_SIBLINGS = new File[0];
+
+  public WatchFileConsumer(
+      FileEndpoint endpoint,
+      Processor processor,
+      GenericFileOperations<File> operations,
+      GenericFileProcessStrategy<File> processStrategy) {
+    super(endpoint, processor, operations, processStrategy);
+  }
+
+  @Override
+  protected boolean pollDirectory(
+      Exchange dynamic, String fileName, List<GenericFile<File>> fileList, int depth) {
+
+    final Collection<Path> changed =
+        getScheduler() instanceof FileWatchScheduler scheduler
+                // Done files are looked up among the siblings of the listing
+                && getEndpoint().getDoneFileName() == null
+            ? scheduler.takeChangedFiles()
+            : null;
+
+    if (changed == null) {
+      return super.pollDirectory(dynamic, fileName, fileList, depth);
+    }
+
+    final FileWatchScheduler scheduler = (FileWatchScheduler) getScheduler();
+    final Path root = Path.of(fileName).toAbsolutePath().normalize();
+    final Deque<Path> pending = new ArrayDeque<>(changed);
+
+    while (!pending.isEmpty()) {
+      if (!canPollMoreFiles(fileList)) {
+        // Limit of files per poll reached, the other ones go with the next poll
+        scheduler.requeue(pending);
+        return false;
+      }
+
+      final Path path = pending.poll().toAbsolutePath().normalize();
+      if (!path.startsWith(root) || !Files.isRegularFile(path)) {
+        continue;
+      }
+
+      final Path relative = root.relativize(path);
+      if (!isInDepth(relative) || isInHiddenDirectory(relative)) {
+        continue;
+      }
+
+      // Same path form as the listing (relative to the configured directory)
+      final File file = new File(fileName, relative.toString());
+      final GenericFile<File> genericFile =
+          asGenericFile(
+              getEndpoint().getConfiguration().getDirectory(),
+              file,
+              getEndpoint().getCharset(),
+              getEndpoint().isProbeContentType());
+      final Supplier<GenericFile<File>> supplier = () -> genericFile;
+
+      if (isValidFile(
+          dynamic,
+          supplier,
+          file.getName(),
+          file.getAbsolutePath(),
+          getRelativeFilePath(getEndpoint().getConfiguration().getDirectory(), null, null, file),
+          false,
+          NO_SIBLINGS)) {
+        fileList.add(genericFile);
+      }
+    }
+
+    return true;
+  }
+
+  private boolean isInDepth(Path relative) {
+    // A file of the directory itself has a depth of 1
+    final int fileDepth = relative.getNameCount();
+    return fileDepth >= getEndpoint().getMinDepth()
+        && fileDepth <= getEndpoint().getMaxDepth()
+        && (fileDepth == 1 || getEndpoint().isRecursive());
+  }
+
+  private boolean isInHiddenDirectory(Path relative) {
+    if (getEndpoint().isIncludeHiddenDirs()) {
+      return false;
+    }
+
+    for (int i = 0; i < relative.getNameCount() - 1; i++) {
+      if (relative.getName(i).toString().startsWith(".")) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,245 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.scaling;
+
+import com.raymice.sse.configuration.ActiveMQConfig;
+import com.raymice.sse.routing.DefaultRoute;
+import com.raymice.sse.utils.ActiveMqUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Route;
+import org.apache.camel.component.jms.JmsConsumer;
+import org.apache.camel.spi.InflightRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scaling of the consumers of the ActiveMQ routes
+ * ('spring.data.activemq.autoscaling').
+ * <p>
+ * Periodically, for each route consuming a queue, the number of consumers of
+ * its listener container is adjusted between 'concurrentConsumers' and
+ * 'maxConcurrentConsumers' (see
+ * {@link ActiveMqUtils#getTargetConsumers(int, long, int, int, boolean)}).
+ * Both bounds of the container are set to the target: it does not add
+ * consumers by itself in between (see {@link DefaultRoute#getInputQueueUri}).
+ * </p>
+ * <ul>
+ * <li>The demand is the messages in flight plus the depth of the queue (see
+ * {@link QueueStatisticsProbe}) divided by 'backlogPerConsumer'. Without the
+ * depth, one more consumer is requested while all of them are busy.</li>
+ * <li>A route whose oldest message in flight exceeds 'maxLatency' is
+ * saturated downstream (database, next queue): it is not scaled up.</li>
+ * </ul>
+ * <p>
+ * Metrics, per route: 'jms.consumers.target' (consumers set),
+ * 'jms.consumers.scheduled' (consumers running, until the extra ones stop),
+ * 'jms.consumers.active' (consumers receiving), 'jms.queue.depth' (-1 when
+ * unknown) and 'jms.consumers.scaling' (decisions, tagged by direction).
+ * </p>
+ */
+@Slf4j
+@Component
+public class ConsumerAutoscaler {
+
+  private final ActiveMQConfig activeMQConfig;
+  private final ActiveMQConfig.Autoscaling conf;
+  private final CamelContext camelContext;
+  private final QueueStatisticsProbe queueStatisticsProbe;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, ScaledRoute> routes = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService executor;
+
+  public ConsumerAutoscaler(
+      ActiveMQConfig activeMQConfig,
+      CamelContext camelContext,
+      QueueStatisticsProbe queueStatisticsProbe,
+      MeterRegistry meterRegistry) {
+    this.activeMQConfig = activeMQConfig;
+    this.conf = activeMQConfig.getAutoscaling();
+    this.camelContext = camelContext;
+    this.queueStatisticsProbe = queueStatisticsProbe;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Starts scaling once the routes (and their listener containers) are started
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  void start() {
+    if (!conf.getEnabled()) {
+      return;
+    }
+
+    if (activeMQConfig.getBatch().getEnabled()) {
+      // The batch loops are not listener containers
+      throw new IllegalStateException(
+          "Autoscaling is not supported with the batch consumption of the queues");
+    }
+
+    if (activeMQConfig.getMaxConcurrentConsumers() <= activeMQConfig.getConcurrentConsumers()) {
+      throw new IllegalStateException(
+          "Autoscaling requires maxConcurrentConsumers (%d) greater than concurrentConsumers (%d)"
+              .formatted(
+                  activeMQConfig.getMaxConcurrentConsumers(),
+                  activeMQConfig.getConcurrentConsumers()));
+    }
+
+    // Oldest message in flight of each route
+    camelContext.getInflightRepository().setInflightBrowseEnabled(true);
+
+    executor =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("consumer-autoscaler").daemon().factory());
+    executor.scheduleWithFixedDelay(
+        this::scale,
+        conf.getInterval().toMillis(),
+        conf.getInterval().toMillis(),
+        TimeUnit.MILLISECONDS);
+
+    log.info(
+        "📊 Autoscaling the consumers of the queues between {} and {} (every {})",
+        activeMQConfig.getConcurrentConsumers(),
+        activeMQConfig.getMaxConcurrentConsumers(),
+        conf.getInterval());
+  }
+
+  @PreDestroy
+  void preDestroy() throws InterruptedException {
+    if (executor != null) {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Adjust the consumers of every route consuming a queue
+   */
+  void scale() {
+    for (Route route : camelContext.getRoutes()) {
+      if (!(route.getConsumer() instanceof JmsConsumer consumer)) {
+        continue;
+      }
+
+      try {
+        if (consumer.getListenerContainer() instanceof DefaultMessageListenerContainer container
+            && container.isRunning()) {
+          scale(route.getRouteId(), consumer.getEndpoint().getDestinationName(), container);
+        }
+      } catch (Exception e) {
+        log.error("‼️ Scaling of the consumers of route '{}' failed", route.getRouteId(), e);
+      }
+    }
+  }
+
+  private void scale(String routeId, String queueName, DefaultMessageListenerContainer container) {
+    final ScaledRoute scaled = routes.computeIfAbsent(routeId, _ -> register(routeId, container));
+    final InflightRepository inflightRepository = camelContext.getInflightRepository();
+
+    final int current = container.getConcurrentConsumers();
+    final int inflight = inflightRepository.size(routeId);
+    final OptionalLong depth = queueStatisticsProbe.getDepth(queueName);
+    scaled.depth().set(depth.orElse(-1));
+
+    final long demand =
+        depth.isPresent()
+            ? inflight + ceilDiv(depth.getAsLong(), conf.getBacklogPerConsumer())
+            : (inflight >= current ? current + 1 : inflight);
+
+    final InflightRepository.InflightExchange oldest = inflightRepository.oldest(routeId);
+    final boolean saturated =
+        oldest != null
+            && Duration.ofMillis(oldest.getDuration()).compareTo(conf.getMaxLatency()) > 0;
+
+    final int target =
+        ActiveMqUtils.getTargetConsumers(
+            current,
+            demand,
+            activeMQConfig.getConcurrentConsumers(),
+            activeMQConfig.getMaxConcurrentConsumers(),
+            saturated);
+
+    if (target == current) {
+      if (saturated && demand > current) {
+        log.debug("Route '{}' saturated, not scaled up ({} consumers)", routeId, current);
+      }
+      return;
+    }
+
+    // Extra consumers are stopped by the container once idle
+    container.setConcurrentConsumers(target);
+    container.setMaxConcurrentConsumers(target);
+    (target > current ? scaled.up() : scaled.down()).increment();
+
+    log.info(
+        "📊 Consumers of route '{}' scaled from {} to {} (in flight={}, depth={})",
+        routeId,
+        current,
+        target,
+        inflight,
+        depth.isPresent() ? depth.getAsLong() : "unknown");
+  }
+
+  private ScaledRoute register(String routeId, DefaultMessageListenerContainer container) {
+    final AtomicLong depth = new AtomicLong(-1);
+
+    Gauge.builder(
+            "jms.consumers.target",
+            container,
+            DefaultMessageListenerContainer::getConcurrentConsumers)
+        .description("Consumers set by the autoscaling")
+        .tag("route", routeId)
+        .register(meterRegistry);
+    Gauge.builder(
+            "jms.consumers.scheduled",
+            container,
+            DefaultMessageListenerContainer::getScheduledConsumerCount)
+        .description("Consumers currently running")
+        .tag("route", routeId)
+        .register(meterRegistry);
+    Gauge.builder(
+            "jms.consumers.active",
+            container,
+            DefaultMessageListenerContainer::getActiveConsumerCount)
+        .description("Consumers currently receiving")
+        .tag("route", routeId)
+        .register(meterRegistry);
+    Gauge.builder("jms.queue.depth", depth, AtomicLong::get)
+        .description("Messages waiting in the queue (-1 when unknown)")
+        .tag("route", routeId)
+        .register(meterRegistry);
+
+    return new ScaledRoute(depth, scalingCounter(routeId, "up"), scalingCounter(routeId, "down"));
+  }
+
+  private Counter scalingCounter(String routeId, String direction) {
+    return Counter.builder("jms.consumers.scaling")
+        .description("Scaling decisions of the consumers")
+        .tag("route", routeId)
+        .tag("direction", direction)
+        .register(meterRegistry);
+  }
+
+  private static long ceilDiv(long value, int divisor) {
+    return (value + divisor - 1) / divisor;
+  }
+
+  /**
+   * Meters of a scaled route
+   */
+  private record ScaledRoute(AtomicLong depth, Counter up, Counter down) {}
+}
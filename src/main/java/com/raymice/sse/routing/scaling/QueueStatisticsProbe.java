@@ -0,0 +1,87 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.scaling;
+
+import com.raymice.sse.configuration.ActiveMQConfig;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+import jakarta.jms.Message;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Depth of the queues, read from the statistics of the broker.
+ * <p>
+ * The 'statisticsBrokerPlugin' of ActiveMQ answers a request sent to
+ * 'ActiveMQ.Statistics.Destination.&lt;queue&gt;' with the statistics of the
+ * queue, on the temporary queue of the request. Without the plugin, no answer
+ * comes and the depth is unknown: the broker is not asked again for
+ * 'statisticsRetry', instead of waiting 'statisticsTimeout' for every queue on
+ * every scaling decision.
+ * </p>
+ */
+@Slf4j
+@Component
+public class QueueStatisticsProbe {
+
+  private static final String STATISTICS_DESTINATION_PREFIX = "ActiveMQ.Statistics.Destination.";
+  private static final String SIZE = "size";
+
+  private final JmsTemplate jmsTemplate;
+  private final Duration retry;
+  private final AtomicBoolean unavailableLogged = new AtomicBoolean();
+
+  // Statistics not requested before this instant (no answer from the broker)
+  private volatile Instant unavailableUntil = Instant.MIN;
+
+  public QueueStatisticsProbe(ConnectionFactory connectionFactory, ActiveMQConfig activeMQConfig) {
+    final long timeout = activeMQConfig.getAutoscaling().getStatisticsTimeout().toMillis();
+    this.retry = activeMQConfig.getAutoscaling().getStatisticsRetry();
+
+    this.jmsTemplate = new JmsTemplate(connectionFactory);
+    this.jmsTemplate.setReceiveTimeout(timeout);
+    // Requests never answered (no plugin) expire instead of piling up in the broker
+    this.jmsTemplate.setExplicitQosEnabled(true);
+    this.jmsTemplate.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+    this.jmsTemplate.setTimeToLive(timeout);
+  }
+
+  /**
+   * @param queueName the name of the queue
+   * @return the number of messages waiting in the queue, or empty if the
+   *         statistics are not available
+   */
+  public OptionalLong getDepth(String queueName) {
+    if (Instant.now().isBefore(unavailableUntil)) {
+      return OptionalLong.empty();
+    }
+
+    try {
+      final Message reply =
+          jmsTemplate.sendAndReceive(
+              STATISTICS_DESTINATION_PREFIX + queueName, session -> session.createMessage());
+
+      if (reply instanceof MapMessage statistics && statistics.itemExists(SIZE)) {
+        return OptionalLong.of(statistics.getLong(SIZE));
+      }
+
+      unavailableUntil = Instant.now().plus(retry);
+      if (unavailableLogged.compareAndSet(false, true)) {
+        log.warn(
+            "⚠️ No statistics for queue '{}', is the statisticsBrokerPlugin enabled on the"
+                + " broker? Scaling on the messages in flight only",
+            queueName);
+      }
+    } catch (JmsException | JMSException e) {
+      log.debug("Unable to read the statistics of queue '{}'", queueName, e);
+    }
+    return OptionalLong.empty();
+  }
+}
@@ -0,0 +1,89 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.routing.validate;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.utils.XmlUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.constraints.NotBlank;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.xml.validation.Schema;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.Validate;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.xml.sax.SAXException;
+
+/**
+ * Registry of compiled XSD schemas, one per MX id.
+ * <p>
+ * Each schema is compiled once and shared by all the consumer threads
+ * (javax.xml.validation.Schema is immutable and thread-safe). The MX ids
+ * listed in 'app.validation.schema.precompile' are compiled at startup.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MxSchemaRegistry {
+
+  private final ApplicationConfig applicationConfig;
+  private final ResourceLoader resourceLoader;
+
+  // Empty value when no XSD is available for the MX id
+  private final ConcurrentMap<String, Optional<Schema>> schemas = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  void precompile() {
+    final ApplicationConfig.Schema conf = applicationConfig.getValidation().getSchema();
+
+    if (!conf.getEnabled()) {
+      log.warn("⚠️ XSD validation of the MX messages is disabled (app.validation.schema.enabled)");
+      return;
+    }
+
+    conf.getPrecompile().forEach(this::getSchema);
+  }
+
+  /**
+   * Get the compiled schema of the given MX id (compiled on first call).
+   *
+   * @param mxId the MX id (e.g. pacs.008.001.08)
+   * @return the compiled Schema, or empty if no XSD is available
+   * @throws IllegalStateException if the XSD exists but cannot be compiled
+   */
+  public Optional<Schema> getSchema(@NotBlank String mxId) {
+    Validate.notBlank(mxId, "MxId must not be blank");
+    return schemas.computeIfAbsent(mxId, this::compile);
+  }
+
+  private Optional<Schema> compile(String mxId) {
+    final String location =
+        applicationConfig.getValidation().getSchema().getLocation().formatted(mxId);
+    final Resource resource = resourceLoader.getResource(location);
+
+    if (!resource.exists()) {
+      log.warn("⚠️ No XSD found for {} (location={})", mxId, location);
+      return Optional.empty();
+    }
+
+    try {
+      final long start = System.nanoTime();
+      final Schema schema = XmlUtils.compileSchema(resource.getURL());
+      log.info(
+          "📐 XSD of {} compiled in {} ms (location={})",
+          mxId,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+          location);
+      return Optional.of(schema);
+    } catch (SAXException | IOException e) {
+      throw new IllegalStateException(
+          "Unable to compile XSD of %s (location=%s)".formatted(mxId, location), e);
+    }
+  }
+}
@@ -8,7 +8,6 @@ import com.raymice.sse.constant.Header;
 import com.raymice.sse.db.entity.ProcessEntity;
 import com.raymice.sse.processor.UpdateStatusProcessor;
 import com.raymice.sse.routing.DefaultRoute;
-import com.raymice.sse.utils.ActiveMqUtils;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -23,12 +22,9 @@ public class ValidationRoute extends DefaultRoute {
   @Override
   public void configure() {
     final ApplicationConfig.Routing routing = getApplicationConfig().getRouting();
-    final var concurrentConsumers = getActiveMQConfig().getConcurrentConsumers();
 
-    final String inputQueueUri =
-        ActiveMqUtils.getQueueUri(routing.getQueue().getValidator(), concurrentConsumers);
-    final String outputQueueUri =
-        ActiveMqUtils.getQueueUri(routing.getQueue().getPacs008(), concurrentConsumers);
+    final String inputQueueUri = getInputQueueUri(routing.getQueue().getValidator());
+    final String outputQueueUri = getOutputQueueUri(routing.getQueue().getPacs008());
 
     // Call the parent method to apply the shared error handling
     setupCommonExceptionHandling();
@@ -37,11 +33,14 @@ public class ValidationRoute extends DefaultRoute {
     // route accordingly
     from(inputQueueUri)
         .routeId(getRouteId())
+        .process(getClaimCheckService()::checkOut)
         .process(validationRouteService::parseAndValidate)
         .choice()
         .when(header(Header.CUSTOM_HEADER_MX_ID).isEqualTo(PACS_008_001_08))
+        .process(validationRouteService::validateSchema)
         .process(validationRouteService::logProcessor)
         .process(new UpdateStatusProcessor(getProcessService(), ProcessEntity.Status.VALIDATED))
+        .process(getClaimCheckService()::checkIn)
         .to(outputQueueUri) // Forward to next queue
         .otherwise()
         .process(validationRouteService::unsupportedProcessor)
@@ -4,22 +4,27 @@ package com.raymice.sse.routing.validate;
 import static com.raymice.sse.utils.CamelUtils.getMxId;
 import static com.raymice.sse.utils.CamelUtils.getQueueName;
 import static com.raymice.sse.utils.CamelUtils.setMxId;
-import static com.raymice.sse.utils.XmlUtils.isXMLWellFormed;
 
 import com.prowidesoftware.swift.model.MxId;
-import com.prowidesoftware.swift.model.mx.MxParseUtils;
+import com.raymice.sse.configuration.ApplicationConfig;
 import com.raymice.sse.configuration.mdc.annotation.ExchangeMDC;
 import com.raymice.sse.configuration.opentelemetry.annotation.ExchangeSpan;
 import com.raymice.sse.exception.MalformedXmlException;
+import com.raymice.sse.exception.SchemaValidationException;
 import com.raymice.sse.exception.UnsupportedException;
 import com.raymice.sse.tracing.CustomSpan;
+import com.raymice.sse.utils.MxUtils;
+import com.raymice.sse.utils.MxUtils.MxMetadata;
 import com.raymice.sse.utils.StringUtils;
+import com.raymice.sse.utils.XmlUtils;
 import io.micrometer.tracing.Tracer;
 import java.util.Optional;
+import javax.xml.validation.Schema;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.Exchange;
 import org.springframework.stereotype.Service;
+import org.xml.sax.SAXException;
 
 @Slf4j
 @Service
@@ -27,6 +32,8 @@ import org.springframework.stereotype.Service;
 public class ValidationRouteService {
 
   private final Tracer tracer;
+  private final ApplicationConfig applicationConfig;
+  private final MxSchemaRegistry mxSchemaRegistry;
 
   @ExchangeMDC
   @ExchangeSpan(name = "parse-and-validate")
@@ -38,22 +45,51 @@ public class ValidationRouteService {
 
     String xml = exchange.getIn().getBody(String.class);
 
-    // Validate XML well-formed
-    boolean isXMLWellFormed;
-    try (CustomSpan _ = new CustomSpan(tracer, "xml-formed", exchange)) {
-      isXMLWellFormed = isXMLWellFormed(xml);
+    // Validate XML well-formed and detect message type (MX) in a single pass
+    final MxMetadata metadata;
+    try (CustomSpan _ = new CustomSpan(tracer, "xml-mx-parse", exchange)) {
+      metadata = MxUtils.parse(xml).orElseThrow(MalformedXmlException::new);
     }
 
-    if (!isXMLWellFormed) {
-      throw new MalformedXmlException();
+    // Set MX_ID header
+    final String mxId = metadata.mxId().map(MxId::id).orElse(null);
+    setMxId(exchange, StringUtils.unknownIfBlank(mxId));
+  }
+
+  /**
+   * Validates the message against the XSD of its MX id (X_MX_ID header).
+   * Skipped when no XSD is available, unless
+   * 'app.validation.schema.failOnMissing' is set.
+   */
+  @ExchangeMDC
+  @ExchangeSpan(name = "xsd-validate")
+  public void validateSchema(Exchange exchange) throws Exception {
+    final ApplicationConfig.Schema conf = applicationConfig.getValidation().getSchema();
+
+    if (!conf.getEnabled()) {
+      return;
+    }
+
+    final String mxId = getMxId(exchange);
+    final Optional<Schema> schema = mxSchemaRegistry.getSchema(mxId);
+
+    if (schema.isEmpty()) {
+      if (conf.getFailOnMissing()) {
+        throw new SchemaValidationException(String.format("No XSD available for type='%s'", mxId));
+      }
+      return;
     }
 
-    // Check message type (MX)
-    try (CustomSpan _ = new CustomSpan(tracer, "mx-parse", exchange)) {
-      MxId id = extractMxId(xml);
-      // Set MX_ID header
-      setMxId(exchange, StringUtils.unknownIfBlank(id.id()));
+    try {
+      // Messages split from an envelope may be wrapped with their header (see EnvelopeUtils)
+      XmlUtils.validate(
+          schema.get(), exchange.getIn().getBody(String.class), MxUtils.DOCUMENT_ELEMENT);
+    } catch (SAXException e) {
+      throw new SchemaValidationException(
+          String.format("Message does not comply with XSD of type='%s': %s", mxId, e.getMessage()));
     }
+
+    log.debug("📐 Message complies with XSD of {}", mxId);
   }
 
   @ExchangeMDC
@@ -67,31 +103,4 @@ public class ValidationRouteService {
     final String mxID = getMxId(exchange);
     throw new UnsupportedException(String.format("Message is not a supported type='%s'", mxID));
   }
-
-  /**
-   * Extracts the MX ID from the given XML string.
-   *
-   * <p>
-   * This method parses the XML document to identify the message type and version
-   * according to the ISO 20022 standard. It uses the MxParseUtils utility class
-   * to detect the message identifier which typically follows the pattern
-   * "pacs.002.001.10" in the XML namespace declaration.
-   * </p>
-   *
-   * <p>
-   * Example XML structure being parsed:
-   *
-   * <pre>{@code
-   * <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.002.001.10">
-   * }</pre>
-   * </p>
-   *
-   * @param xml the XML string to parse for the MX ID
-   * @return the detected MxId object, or null if no identifier could be
-   *         determined
-   */
-  private MxId extractMxId(String xml) {
-    Optional<MxId> detectedIdentifier = MxParseUtils.identifyMessage(xml);
-    return detectedIdentifier.orElse(null);
-  }
 }
@@ -17,6 +17,22 @@ public class ActiveMqUtils {
    * @return the constructed queue URI
    */
   public static String getQueueUri(@NotBlank String queueName, int concurrentConsumers) {
+    return getQueueUri(queueName, concurrentConsumers, 0);
+  }
+
+  /**
+   * Constructs the ActiveMQ queue URI of a consumer whose number of consumers
+   * can grow up to a maximum, by the listener container on load (no maximum
+   * when autoscaled, see ConsumerAutoscaler).
+   *
+   * @param queueName              the name of the queue
+   * @param concurrentConsumers    the initial (and minimum) number of consumers
+   * @param maxConcurrentConsumers the maximum number of consumers, ignored if
+   *                               not greater than concurrentConsumers
+   * @return the constructed queue URI
+   */
+  public static String getQueueUri(
+      @NotBlank String queueName, int concurrentConsumers, int maxConcurrentConsumers) {
 
     Validate.notBlank(queueName, "Queue name must not be blank");
 
@@ -28,6 +44,38 @@ public class ActiveMqUtils {
       builder = builder.queryParam("concurrentConsumers", concurrentConsumers);
     }
 
+    if (maxConcurrentConsumers > Math.max(concurrentConsumers, 1)) {
+      builder = builder.queryParam("maxConcurrentConsumers", maxConcurrentConsumers);
+    }
+
     return builder.build().toUriString();
   }
+
+  /**
+   * Computes the number of consumers of a queue for the next period.
+   * <p>
+   * The consumers follow the demand within the bounds, but are not added while
+   * the route is saturated (more consumers would only add load downstream),
+   * and are removed one at a time to absorb the next burst.
+   * </p>
+   *
+   * @param current   the current number of consumers
+   * @param demand    the number of consumers needed by the load
+   * @param min       the minimum number of consumers
+   * @param max       the maximum number of consumers
+   * @param saturated true if the messages in flight are too slow
+   * @return the number of consumers, within the bounds
+   */
+  public static int getTargetConsumers(
+      int current, long demand, int min, int max, boolean saturated) {
+    Validate.isTrue(min > 0 && min <= max, "Invalid bounds of consumers: [%d, %d]", min, max);
+
+    int target = Math.clamp(demand, min, max);
+    if (target > current && saturated) {
+      target = current;
+    } else if (target < current) {
+      target = current - 1;
+    }
+    return Math.clamp(target, min, max);
+  }
 }
@@ -0,0 +1,96 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.utils;
+
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.NotBlank;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Utility class for the archives of messages.
+ */
+public class ArchiveUtils {
+
+  /**
+   * Supported archive formats, recognized by their extension.
+   */
+  public enum Format {
+    // Compound extensions first
+    TAR_GZIP(".tar.gz", ".tgz"),
+    ZIP(".zip"),
+    TAR(".tar"),
+    GZIP(".gz");
+
+    private final List<String> extensions;
+
+    Format(String... extensions) {
+      this.extensions = List.of(extensions);
+    }
+  }
+
+  /**
+   * Get the archive format of a file from its name.
+   *
+   * @param fileName the file name
+   * @return the archive format, empty if the file is not an archive
+   */
+  public static Optional<Format> getFormat(@Nullable String fileName) {
+    if (StringUtils.isBlank(fileName)) {
+      return Optional.empty();
+    }
+
+    final String name = fileName.toLowerCase(Locale.ROOT);
+    for (Format format : Format.values()) {
+      if (format.extensions.stream().anyMatch(name::endsWith)) {
+        return Optional.of(format);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Get the name of the single entry of a compressed file (e.g. 'a.xml.gz'
+   * contains 'a.xml').
+   *
+   * @param fileName the name of the compressed file
+   * @return the file name without its compression extension
+   */
+  public static String getCompressedEntryName(@NotBlank String fileName) {
+    Validate.notBlank(fileName, "FileName must not be blank");
+
+    final int index = fileName.toLowerCase(Locale.ROOT).lastIndexOf(".gz");
+    return index > 0 ? fileName.substring(0, index) : fileName;
+  }
+
+  /**
+   * Get the file name of an archive entry, without its directories.
+   *
+   * @param entryName the entry name (e.g. 'batch/a.xml')
+   * @return the file name (e.g. 'a.xml')
+   */
+  public static String getEntryFileName(@NotBlank String entryName) {
+    Validate.notBlank(entryName, "EntryName must not be blank");
+
+    final String name = StringUtils.removeEnd(entryName.replace('\\', '/'), "/");
+    return name.substring(name.lastIndexOf('/') + 1);
+  }
+
+  /**
+   * Check if an archive entry must be skipped: hidden files and metadata
+   * directories (e.g. '__MACOSX/').
+   *
+   * @param entryName the entry name
+   * @return true if the entry is not a message
+   */
+  public static boolean isIgnored(@NotBlank String entryName) {
+    Validate.notBlank(entryName, "EntryName must not be blank");
+
+    final String normalized = entryName.replace('\\', '/');
+    return normalized.startsWith("__MACOSX/")
+        || normalized.contains("/__MACOSX/")
+        || getEntryFileName(normalized).startsWith(".");
+  }
+}
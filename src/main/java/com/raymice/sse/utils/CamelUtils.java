@@ -13,6 +13,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.io.BufferedInputStream;
 import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.zip.CRC32;
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
@@ -69,6 +70,32 @@ public class CamelUtils {
     setHeader(exchange, Header.CUSTOM_HEADER_PROCESS_ID, String.valueOf(processId));
   }
 
+  /**
+   * Get the creation date of the process (partition key of the process tables)
+   * from Camel Exchange header.
+   *
+   * @param exchange Camel Exchange
+   * @return creation date of the process, null if absent (message sent by a
+   *         previous version)
+   */
+  @Nullable
+  public static LocalDateTime getProcessCreatedAt(@NotNull Exchange exchange) {
+    final String createdAt = getHeader(exchange, Header.CUSTOM_HEADER_PROCESS_CREATED_AT);
+    return createdAt != null ? LocalDateTime.parse(createdAt) : null;
+  }
+
+  /**
+   * Set the creation date of the process in Camel Exchange header.
+   *
+   * @param exchange  Camel Exchange
+   * @param createdAt creation date of the process
+   */
+  public static void setProcessCreatedAt(
+      @NotNull Exchange exchange, @NotNull LocalDateTime createdAt) {
+    Validate.notNull(createdAt, "CreatedAt must not be null");
+    setHeader(exchange, Header.CUSTOM_HEADER_PROCESS_CREATED_AT, createdAt.toString());
+  }
+
   /**
    * Get original file name from Camel Exchange header.
    *
@@ -194,6 +221,64 @@ public class CamelUtils {
     setHeader(exchange, Header.CUSTOM_HEADER_STATUS, status.name());
   }
 
+  /**
+   * Check if the payload of the Camel Exchange has been checked in (claim
+   * check).
+   *
+   * @param exchange Camel Exchange
+   * @return true if the body only carries a reference to the process
+   */
+  public static boolean isClaimCheck(@NotNull Exchange exchange) {
+    return Boolean.parseBoolean(getHeader(exchange, Header.CUSTOM_HEADER_CLAIM_CHECK));
+  }
+
+  /**
+   * Set or remove the claim check flag in Camel Exchange header.
+   *
+   * @param exchange   Camel Exchange
+   * @param claimCheck true if the body only carries a reference to the process
+   */
+  public static void setClaimCheck(@NotNull Exchange exchange, boolean claimCheck) {
+    if (claimCheck) {
+      setHeader(exchange, Header.CUSTOM_HEADER_CLAIM_CHECK, Boolean.TRUE.toString());
+    } else {
+      exchange.getIn().removeHeader(Header.CUSTOM_HEADER_CLAIM_CHECK);
+    }
+  }
+
+  /**
+   * Get the received file kept for the output (zero copy) from Camel Exchange
+   * header.
+   *
+   * @param exchange Camel Exchange
+   * @return absolute path of the staged file, or null if none
+   */
+  public static String getStagedFile(@NotNull Exchange exchange) {
+    return getHeader(exchange, Header.CUSTOM_HEADER_STAGED_FILE);
+  }
+
+  /**
+   * Set the received file kept for the output (zero copy) in Camel Exchange
+   * header.
+   *
+   * @param exchange   Camel Exchange
+   * @param stagedFile absolute path of the staged file
+   */
+  public static void setStagedFile(@NotNull Exchange exchange, @NotBlank String stagedFile) {
+    setHeader(exchange, Header.CUSTOM_HEADER_STAGED_FILE, stagedFile);
+  }
+
+  /**
+   * Remove the staged file from Camel Exchange header. Must be called by the
+   * processors transforming the payload, so that the output writes the new
+   * content instead of moving the received file.
+   *
+   * @param exchange Camel Exchange
+   */
+  public static void removeStagedFile(@NotNull Exchange exchange) {
+    exchange.getIn().removeHeader(Header.CUSTOM_HEADER_STAGED_FILE);
+  }
+
   /**
    * Checks if the given header key and value represent a custom header.
    * A custom header is identified by:
@@ -0,0 +1,77 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.utils;
+
+import jakarta.validation.constraints.NotNull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Utility class for compression (Deflate, JDK codec).
+ */
+public class CompressionUtils {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * Compress the given bytes with Deflate.
+   *
+   * @param data the bytes to compress
+   * @return the compressed bytes
+   */
+  public static byte[] deflate(@NotNull byte[] data) {
+    Validate.notNull(data, "Data must not be null");
+
+    final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(data);
+      deflater.finish();
+
+      final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Decompress the given Deflate bytes.
+   *
+   * @param data the compressed bytes
+   * @return the original bytes
+   * @throws UncheckedIOException if the bytes are not valid Deflate data
+   */
+  public static byte[] inflate(@NotNull byte[] data) {
+    Validate.notNull(data, "Data must not be null");
+
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data);
+
+      final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      while (!inflater.finished()) {
+        final int length = inflater.inflate(buffer);
+        if (length == 0
+            && !inflater.finished()
+            && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IOException("Truncated Deflate data");
+        }
+        out.write(buffer, 0, length);
+      }
+      return out.toByteArray();
+    } catch (IOException | DataFormatException e) {
+      throw new UncheckedIOException(new IOException("Unable to inflate data", e));
+    } finally {
+      inflater.end();
+    }
+  }
+}
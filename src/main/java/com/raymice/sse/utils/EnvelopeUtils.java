@@ -0,0 +1,312 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.utils;
+
+import static com.raymice.sse.utils.MxUtils.APP_HDR_ELEMENT;
+import static com.raymice.sse.utils.MxUtils.DOCUMENT_ELEMENT;
+
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.NotNull;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Utility class for the envelopes of business messages: a single XML file
+ * wrapping many 'AppHdr'/'Document' pairs.
+ *
+ * <p>
+ * Example XML structure being split:
+ *
+ * <pre>{@code
+ * <BizMsgEnvlp>
+ *   <AppHdr xmlns="urn:iso:std:iso:20022:tech:xsd:head.001.001.02">...</AppHdr>
+ *   <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">...</Document>
+ *   <AppHdr xmlns="urn:iso:std:iso:20022:tech:xsd:head.001.001.02">...</AppHdr>
+ *   <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08">...</Document>
+ * </BizMsgEnvlp>
+ * }</pre>
+ * </p>
+ * <p>
+ * The envelope is pulled event by event with StAX: only the message being
+ * copied is held in memory, whatever the number of messages of the envelope.
+ * </p>
+ */
+@Slf4j
+public class EnvelopeUtils {
+
+  /**
+   * Root element of a message made of a header and a document
+   */
+  public static final String REQUEST_PAYLOAD_ELEMENT = "RequestPayload";
+
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+  /**
+   * Checks if the given XML stream is an envelope: its root is neither a
+   * 'Document' nor an 'AppHdr', and it holds more than one 'Document'.
+   * <p>
+   * Reading stops as soon as the answer is known: right after the root element
+   * for a single message.
+   * </p>
+   *
+   * @param in the XML stream to read (not closed)
+   * @return true if the stream is an envelope, false otherwise (including when
+   *         it is not well-formed)
+   */
+  public static boolean isEnvelope(@NotNull InputStream in) {
+    Validate.notNull(in, "InputStream must not be null");
+
+    XMLStreamReader reader = null;
+    try {
+      reader = XmlUtils.createXmlStreamReader(in);
+
+      if (!reader.hasNext() || reader.nextTag() != XMLStreamConstants.START_ELEMENT) {
+        return false;
+      }
+      final String root = reader.getLocalName();
+      if (DOCUMENT_ELEMENT.equals(root) || APP_HDR_ELEMENT.equals(root)) {
+        return false;
+      }
+
+      int documents = 0;
+      while (documents < 2 && XmlUtils.moveToElement(reader, DOCUMENT_ELEMENT)) {
+        documents++;
+      }
+      return documents == 2;
+    } catch (XMLStreamException e) {
+      log.debug("Unable to read XML envelope: {}", e.getMessage());
+      return false;
+    } finally {
+      XmlUtils.closeQuietly(reader);
+    }
+  }
+
+  /**
+   * Opens a splitter over the messages of the given envelope.
+   *
+   * @param in the XML stream of the envelope (closed with the splitter)
+   * @return the splitter, to be closed by the caller
+   * @throws XMLStreamException if the envelope cannot be read
+   */
+  public static Splitter split(@NotNull InputStream in) throws XMLStreamException {
+    Validate.notNull(in, "InputStream must not be null");
+    return new Splitter(in);
+  }
+
+  /**
+   * Name of a message split from an envelope, e.g. 'batch.xml' gives
+   * 'batch.1.xml' for the first message.
+   *
+   * @param envelopeFileName the name of the envelope file
+   * @param index            the index of the message in the envelope (from 1)
+   * @return the file name of the message
+   */
+  public static String getMessageFileName(@Nullable String envelopeFileName, int index) {
+    final String baseName = FilenameUtils.getBaseName(envelopeFileName);
+    return "%s.%d.xml".formatted(StringUtils.defaultIfBlank(baseName, "envelope"), index);
+  }
+
+  /**
+   * Splitter of an envelope, reading its messages one at a time.
+   * <p>
+   * Each 'Document' is a message. A preceding 'AppHdr' is kept with it: both
+   * are wrapped in a 'RequestPayload' element. The namespaces declared by the
+   * envelope are declared again on each message, so that it stands alone.
+   * </p>
+   */
+  public static class Splitter implements Closeable {
+
+    private final InputStream in;
+    private final XMLStreamReader reader;
+
+    // Namespace declarations of the open elements of the envelope (prefix -> URI)
+    private final Deque<Map<String, String>> scopes = new ArrayDeque<>();
+
+    // Message started by a header, waiting for its document
+    private Message pending;
+
+    Splitter(InputStream in) throws XMLStreamException {
+      this.in = in;
+      this.reader = XmlUtils.createXmlStreamReader(in);
+    }
+
+    /**
+     * Reads the next message of the envelope.
+     *
+     * @return the message (UTF-8), or null at the end of the envelope
+     * @throws XMLStreamException if the envelope is not well-formed
+     */
+    public byte[] next() throws XMLStreamException {
+      while (reader.hasNext()) {
+        final int event = reader.next();
+
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          final String localName = reader.getLocalName();
+
+          if (!scopes.isEmpty() && APP_HDR_ELEMENT.equals(localName)) {
+            // Header without document, kept as a message of its own
+            final Message previous = pending;
+            pending = new Message(true);
+            pending.copyElement();
+            if (previous != null) {
+              return previous.finish();
+            }
+          } else if (!scopes.isEmpty() && DOCUMENT_ELEMENT.equals(localName)) {
+            final Message message = pending != null ? pending : new Message(false);
+            pending = null;
+            message.copyElement();
+            return message.finish();
+          } else {
+            scopes.push(getNamespaces());
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          scopes.pop();
+        }
+      }
+
+      final Message last = pending;
+      pending = null;
+      return last != null ? last.finish() : null;
+    }
+
+    @Override
+    public void close() {
+      XmlUtils.closeQuietly(reader);
+      try {
+        in.close();
+      } catch (IOException e) {
+        log.debug("Unable to close XML envelope: {}", e.getMessage());
+      }
+    }
+
+    /**
+     * @return the namespace declarations of the current element
+     */
+    private Map<String, String> getNamespaces() {
+      final Map<String, String> namespaces = new HashMap<>();
+      for (int i = 0; i < reader.getNamespaceCount(); i++) {
+        namespaces.put(
+            StringUtils.defaultString(reader.getNamespacePrefix(i)),
+            StringUtils.defaultString(reader.getNamespaceURI(i)));
+      }
+      return namespaces;
+    }
+
+    /**
+     * @return the namespace declarations in scope of the current element,
+     *         declared by the envelope
+     */
+    private Map<String, String> getInheritedNamespaces() {
+      final Map<String, String> namespaces = new HashMap<>();
+      // From the root down to the parent, the closest declaration wins
+      scopes.descendingIterator().forEachRemaining(namespaces::putAll);
+      return namespaces;
+    }
+
+    /**
+     * A message being written.
+     */
+    private class Message {
+
+      private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      private final XMLStreamWriter writer;
+      private final boolean wrapped;
+
+      Message(boolean wrapped) throws XMLStreamException {
+        this.wrapped = wrapped;
+        this.writer =
+            XML_OUTPUT_FACTORY.createXMLStreamWriter(bytes, StandardCharsets.UTF_8.name());
+        writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        if (wrapped) {
+          writer.writeStartElement(REQUEST_PAYLOAD_ELEMENT);
+        }
+      }
+
+      /**
+       * Copies the current element of the envelope, up to its end tag
+       */
+      void copyElement() throws XMLStreamException {
+        final Map<String, String> inherited = getInheritedNamespaces();
+        int depth = 0;
+
+        do {
+          switch (reader.getEventType()) {
+            case XMLStreamConstants.START_ELEMENT -> {
+              writer.writeStartElement(
+                  StringUtils.defaultString(reader.getPrefix()),
+                  reader.getLocalName(),
+                  StringUtils.defaultString(reader.getNamespaceURI()));
+
+              final Map<String, String> namespaces = getNamespaces();
+              if (depth == 0) {
+                inherited.forEach(namespaces::putIfAbsent);
+              }
+              for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+                if (namespace.getKey().isEmpty()) {
+                  writer.writeDefaultNamespace(namespace.getValue());
+                } else {
+                  writer.writeNamespace(namespace.getKey(), namespace.getValue());
+                }
+              }
+
+              for (int i = 0; i < reader.getAttributeCount(); i++) {
+                final String namespaceURI = reader.getAttributeNamespace(i);
+                if (StringUtils.isEmpty(namespaceURI)) {
+                  writer.writeAttribute(
+                      reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                } else {
+                  writer.writeAttribute(
+                      StringUtils.defaultString(reader.getAttributePrefix(i)),
+                      namespaceURI,
+                      reader.getAttributeLocalName(i),
+                      reader.getAttributeValue(i));
+                }
+              }
+              depth++;
+            }
+            case XMLStreamConstants.END_ELEMENT -> {
+              writer.writeEndElement();
+              depth--;
+            }
+            case XMLStreamConstants.CHARACTERS, XMLStreamConstants.SPACE ->
+                writer.writeCharacters(
+                    reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            case XMLStreamConstants.CDATA -> writer.writeCData(reader.getText());
+            case XMLStreamConstants.COMMENT -> writer.writeComment(reader.getText());
+            default -> {
+              // Processing instructions and entity references are not kept
+            }
+          }
+
+          if (depth > 0) {
+            reader.next();
+          }
+        } while (depth > 0);
+      }
+
+      byte[] finish() throws XMLStreamException {
+        if (wrapped) {
+          writer.writeEndElement();
+        }
+        writer.writeEndDocument();
+        writer.close();
+        return bytes.toByteArray();
+      }
+    }
+  }
+}
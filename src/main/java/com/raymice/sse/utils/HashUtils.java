@@ -0,0 +1,66 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.utils;
+
+import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Utility class for content hashes.
+ */
+public class HashUtils {
+
+  public static final String SHA_256 = "SHA-256";
+
+  /**
+   * Create a new SHA-256 digest (not thread-safe, one per computation).
+   *
+   * @return the digest
+   */
+  public static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance(SHA_256);
+    } catch (NoSuchAlgorithmException e) {
+      // Always available (required by the Java platform)
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Compute the SHA-256 of the given bytes.
+   *
+   * @param data the bytes to hash
+   * @return the hash as a lowercase hex string (64 characters)
+   */
+  public static String sha256Hex(@NotNull byte[] data) {
+    Validate.notNull(data, "Data must not be null");
+
+    return HexFormat.of().formatHex(newSha256().digest(data));
+  }
+
+  /**
+   * Compute the SHA-256 of the given file, read by chunks.
+   *
+   * @param file the file to hash
+   * @return the hash as a lowercase hex string (64 characters)
+   * @throws IOException if the file cannot be read
+   */
+  public static String sha256Hex(@NotNull Path file) throws IOException {
+    Validate.notNull(file, "File must not be null");
+
+    final MessageDigest digest = newSha256();
+    try (InputStream in = Files.newInputStream(file)) {
+      final byte[] buffer = new byte[64 * 1024];
+      for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+}
@@ -0,0 +1,118 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.utils;
+
+import com.prowidesoftware.swift.model.MxId;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.Nullable;
+import java.util.Optional;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Utility class for SWIFT MX (ISO 20022) messages.
+ */
+@Slf4j
+public class MxUtils {
+
+  public static final String DOCUMENT_ELEMENT = "Document";
+  public static final String APP_HDR_ELEMENT = "AppHdr";
+  public static final String MSG_DEF_IDR_ELEMENT = "MsgDefIdr";
+
+  /**
+   * Information collected while reading an MX message.
+   *
+   * @param documentNamespace namespace of the 'Document' element (can be null)
+   * @param msgDefIdr         value of 'AppHdr/MsgDefIdr' (can be null)
+   */
+  public record MxMetadata(@Nullable String documentNamespace, @Nullable String msgDefIdr) {
+
+    /**
+     * Resolves the MX identifier of the message.
+     * The 'Document' namespace is used first, the 'AppHdr/MsgDefIdr' is the
+     * fallback (same precedence as MxParseUtils.identifyMessage).
+     *
+     * @return the detected MxId, or empty if no identifier could be determined
+     */
+    public Optional<MxId> mxId() {
+      return toMxId(documentNamespace).or(() -> toMxId(msgDefIdr));
+    }
+
+    private static Optional<MxId> toMxId(@Nullable String value) {
+      if (StringUtils.isBlank(value)) {
+        return Optional.empty();
+      }
+
+      try {
+        return Optional.of(new MxId(value.trim()));
+      } catch (IllegalArgumentException e) {
+        log.debug("Unable to parse MX identifier '{}': {}", value, e.getMessage());
+        return Optional.empty();
+      }
+    }
+  }
+
+  /**
+   * Reads the given XML in a single streaming pass.
+   * <p>
+   * The whole document is consumed to confirm it is well-formed, the 'Document'
+   * namespace and the 'AppHdr/MsgDefIdr' are collected along the way.
+   * </p>
+   *
+   * <p>
+   * Example XML structure being parsed:
+   *
+   * <pre>{@code
+   * <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pacs.002.001.10">
+   * }</pre>
+   * </p>
+   *
+   * @param xml the XML string to read
+   * @return the collected metadata, or empty if the XML is blank or not
+   *         well-formed
+   */
+  @Timed
+  public static Optional<MxMetadata> parse(@Nullable String xml) {
+
+    if (StringUtils.isBlank(xml)) {
+      return Optional.empty();
+    }
+
+    XMLStreamReader reader = null;
+    try {
+      reader = XmlUtils.createXmlStreamReader(xml);
+
+      String documentNamespace = null;
+      String msgDefIdr = null;
+      boolean inAppHdr = false;
+
+      while (reader.hasNext()) {
+        int event = reader.next();
+
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          final String localName = reader.getLocalName();
+
+          if (documentNamespace == null && DOCUMENT_ELEMENT.equals(localName)) {
+            documentNamespace = StringUtils.defaultString(reader.getNamespaceURI());
+          } else if (APP_HDR_ELEMENT.equals(localName)) {
+            inAppHdr = true;
+          } else if (inAppHdr && msgDefIdr == null && MSG_DEF_IDR_ELEMENT.equals(localName)) {
+            // Consume the text up to the matching end tag
+            msgDefIdr = reader.getElementText();
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT
+            && APP_HDR_ELEMENT.equals(reader.getLocalName())) {
+          inAppHdr = false;
+        }
+      }
+
+      return Optional.of(new MxMetadata(documentNamespace, msgDefIdr));
+    } catch (XMLStreamException e) {
+      return Optional.empty();
+    } finally {
+      XmlUtils.closeQuietly(reader);
+    }
+  }
+}
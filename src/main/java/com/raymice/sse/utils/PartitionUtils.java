@@ -0,0 +1,115 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.utils;
+
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Utility class for the range partitions (on 'created_at') of the database
+ * tables.
+ */
+public class PartitionUtils {
+
+  private static final DateTimeFormatter SUFFIX_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+
+  private static final DateTimeFormatter BOUND_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd[ HH:mm:ss[.SSSSSS]]");
+
+  // Upper bound of a range partition, e.g. "FOR VALUES FROM (...) TO ('2025-01-02 00:00:00')"
+  private static final Pattern UPPER_BOUND_PATTERN = Pattern.compile("\\bTO \\('([^']+)'\\)");
+
+  // Both bounds of a range partition, e.g. "FOR VALUES FROM (MINVALUE) TO ('2025-01-02')"
+  private static final Pattern RANGE_BOUNDS_PATTERN =
+      Pattern.compile("\\bFROM \\((MINVALUE|'[^']+')\\) TO \\((MAXVALUE|'[^']+')\\)");
+
+  /**
+   * Name of the daily partition of a table.
+   *
+   * @param table the partitioned table
+   * @param day   the day covered by the partition
+   * @return the partition name, e.g. process_p20250101
+   */
+  public static String partitionName(@NotBlank String table, @NotNull LocalDate day) {
+    Validate.notBlank(table, "Table must not be blank");
+    Validate.notNull(day, "Day must not be null");
+
+    return table + "_p" + day.format(SUFFIX_FORMATTER);
+  }
+
+  /**
+   * Extract the (exclusive) upper bound of a range partition.
+   *
+   * @param boundExpression the bound as returned by 'pg_get_expr(relpartbound)'
+   * @return the upper bound, or empty for a default partition or a MAXVALUE
+   *         bound
+   */
+  public static Optional<LocalDateTime> parseUpperBound(@Nullable String boundExpression) {
+    if (boundExpression == null) {
+      return Optional.empty();
+    }
+
+    final Matcher matcher = UPPER_BOUND_PATTERN.matcher(boundExpression);
+    if (!matcher.find()) {
+      return Optional.empty();
+    }
+
+    return parseBound(matcher.group(1));
+  }
+
+  /**
+   * Check if a partition receives the rows created at the given date.
+   *
+   * @param boundExpression the bound as returned by 'pg_get_expr(relpartbound)'
+   * @param at              the creation date of a row
+   * @return true for a default partition, or a range partition including the
+   *         date
+   */
+  public static boolean covers(@Nullable String boundExpression, @NotNull LocalDateTime at) {
+    Validate.notNull(at, "Date must not be null");
+
+    if (boundExpression == null) {
+      return false;
+    }
+    if (boundExpression.equals("DEFAULT")) {
+      return true;
+    }
+
+    final Matcher matcher = RANGE_BOUNDS_PATTERN.matcher(boundExpression);
+    if (!matcher.find()) {
+      return false;
+    }
+
+    final String from = matcher.group(1);
+    final String to = matcher.group(2);
+    final boolean afterLower =
+        from.equals("MINVALUE")
+            || parseBound(from.substring(1, from.length() - 1))
+                .filter(lower -> !lower.isAfter(at))
+                .isPresent();
+    final boolean beforeUpper =
+        to.equals("MAXVALUE")
+            || parseBound(to.substring(1, to.length() - 1))
+                .filter(upper -> upper.isAfter(at))
+                .isPresent();
+    return afterLower && beforeUpper;
+  }
+
+  private static Optional<LocalDateTime> parseBound(String bound) {
+    try {
+      final var parsed = BOUND_FORMATTER.parseBest(bound, LocalDateTime::from, LocalDate::from);
+      return Optional.of(
+          parsed instanceof LocalDate date ? date.atStartOfDay() : (LocalDateTime) parsed);
+    } catch (DateTimeParseException e) {
+      return Optional.empty();
+    }
+  }
+}
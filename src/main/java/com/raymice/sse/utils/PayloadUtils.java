@@ -0,0 +1,150 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.utils;
+
+import jakarta.validation.constraints.NotNull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Utility class for the streaming ingestion of the payloads.
+ * <p>
+ * A file is read once, by chunks, straight into the heap chunk of the encoder:
+ * its line breaks are stripped in a single linear pass, and the remaining
+ * bytes are hashed (SHA-256) and compressed (Deflate) on the fly. Only the
+ * compressed content is kept in memory, the file is never decoded as a
+ * String.
+ * </p>
+ */
+public class PayloadUtils {
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  /**
+   * Encoded payload of a file.
+   *
+   * @param hash    SHA-256 of the content without line breaks (lowercase hex)
+   * @param content content without line breaks, compressed with Deflate
+   * @param size    size in bytes of the content without line breaks
+   */
+  public record Encoded(String hash, byte[] content, int size) {}
+
+  /**
+   * Read a file, strip its line breaks, then hash and compress it in a single
+   * pass.
+   *
+   * @param file the file to read
+   * @return the encoded payload
+   * @throws IOException if the file cannot be read
+   */
+  public static Encoded encode(@NotNull Path file) throws IOException {
+    Validate.notNull(file, "File must not be null");
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        Encoder encoder = new Encoder(channel.size())) {
+      final ByteBuffer buffer = ByteBuffer.wrap(encoder.chunk);
+      for (int read = channel.read(buffer); read != -1; read = channel.read(buffer.clear())) {
+        encoder.write(read);
+      }
+      return encoder.finish();
+    }
+  }
+
+  /**
+   * Read a stream (e.g. entry of an archive), strip its line breaks, then hash
+   * and compress it in a single pass. The stream is read up to its end but not
+   * closed.
+   *
+   * @param in the stream to read
+   * @return the encoded payload
+   * @throws IOException if the stream cannot be read
+   */
+  public static Encoded encode(@NotNull InputStream in) throws IOException {
+    Validate.notNull(in, "InputStream must not be null");
+
+    try (Encoder encoder = new Encoder(CHUNK_SIZE)) {
+      for (int read = in.read(encoder.chunk); read != -1; read = in.read(encoder.chunk)) {
+        encoder.write(read);
+      }
+      return encoder.finish();
+    }
+  }
+
+  /**
+   * Remove the line breaks (CR, LF, vertical tab and form feed) of the given
+   * bytes, in place.
+   * <p>
+   * Works on UTF-8 bytes: these characters are single bytes that never appear
+   * inside a multibyte sequence, so that chunks can be processed independently.
+   * </p>
+   *
+   * @param data   the bytes
+   * @param length the number of bytes to process
+   * @return the number of remaining bytes (at the beginning of the array)
+   */
+  public static int stripLineBreaks(@NotNull byte[] data, int length) {
+    Validate.notNull(data, "Data must not be null");
+
+    int kept = 0;
+    for (int i = 0; i < length; i++) {
+      final byte b = data[i];
+      if (b != '\n' && b != '\r' && b != 0x0B && b != '\f') {
+        data[kept++] = b;
+      }
+    }
+    return kept;
+  }
+
+  /**
+   * Single pass encoder: the bytes read in 'chunk' are stripped, hashed and
+   * compressed.
+   */
+  private static class Encoder implements AutoCloseable {
+
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private final MessageDigest digest = HashUtils.newSha256();
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final ByteArrayOutputStream compressed;
+    private final DeflaterOutputStream out;
+    private long size = 0;
+
+    Encoder(long sizeHint) {
+      this.compressed =
+          new ByteArrayOutputStream((int) Math.min(Math.max(64, sizeHint / 4), CHUNK_SIZE));
+      this.out = new DeflaterOutputStream(compressed, deflater, CHUNK_SIZE);
+    }
+
+    void write(int read) throws IOException {
+      final int length = stripLineBreaks(chunk, read);
+      if (size + length > Integer.MAX_VALUE) {
+        // Size of the stored payloads
+        throw new IOException("Payload larger than " + Integer.MAX_VALUE + " bytes");
+      }
+      digest.update(chunk, 0, length);
+      out.write(chunk, 0, length);
+      size += length;
+    }
+
+    Encoded finish() throws IOException {
+      out.finish();
+      return new Encoded(
+          HexFormat.of().formatHex(digest.digest()),
+          compressed.toByteArray(),
+          Math.toIntExact(size));
+    }
+
+    @Override
+    public void close() {
+      deflater.end();
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.utils;
+
+import jakarta.validation.constraints.NotBlank;
+import org.apache.commons.lang3.Validate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for the in-memory (SEDA) queues.
+ */
+public class SedaUtils {
+
+  /**
+   * Constructs the URI of a bounded in-memory queue, whose producers wait for a
+   * free slot when it is full.
+   * <p>
+   * The producers and the consumer of a queue must use the same URI (the queue
+   * is created by the first endpoint, with its size).
+   * </p>
+   *
+   * @param queueName           the name of the queue
+   * @param size                the maximum number of messages waiting in the
+   *                            queue
+   * @param concurrentConsumers the number of consumers of the queue
+   * @return the constructed queue URI
+   */
+  public static String getQueueUri(@NotBlank String queueName, int size, int concurrentConsumers) {
+
+    Validate.notBlank(queueName, "Queue name must not be blank");
+    Validate.isTrue(size > 0, "Queue size must be positive: %d", size);
+    Validate.isTrue(
+        concurrentConsumers > 0, "Concurrent consumers must be positive: %d", concurrentConsumers);
+
+    return UriComponentsBuilder.fromPath(String.format("seda:%s", queueName))
+        .queryParam("size", size)
+        .queryParam("blockWhenFull", "true")
+        .queryParam("concurrentConsumers", concurrentConsumers)
+        .build()
+        .toUriString();
+  }
+}
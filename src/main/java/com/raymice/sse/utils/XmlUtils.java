@@ -3,12 +3,22 @@ package com.raymice.sse.utils;
 
 import io.micrometer.core.annotation.Timed;
 import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.net.URL;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 
 /**
  * Utility class for XML operations.
@@ -16,8 +26,25 @@ import org.xml.sax.InputSource;
 @Slf4j
 public class XmlUtils {
 
+  /**
+   * Shared StAX factory.
+   * <p>
+   * The factory is configured once and never mutated afterwards, creating
+   * readers from it is then safe from any thread (no per-message factory
+   * lookup through the service loader).
+   * </p>
+   */
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+  // Protocols of the schema documents a schema may include or import
+  private static final String SCHEMA_LOCAL_PROTOCOLS = "file,jar:file,jar:nested";
+
   /**
    * Checks if the provided XML string is well-formed.
+   * <p>
+   * The document is pulled event by event with StAX, no tree is built in
+   * memory.
+   * </p>
    *
    * @param xmlString the XML string to check
    * @return true if well-formed, false otherwise
@@ -29,15 +56,169 @@ public class XmlUtils {
       return false;
     }
 
+    XMLStreamReader reader = null;
     try {
-      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-      DocumentBuilder builder = factory.newDocumentBuilder();
+      reader = createXmlStreamReader(xmlString);
 
       // Parsing will fail if not well-formed
-      builder.parse(new InputSource(new StringReader(xmlString)));
+      while (reader.hasNext()) {
+        reader.next();
+      }
       return true;
-    } catch (Exception e) {
+    } catch (XMLStreamException e) {
       return false;
+    } finally {
+      closeQuietly(reader);
+    }
+  }
+
+  /**
+   * Compiles the XSD located at the given URL.
+   * <p>
+   * The returned Schema is immutable and thread-safe, it is meant to be
+   * compiled once and shared by all the consumers.
+   * </p>
+   *
+   * @param xsd the location of the XSD
+   * @return the compiled Schema
+   * @throws SAXException if the XSD cannot be compiled
+   */
+  public static Schema compileSchema(URL xsd) throws SAXException {
+    // SchemaFactory is not thread-safe, compilation is rare so a new one is used
+    SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+    factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    // The secure processing forbids any external access: allow the local files only, for the
+    // xs:include/xs:import of multi-file schemas (filesystem, classpath or nested jar)
+    factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, SCHEMA_LOCAL_PROTOCOLS);
+    factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+    return factory.newSchema(xsd);
+  }
+
+  /**
+   * Validates the XML string against the given Schema.
+   * <p>
+   * The document is streamed through a StAX source, no tree is built in memory.
+   * Validator instances are cheap and not thread-safe, a new one is used per
+   * call.
+   * </p>
+   *
+   * @param schema    the compiled Schema
+   * @param xmlString the XML string to validate
+   * @throws SAXException       if the XML does not comply with the Schema
+   * @throws XMLStreamException if the XML cannot be read
+   * @throws IOException        if an I/O error occurs
+   */
+  public static void validate(Schema schema, String xmlString)
+      throws SAXException, XMLStreamException, IOException {
+    validate(schema, xmlString, null);
+  }
+
+  /**
+   * Validates the first element of the given name against the given Schema
+   * (e.g. the 'Document' of a message wrapped with its header), or the whole
+   * XML string if there is no such element.
+   *
+   * @param schema      the compiled Schema
+   * @param xmlString   the XML string to validate
+   * @param elementName the local name of the element to validate (can be null)
+   * @throws SAXException       if the XML does not comply with the Schema
+   * @throws XMLStreamException if the XML cannot be read
+   * @throws IOException        if an I/O error occurs
+   */
+  public static void validate(Schema schema, String xmlString, @Nullable String elementName)
+      throws SAXException, XMLStreamException, IOException {
+    Validator validator = schema.newValidator();
+    // Never resolve external resources referenced by the message itself
+    validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+    validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+
+    XMLStreamReader reader = null;
+    try {
+      reader = createXmlStreamReader(xmlString);
+      if (elementName != null && !moveToElement(reader, elementName)) {
+        closeQuietly(reader);
+        reader = createXmlStreamReader(xmlString);
+      }
+      validator.validate(new StAXSource(reader));
+    } finally {
+      closeQuietly(reader);
+    }
+  }
+
+  /**
+   * Creates a StAX reader on the given XML string using the shared factory.
+   *
+   * @param xmlString the XML string to read
+   * @return a new XMLStreamReader (to be closed by the caller)
+   * @throws XMLStreamException if the reader cannot be created
+   */
+  public static XMLStreamReader createXmlStreamReader(String xmlString) throws XMLStreamException {
+    return XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xmlString));
+  }
+
+  /**
+   * Creates a StAX reader on the given XML stream using the shared factory (the
+   * encoding is detected from the XML declaration).
+   *
+   * @param in the XML stream to read
+   * @return a new XMLStreamReader (to be closed by the caller, the stream is
+   *         not closed by it)
+   * @throws XMLStreamException if the reader cannot be created
+   */
+  public static XMLStreamReader createXmlStreamReader(InputStream in) throws XMLStreamException {
+    return XML_INPUT_FACTORY.createXMLStreamReader(in);
+  }
+
+  /**
+   * Moves the reader forward to the start of the next element of the given
+   * name.
+   *
+   * @param reader    the reader
+   * @param localName the local name of the element
+   * @return true if the reader is on the element, false if the end of the
+   *         document was reached
+   * @throws XMLStreamException if the XML cannot be read
+   */
+  public static boolean moveToElement(XMLStreamReader reader, String localName)
+      throws XMLStreamException {
+    while (reader.hasNext()) {
+      if (reader.next() == XMLStreamConstants.START_ELEMENT
+          && localName.equals(reader.getLocalName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Closes the given StAX reader, ignoring any error.
+   *
+   * @param reader the reader to close (can be null)
+   */
+  public static void closeQuietly(@Nullable XMLStreamReader reader) {
+    if (reader == null) {
+      return;
     }
+
+    try {
+      reader.close();
+    } catch (XMLStreamException e) {
+      log.debug("Unable to close XML stream reader: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Creates the StAX factory used by every reader.
+   * DTD and external entities are disabled, SWIFT messages never rely on them
+   * and it protects against XXE.
+   *
+   * @return the configured XMLInputFactory
+   */
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    return factory;
   }
 }
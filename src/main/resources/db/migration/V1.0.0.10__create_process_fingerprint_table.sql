@@ -0,0 +1,12 @@
+-- Fingerprints (SHA-256 of the content) of the received files, for the detection of the duplicates
+-- A unique index on process(payload_hash) is not possible: the partitioned table only supports unique
+-- indexes including the partition key
+CREATE TABLE IF NOT EXISTS process_fingerprint (
+    hash            varchar(64) PRIMARY KEY,
+    -- First process having received the content
+    process_id      BIGINT NOT NULL,
+    created_at      timestamp NOT NULL
+);
+
+-- Purge of the fingerprints older than the detection window (rows are inserted in time order)
+CREATE INDEX IF NOT EXISTS process_fingerprint_created_at_brin_idx ON process_fingerprint USING BRIN (created_at);
@@ -0,0 +1,5 @@
+-- Processes extracted from an archive reference the process of the archive
+ALTER TABLE process ADD COLUMN IF NOT EXISTS parent_id BIGINT;
+
+-- Lookups of the contents of an archive (only the extracted processes are indexed)
+CREATE INDEX IF NOT EXISTS process_parent_id_idx ON process(parent_id) WHERE parent_id IS NOT NULL;
@@ -0,0 +1,8 @@
+-- Kind of content of a process: a file (received or extracted from a bundle), or a bundle split into processes
+ALTER TABLE process ADD COLUMN IF NOT EXISTS kind varchar NOT NULL DEFAULT 'FILE';
+
+-- The bundles received so far are the processes referenced by other ones
+UPDATE process p
+SET kind = CASE WHEN p."name" LIKE '%.xml' THEN 'ENVELOPE' ELSE 'ARCHIVE' END
+WHERE p.kind = 'FILE'
+  AND EXISTS (SELECT 1 FROM process c WHERE c.parent_id = p.id);
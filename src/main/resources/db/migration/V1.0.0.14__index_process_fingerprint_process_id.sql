@@ -0,0 +1,2 @@
+-- Release of the fingerprints of the failed processes
+CREATE INDEX IF NOT EXISTS process_fingerprint_process_id_idx ON process_fingerprint (process_id);
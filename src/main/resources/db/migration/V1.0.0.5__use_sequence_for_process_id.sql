@@ -0,0 +1,10 @@
+-- Replace the identity column by a pooled sequence (increment = allocationSize of ProcessEntity)
+-- Ids are then allocated in memory by blocks and process inserts can be batched
+ALTER TABLE process ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS process_seq INCREMENT BY 50 OWNED BY process.id;
+
+-- Start after the existing ids (the pooled optimizer uses the value as the upper bound of a block)
+SELECT setval('process_seq', COALESCE((SELECT MAX(id) FROM process), 0) + 1);
+
+ALTER TABLE process ALTER COLUMN id SET DEFAULT nextval('process_seq');
@@ -0,0 +1,26 @@
+-- Content store of the payloads, keyed by the SHA-256 of the content (identical payloads are stored once)
+-- Payloads are compressed by the application (codec DEFLATE), existing ones are moved as is (codec NONE)
+CREATE TABLE IF NOT EXISTS process_payload (
+    hash            varchar(64) PRIMARY KEY,
+    codec           varchar NOT NULL,
+    content         bytea NOT NULL,
+    size            INTEGER NOT NULL,
+    created_at      timestamp NOT NULL DEFAULT NOW()
+);
+
+-- Content is already compressed
+ALTER TABLE process_payload ALTER COLUMN content SET STORAGE EXTERNAL;
+
+ALTER TABLE process ADD COLUMN IF NOT EXISTS payload_hash varchar(64);
+
+INSERT INTO process_payload(hash, codec, content, size)
+SELECT DISTINCT encode(sha256(convert_to(payload, 'UTF8')), 'hex'), 'NONE', convert_to(payload, 'UTF8'), octet_length(payload)
+FROM process
+ON CONFLICT (hash) DO NOTHING;
+
+UPDATE process SET payload_hash = encode(sha256(convert_to(payload, 'UTF8')), 'hex');
+
+-- The process rows only keep a reference, status updates rewrite narrow tuples
+ALTER TABLE process ALTER COLUMN payload_hash SET NOT NULL;
+ALTER TABLE process ADD CONSTRAINT process_payload_hash_fk FOREIGN KEY (payload_hash) REFERENCES process_payload(hash);
+ALTER TABLE process DROP COLUMN payload;
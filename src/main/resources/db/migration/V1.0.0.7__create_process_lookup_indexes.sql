@@ -0,0 +1,5 @@
+-- Status history of a process (lookups by process, ordered by time)
+CREATE INDEX IF NOT EXISTS process_history_process_id_idx ON process_history(process_id, created_at);
+
+-- No index on process.status: status lookups go through the primary key, and an index on a column
+-- updated for every transition would prevent HOT updates of the process rows
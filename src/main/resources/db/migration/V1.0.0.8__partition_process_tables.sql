@@ -0,0 +1,81 @@
+-- Convert process and process_history to daily range partitions on created_at
+-- Existing rows are kept in a 'legacy' partition, future partitions are created (and expired ones
+-- dropped) by the application (see PartitionMaintenanceService)
+
+-- process --------------------------------------------------------------------------------------
+
+ALTER TABLE process RENAME TO process_legacy;
+ALTER TABLE process_legacy RENAME CONSTRAINT process_pkey TO process_legacy_pkey;
+ALTER SEQUENCE process_seq OWNED BY NONE;
+
+CREATE TABLE process (
+    id              BIGINT NOT NULL DEFAULT nextval('process_seq'),
+    "name"          varchar NOT NULL,
+    payload_hash    varchar(64) NOT NULL REFERENCES process_payload(hash),
+    status          varchar NOT NULL,
+    created_at      timestamp NOT NULL,
+    updated_at      timestamp NOT NULL,
+    -- The partition key must be part of the primary key
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE process_seq OWNED BY process.id;
+
+-- Lookups of the processes referencing a payload (payload retention)
+CREATE INDEX IF NOT EXISTS process_payload_hash_idx ON process(payload_hash);
+
+-- The history trigger is defined on the partitioned table, not on the legacy partition
+DROP TRIGGER IF EXISTS process_history_trigger ON process_legacy;
+
+CREATE TRIGGER process_history_trigger
+AFTER INSERT OR UPDATE ON process
+FOR EACH ROW
+EXECUTE FUNCTION update_process_history();
+
+-- process_history ------------------------------------------------------------------------------
+
+ALTER TABLE process_history RENAME TO process_history_legacy;
+ALTER TABLE process_history_legacy RENAME CONSTRAINT process_history_pkey TO process_history_legacy_pkey;
+ALTER INDEX IF EXISTS process_history_process_id_idx RENAME TO process_history_legacy_process_id_idx;
+
+CREATE SEQUENCE IF NOT EXISTS process_history_seq;
+SELECT setval('process_history_seq', COALESCE((SELECT MAX(id) FROM process_history_legacy), 0) + 1, false);
+ALTER TABLE process_history_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE TABLE process_history (
+    id              BIGINT NOT NULL DEFAULT nextval('process_history_seq'),
+    process_id      BIGINT NOT NULL,
+    status          varchar NOT NULL,
+    created_at      timestamp NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE process_history_seq OWNED BY process_history.id;
+
+CREATE INDEX IF NOT EXISTS process_history_process_id_idx ON process_history(process_id, created_at);
+
+-- Partitions -----------------------------------------------------------------------------------
+
+DO $$
+DECLARE
+    today   date := CURRENT_DATE;
+    bound   date;
+    day     date;
+BEGIN
+    -- Legacy partitions hold all the existing rows (up to the end of the day of the latest one)
+    bound := GREATEST(
+        today,
+        (SELECT COALESCE(MAX(created_at)::date + 1, today) FROM process_legacy),
+        (SELECT COALESCE(MAX(created_at)::date + 1, today) FROM process_history_legacy));
+
+    EXECUTE format('ALTER TABLE process ATTACH PARTITION process_legacy FOR VALUES FROM (MINVALUE) TO (%L)', bound);
+    EXECUTE format('ALTER TABLE process_history ATTACH PARTITION process_history_legacy FOR VALUES FROM (MINVALUE) TO (%L)', bound);
+
+    -- Partitions of the next days (then created by the application)
+    FOR day IN SELECT generate_series(bound, today + 7, interval '1 day')::date LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF process FOR VALUES FROM (%L) TO (%L)',
+            'process_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF process_history FOR VALUES FROM (%L) TO (%L)',
+            'process_history_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+    END LOOP;
+END $$;
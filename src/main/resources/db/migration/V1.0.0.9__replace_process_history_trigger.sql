@@ -0,0 +1,7 @@
+-- History rows are now appended by the application, in the same transaction (and JDBC batch) as the
+-- process inserts and status updates
+DROP TRIGGER IF EXISTS process_history_trigger ON process;
+DROP FUNCTION IF EXISTS update_process_history();
+
+-- History rows are appended in time order: a BRIN index stays tiny and is enough for time ranges
+CREATE INDEX IF NOT EXISTS process_history_created_at_brin_idx ON process_history USING BRIN (created_at);
@@ -16,6 +16,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.lifecycle.Startable;
 import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
 
 @Slf4j
 public class Containers implements Startable {
@@ -34,7 +35,18 @@ public class Containers implements Startable {
   private static GenericContainer<?> redis;
 
   public Containers() {
+    this(true);
+  }
+
+  /**
+   * @param withActiveMQ false to start without the broker container, e.g. with
+   *                     the embedded broker (profile 'embedded')
+   */
+  public Containers(boolean withActiveMQ) {
     this.createContainers();
+    if (!withActiveMQ) {
+      containers.remove(ACTIVEMQ_IMAGE);
+    }
   }
 
   public HashMap<String, GenericContainer<?>> getContainers() {
@@ -98,7 +110,11 @@ public class Containers implements Startable {
                               // reconnection during testing
                               Ports.Binding.bindPort(1111), new ExposedPort(61616)),
                           new PortBinding(Ports.Binding.bindPort(1112), new ExposedPort(8161)));
-                });
+                })
+            // Same configuration as docker-compose.yml (statisticsBrokerPlugin)
+            .withCopyFileToContainer(
+                MountableFile.forHostPath("conf/activemq.xml"),
+                "/opt/apache-activemq/conf/activemq.xml");
 
     postgres =
         new GenericContainer<>(DockerImageName.parse(POSTGRES_IMAGE))
@@ -0,0 +1,40 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.integration.db;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.raymice.sse.db.sevice.PartitionMaintenanceService;
+import com.raymice.sse.integration.Containers;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Partitions of the process tables against the real database (created by the
+ * migrations and the maintenance at startup)
+ */
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+public class PartitionMaintenanceTest {
+
+  @Autowired private PartitionMaintenanceService partitionMaintenanceService;
+  @Container private static final Containers containers = new Containers();
+
+  @Test
+  void checkCoverage_DoesNotThrow_ForTheRowsCreatedNow() {
+    assertDoesNotThrow(() -> partitionMaintenanceService.checkCoverage(LocalDateTime.now()));
+  }
+
+  @Test
+  void checkCoverage_Throws_BeyondThePartitionsCreatedInAdvance() {
+    assertThrows(
+        IllegalStateException.class,
+        () -> partitionMaintenanceService.checkCoverage(LocalDateTime.now().plusYears(1)));
+  }
+}
@@ -0,0 +1,124 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.integration.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.db.batch.ProcessStatusWriter;
+import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.sevice.ProcessService;
+import com.raymice.sse.integration.Containers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Detection of the duplicates against the real repository (a long delay
+ * gathers the concurrent creations in a single batch, a short window lets the
+ * fingerprints expire during the test)
+ */
+@Slf4j
+@Testcontainers
+@SpringBootTest(
+    properties = {
+      "app.database.processInsert.maxDelay=500ms",
+      "app.routing.file.input.duplicates.enabled=true",
+      "app.routing.file.input.duplicates.window=2s"
+    })
+@ActiveProfiles("test")
+public class ProcessFingerprintTest {
+
+  @Autowired private ProcessService processService;
+  @Autowired private ProcessStatusWriter processStatusWriter;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Container private static final Containers containers = new Containers();
+
+  @BeforeEach
+  void beforeEach() {
+    processService.deleteAll();
+  }
+
+  @Test
+  void createProcess_MarksSecondAsDuplicate_WhenIdenticalInTheSameBatch() {
+    final String payload = newPayload();
+    final List<CompletableFuture<ProcessEntity>> identical = new ArrayList<>();
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      identical.add(CompletableFuture.supplyAsync(() -> create("first.xml", payload), executor));
+      identical.add(CompletableFuture.supplyAsync(() -> create("second.xml", payload), executor));
+    }
+
+    final List<ProcessEntity> created = identical.stream().map(CompletableFuture::join).toList();
+    final List<ProcessEntity.Status> statuses =
+        created.stream().map(ProcessEntity::getStatus).sorted().toList();
+    assertEquals(List.of(ProcessEntity.Status.CREATED, ProcessEntity.Status.DUPLICATE), statuses);
+
+    // The fingerprint belongs to the process registered first
+    final ProcessEntity registered =
+        created.stream()
+            .filter(p -> p.getStatus() == ProcessEntity.Status.CREATED)
+            .findFirst()
+            .orElseThrow();
+    assertEquals(List.of(registered.getId()), fingerprintOwners(registered.getPayloadHash()));
+  }
+
+  @Test
+  void createProcess_TakesOverFingerprint_WhenTheWindowExpired() throws InterruptedException {
+    final String payload = newPayload();
+
+    final ProcessEntity first = create("first.xml", payload);
+    assertEquals(ProcessEntity.Status.CREATED, first.getStatus());
+    assertEquals(ProcessEntity.Status.DUPLICATE, create("resent.xml", payload).getStatus());
+
+    // Beyond the window, the content is received again
+    Thread.sleep(2500);
+    final ProcessEntity second = create("second.xml", payload);
+
+    assertEquals(ProcessEntity.Status.CREATED, second.getStatus());
+    assertEquals(List.of(second.getId()), fingerprintOwners(second.getPayloadHash()));
+  }
+
+  @Test
+  void createProcess_TakesOverFingerprint_WhenTheFirstProcessFailed() {
+    final String payload = newPayload();
+
+    final ProcessEntity first = create("first.xml", payload);
+    assertEquals(ProcessEntity.Status.DUPLICATE, create("resent.xml", payload).getStatus());
+
+    // Transient failure of the first process, its content is resent within the window
+    assertTrue(
+        processStatusWriter.update(
+            first.getId(), first.getCreatedAt(), ProcessEntity.Status.FAILED));
+    assertEquals(List.of(), fingerprintOwners(first.getPayloadHash()));
+
+    final ProcessEntity second = create("second.xml", payload);
+
+    assertEquals(ProcessEntity.Status.CREATED, second.getStatus());
+    assertEquals(List.of(second.getId()), fingerprintOwners(second.getPayloadHash()));
+  }
+
+  private List<Long> fingerprintOwners(String hash) {
+    return jdbcTemplate.queryForList(
+        "SELECT process_id FROM process_fingerprint WHERE hash = ?", Long.class, hash);
+  }
+
+  private ProcessEntity create(String name, String payload) {
+    return processService.createProcess(name, payload);
+  }
+
+  private static String newPayload() {
+    return "<Document>%s</Document>".formatted(UUID.randomUUID());
+  }
+}
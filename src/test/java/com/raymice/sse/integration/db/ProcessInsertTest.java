@@ -0,0 +1,101 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.integration.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.sevice.ProcessService;
+import com.raymice.sse.integration.Containers;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Group commit of the process creations against the real repository (a long
+ * delay gathers the concurrent creations in a single batch)
+ */
+@Slf4j
+@Testcontainers
+@SpringBootTest(
+    properties = {
+      "app.database.processInsert.maxDelay=500ms",
+      "app.routing.file.input.duplicates.enabled=true"
+    })
+@ActiveProfiles("test")
+public class ProcessInsertTest {
+
+  @Autowired private ProcessService processService;
+  @Container private static final Containers containers = new Containers();
+
+  @BeforeEach
+  void beforeEach() {
+    processService.deleteAll();
+  }
+
+  @Test
+  void createProcess_InsertsValidRows_WhenOneRowOfTheBatchFails() {
+    final List<CompletableFuture<ProcessEntity>> valid = new ArrayList<>();
+    final CompletableFuture<ProcessEntity> invalid;
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 5; i++) {
+        final String name = "valid-%d.xml".formatted(i);
+        valid.add(CompletableFuture.supplyAsync(() -> create(name, newPayload()), executor));
+      }
+      // Name is mandatory: fails the batch, then its own row only
+      invalid = CompletableFuture.supplyAsync(() -> create(null, newPayload()), executor);
+    }
+
+    assertThrows(CompletionException.class, invalid::join);
+
+    final List<Long> ids =
+        valid.stream().map(CompletableFuture::join).map(ProcessEntity::getId).toList();
+    final List<ProcessEntity> saved = processService.findAll();
+    assertEquals(5, saved.size());
+    assertTrue(saved.stream().map(ProcessEntity::getId).toList().containsAll(ids));
+    assertTrue(saved.stream().allMatch(p -> p.getStatus() == ProcessEntity.Status.CREATED));
+  }
+
+  @Test
+  void createProcess_KeepsDuplicateDetection_WhenTheBatchIsWrittenAgain() {
+    final String payload = newPayload();
+    final List<CompletableFuture<ProcessEntity>> identical = new ArrayList<>();
+    final CompletableFuture<ProcessEntity> invalid;
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      identical.add(CompletableFuture.supplyAsync(() -> create("first.xml", payload), executor));
+      identical.add(CompletableFuture.supplyAsync(() -> create("second.xml", payload), executor));
+      invalid = CompletableFuture.supplyAsync(() -> create(null, newPayload()), executor);
+    }
+
+    assertThrows(CompletionException.class, invalid::join);
+
+    // The status set by the rolled back attempt is not kept: one of them only is a duplicate
+    final List<ProcessEntity.Status> statuses =
+        processService.findAll().stream().map(ProcessEntity::getStatus).sorted().toList();
+    assertEquals(List.of(ProcessEntity.Status.CREATED, ProcessEntity.Status.DUPLICATE), statuses);
+    assertEquals(2, identical.stream().map(CompletableFuture::join).count());
+  }
+
+  private ProcessEntity create(String name, String payload) {
+    return processService.createProcess(name, payload);
+  }
+
+  private static String newPayload() {
+    return "<Document>%s</Document>".formatted(UUID.randomUUID());
+  }
+}
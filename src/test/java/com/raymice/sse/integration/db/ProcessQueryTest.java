@@ -0,0 +1,95 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.integration.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.db.batch.ProcessStatusWriter;
+import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.projection.ProcessSummary;
+import com.raymice.sse.db.sevice.ProcessService;
+import com.raymice.sse.integration.Containers;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Projection queries of the processes against the real repository
+ */
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+public class ProcessQueryTest {
+
+  @Autowired private ProcessService processService;
+  @Autowired private ProcessStatusWriter processStatusWriter;
+  @Container private static final Containers containers = new Containers();
+
+  @BeforeEach
+  void beforeEach() {
+    processService.deleteAll();
+  }
+
+  @Test
+  void findSummaryById_ReturnsTheSelectedColumns() {
+    final ProcessEntity process = create("summary.xml");
+
+    final ProcessSummary summary =
+        processService.findSummaryById(process.getId(), process.getCreatedAt());
+
+    assertEquals(process.getId(), summary.getId());
+    assertEquals("summary.xml", summary.getName());
+    assertEquals(ProcessEntity.Status.CREATED, summary.getStatus());
+    assertEquals(process.getCreatedAt(), summary.getCreatedAt());
+  }
+
+  @Test
+  void findSummaryById_Throws_WhenTheCreationDateDoesNotMatch() {
+    final ProcessEntity process = create("summary.xml");
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> processService.findSummaryById(process.getId(), process.getCreatedAt().plusDays(1)));
+  }
+
+  @Test
+  void findStatusesByIds_ReturnsTheStatusPerId() {
+    final LocalDateTime from = LocalDateTime.now().minusMinutes(1);
+    final ProcessEntity created = create("created.xml");
+    final ProcessEntity failed = create("failed.xml");
+    final LocalDateTime to = LocalDateTime.now().plusMinutes(1);
+    processStatusWriter.update(failed.getId(), failed.getCreatedAt(), ProcessEntity.Status.FAILED);
+
+    assertEquals(
+        Map.of(
+            created.getId(), ProcessEntity.Status.CREATED,
+            failed.getId(), ProcessEntity.Status.FAILED),
+        processService.findStatusesByIds(List.of(created.getId(), failed.getId(), -1L), from, to));
+  }
+
+  @Test
+  void findStatusesByIds_IgnoresTheProcessesCreatedOutsideTheWindow() {
+    final ProcessEntity process = create("created.xml");
+    final LocalDateTime after = LocalDateTime.now().plusMinutes(1);
+
+    assertTrue(
+        processService
+            .findStatusesByIds(List.of(process.getId()), after, after.plusMinutes(1))
+            .isEmpty());
+    assertTrue(processService.findStatusesByIds(List.of(), after, after).isEmpty());
+  }
+
+  private ProcessEntity create(String name) {
+    return processService.createProcess(
+        name, "<Document>%s</Document>".formatted(UUID.randomUUID()));
+  }
+}
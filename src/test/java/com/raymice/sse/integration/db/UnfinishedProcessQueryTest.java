@@ -0,0 +1,95 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.integration.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.projection.ProcessSummary;
+import com.raymice.sse.db.sevice.ProcessService;
+import com.raymice.sse.integration.Containers;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Query of the unfinished processes (recovery) against the real repository
+ */
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+public class UnfinishedProcessQueryTest {
+
+  @Autowired private ProcessService processService;
+  @Container private static final Containers containers = new Containers();
+
+  @BeforeEach
+  void beforeEach() {
+    processService.deleteAll();
+  }
+
+  @Test
+  void findUnfinished_ReturnsSummariesByPages() {
+    final LocalDateTime from = LocalDateTime.now().minusMinutes(1);
+    final List<Long> ids = List.of(create("first.xml"), create("second.xml"), create("third.xml"));
+    final LocalDateTime to = LocalDateTime.now().plusMinutes(1);
+    final Set<ProcessEntity.Status> created = Set.of(ProcessEntity.Status.CREATED);
+
+    final List<ProcessSummary> firstPage = processService.findUnfinished(created, from, to, 0, 2);
+    assertEquals(ids.subList(0, 2), firstPage.stream().map(ProcessSummary::getId).toList());
+    assertEquals("first.xml", firstPage.getFirst().getName());
+    assertEquals(ProcessEntity.Status.CREATED, firstPage.getFirst().getStatus());
+
+    final List<ProcessSummary> lastPage =
+        processService.findUnfinished(created, from, to, firstPage.getLast().getId(), 2);
+    assertEquals(List.of(ids.getLast()), lastPage.stream().map(ProcessSummary::getId).toList());
+  }
+
+  @Test
+  void findUnfinished_IgnoresOtherStatusesAndCreationDates() {
+    final LocalDateTime from = LocalDateTime.now().minusMinutes(1);
+    create("created.xml");
+    final LocalDateTime to = LocalDateTime.now().plusMinutes(1);
+
+    assertTrue(
+        processService
+            .findUnfinished(Set.of(ProcessEntity.Status.VALIDATED), from, to, 0, 10)
+            .isEmpty());
+    assertTrue(
+        processService
+            .findUnfinished(Set.of(ProcessEntity.Status.CREATED), to, to.plusMinutes(1), 0, 10)
+            .isEmpty());
+  }
+
+  @Test
+  void findUnfinished_IgnoresBundles_EvenWithoutEntries() {
+    final LocalDateTime from = LocalDateTime.now().minusMinutes(1);
+    // Crashed before its first message: its description is not a message
+    processService.createProcess("envelope.xml", "envelope size=42", ProcessEntity.Kind.ENVELOPE);
+    processService.createProcess("archive.zip", "archive size=42", ProcessEntity.Kind.ARCHIVE);
+    final long file = create("file.xml");
+    final LocalDateTime to = LocalDateTime.now().plusMinutes(1);
+
+    assertEquals(
+        List.of(file),
+        processService
+            .findUnfinished(Set.of(ProcessEntity.Status.CREATED), from, to, 0, 10)
+            .stream()
+            .map(ProcessSummary::getId)
+            .toList());
+  }
+
+  private long create(String name) {
+    return processService
+        .createProcess(name, "<Document>%s</Document>".formatted(UUID.randomUUID()))
+        .getId();
+  }
+}
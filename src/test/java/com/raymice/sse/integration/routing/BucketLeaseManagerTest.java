@@ -0,0 +1,173 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.integration.routing;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.configuration.RedisConfiguration;
+import com.raymice.sse.integration.Containers;
+import com.raymice.sse.routing.read.BucketLeaseManager;
+import com.raymice.sse.routing.read.InboxStagingFeeder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Leases of the staging buckets between two nodes against the real Redis, each
+ * node with its own connection (closed to simulate a node which stops
+ * heartbeating)
+ */
+@Slf4j
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+public class BucketLeaseManagerTest {
+
+  private static final int BUCKETS = 4;
+  private static final Duration LEASE_TTL = Duration.ofSeconds(2);
+  private static final Duration HEARTBEAT = Duration.ofMillis(400);
+
+  @Autowired private RedisConfiguration redisConfiguration;
+  @Autowired private AutowireCapableBeanFactory beanFactory;
+  @Container private static final Containers containers = new Containers();
+
+  private final List<Node> nodes = new ArrayList<>();
+  private RedisConfiguration testRedisConfiguration;
+  private ApplicationConfig applicationConfig;
+
+  @BeforeEach
+  void beforeEach() {
+    // Keys of their own, apart from the other tests
+    testRedisConfiguration = new RedisConfiguration();
+    testRedisConfiguration.setHost(redisConfiguration.getHost());
+    testRedisConfiguration.setPort(redisConfiguration.getPort());
+    testRedisConfiguration.setTimeout(redisConfiguration.getTimeout());
+    testRedisConfiguration.setRepositoryName("bucket-lease-test-" + UUID.randomUUID());
+
+    applicationConfig = new ApplicationConfig();
+    final ApplicationConfig.Input input = applicationConfig.getRouting().getFile().getInput();
+    input.getStaging().setEnabled(true);
+    input.getStaging().setBuckets(BUCKETS);
+    input.getPartitioning().setEnabled(true);
+    input.getPartitioning().setLeaseTtl(LEASE_TTL);
+    input.getPartitioning().setHeartbeat(HEARTBEAT);
+  }
+
+  @AfterEach
+  void afterEach() {
+    for (Node node : nodes) {
+      beanFactory.destroyBean(node.manager());
+      if (node.connectionFactory().isRunning()) {
+        node.connectionFactory().destroy();
+      }
+    }
+    nodes.clear();
+  }
+
+  @Test
+  void buckets_AreLeasedToASingleNode() throws InterruptedException {
+    final Node first = start();
+    final Node second = start();
+
+    // Each node ends up with its share of the buckets
+    await(() -> owned(first).size() == BUCKETS / 2 && owned(second).size() == BUCKETS / 2);
+
+    // Never owned by both nodes, through several heartbeats
+    final LocalDateTime start = LocalDateTime.now();
+    while (Duration.between(start, LocalDateTime.now()).compareTo(LEASE_TTL) < 0) {
+      for (int bucket = 0; bucket < BUCKETS; bucket++) {
+        assertFalse(
+            first.manager().isOwned(bucket) && second.manager().isOwned(bucket),
+            "Bucket %d owned by both nodes".formatted(bucket));
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  void buckets_AreTakenOver_WhenANodeStopsHeartbeating() throws InterruptedException {
+    final Node first = start();
+    final Node lost = start();
+    await(() -> owned(first).size() == BUCKETS / 2 && owned(lost).size() == BUCKETS / 2);
+    final List<Integer> lostBuckets = owned(lost);
+
+    // The node loses Redis: its heartbeats fail from now on
+    lost.connectionFactory().destroy();
+
+    // Its local leases end before the ones in Redis
+    await(() -> owned(lost).isEmpty());
+    final RedisTemplate<String, String> redisTemplate = first.redisTemplate();
+    for (int bucket : lostBuckets) {
+      final Long ttl = redisTemplate.getExpire(bucketKey(bucket), TimeUnit.MILLISECONDS);
+      assertTrue(ttl != null && ttl > 0, "Lease of bucket %d already expired".formatted(bucket));
+    }
+
+    // Rebalanced to the live node once the membership and the leases expired
+    await(() -> owned(first).size() == BUCKETS);
+  }
+
+  private Node start() {
+    final LettuceConnectionFactory connectionFactory =
+        (LettuceConnectionFactory) testRedisConfiguration.redisConnectionFactory();
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+    final RedisTemplate<String, String> redisTemplate =
+        testRedisConfiguration.redisTemplate(connectionFactory);
+    redisTemplate.afterPropertiesSet();
+
+    final BucketLeaseManager manager =
+        new BucketLeaseManager(
+            applicationConfig, testRedisConfiguration, redisTemplate, new SimpleMeterRegistry());
+    // Lifecycle of a bean: starts the heartbeats, and releases the buckets on destroy
+    beanFactory.initializeBean(manager, "bucketLeaseManager-" + nodes.size());
+
+    final Node node = new Node(manager, redisTemplate, connectionFactory);
+    nodes.add(node);
+    return node;
+  }
+
+  private String bucketKey(int bucket) {
+    return testRedisConfiguration.getRepositoryName()
+        + ":buckets:"
+        + InboxStagingFeeder.bucketName(bucket);
+  }
+
+  private static List<Integer> owned(Node node) {
+    return IntStream.range(0, BUCKETS).filter(node.manager()::isOwned).boxed().toList();
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    final LocalDateTime start = LocalDateTime.now();
+    while (Duration.between(start, LocalDateTime.now()).toSeconds() < 20) {
+      if (condition.getAsBoolean()) {
+        return;
+      }
+      Thread.sleep(20);
+    }
+    throw new AssertionError("Leases not as expected in time");
+  }
+
+  private record Node(
+      BucketLeaseManager manager,
+      RedisTemplate<String, String> redisTemplate,
+      LettuceConnectionFactory connectionFactory) {}
+}
@@ -0,0 +1,127 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.integration.routing;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.integration.Containers;
+import com.raymice.sse.utils.ActiveMqUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoublePredicate;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.builder.RouteBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Autoscaling of the consumers on the embedded broker (its statisticsBrokerPlugin
+ * gives the depth of the queues), through a test queue whose route holds the
+ * messages until released
+ */
+@Slf4j
+@Testcontainers
+@SpringBootTest(
+    properties = {
+      "spring.data.activemq.autoscaling.enabled=true",
+      "spring.data.activemq.autoscaling.interval=500ms",
+      "spring.data.activemq.autoscaling.backlogPerConsumer=5",
+      "spring.data.activemq.autoscaling.maxLatency=1m",
+      "spring.data.activemq.concurrentConsumers=1",
+      "spring.data.activemq.maxConcurrentConsumers=4"
+    })
+@ActiveProfiles({"test", "embedded"})
+public class ConsumerAutoscalerTest {
+
+  private static final String QUEUE = "autoscaling-test";
+  private static final String ROUTE = "autoscalingTest";
+
+  // Held messages, released at the end of the scale up
+  private static final CountDownLatch RELEASE = new CountDownLatch(1);
+
+  @Autowired private ConnectionFactory connectionFactory;
+  @Autowired private MeterRegistry meterRegistry;
+  @Container private static final Containers containers = new Containers(false);
+
+  @TestConfiguration
+  static class AutoscaledRouteConfiguration {
+
+    @Bean
+    RouteBuilder autoscalingTestRoute() {
+      return new RouteBuilder() {
+        @Override
+        public void configure() {
+          // As the input routes when autoscaled: the container does not scale by itself
+          from(ActiveMqUtils.getQueueUri(QUEUE, 1))
+              .routeId(ROUTE)
+              .process(_ -> RELEASE.await(1, TimeUnit.MINUTES));
+        }
+      };
+    }
+  }
+
+  @Test
+  void consumers_AreScaledOnTheDepthOfTheQueue_ThenBackToTheMinimum() throws Exception {
+    send(30);
+
+    // 30 waiting messages, 5 per consumer: up to the maximum
+    awaitGauge("jms.queue.depth", depth -> depth > 0);
+    awaitGauge("jms.consumers.target", consumers -> consumers == 4);
+    assertTrue(scaling("up") > 0);
+
+    RELEASE.countDown();
+
+    // Queue drained: one consumer less per decision, down to the minimum
+    awaitGauge("jms.queue.depth", depth -> depth == 0);
+    awaitGauge("jms.consumers.target", consumers -> consumers == 1);
+    assertTrue(scaling("down") >= 3);
+  }
+
+  private void send(int count) throws JMSException {
+    try (Connection connection = connectionFactory.createConnection();
+        Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+        MessageProducer producer = session.createProducer(session.createQueue(QUEUE))) {
+      for (int i = 0; i < count; i++) {
+        producer.send(session.createTextMessage("message-" + i));
+      }
+      session.commit();
+    }
+  }
+
+  private void awaitGauge(String name, DoublePredicate condition) throws InterruptedException {
+    final LocalDateTime start = LocalDateTime.now();
+    while (Duration.between(start, LocalDateTime.now()).toSeconds() < 30) {
+      final Gauge gauge = meterRegistry.find(name).tag("route", ROUTE).gauge();
+      if (gauge != null && condition.test(gauge.value())) {
+        return;
+      }
+      Thread.sleep(100);
+    }
+    throw new AssertionError("Gauge %s of route %s not reached".formatted(name, ROUTE));
+  }
+
+  private double scaling(String direction) {
+    final Counter counter =
+        meterRegistry
+            .find("jms.consumers.scaling")
+            .tag("route", ROUTE)
+            .tag("direction", direction)
+            .counter();
+    return counter == null ? 0 : counter.count();
+  }
+}
@@ -0,0 +1,181 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.integration.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.raymice.sse.integration.Containers;
+import com.raymice.sse.routing.JmsBatchService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.QueueBrowser;
+import jakarta.jms.Session;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Transacted batch consumption against the real broker, through a test queue
+ * whose route fails once on the messages starting with 'fail' (a single
+ * consumer, so that the messages sent together make a single batch)
+ */
+@Slf4j
+@Testcontainers
+@SpringBootTest(
+    properties = {
+      "spring.data.activemq.batch.enabled=true",
+      "spring.data.activemq.batch.size=10",
+      "spring.data.activemq.batch.timeout=2s",
+      "spring.data.activemq.concurrentConsumers=1"
+    })
+@ActiveProfiles("test")
+public class JmsBatchServiceTest {
+
+  private static final String QUEUE = "batch-test";
+
+  // Number of times each message was processed by the route of the test queue
+  private static final Map<String, AtomicInteger> DELIVERIES = new ConcurrentHashMap<>();
+
+  @Autowired private ConnectionFactory connectionFactory;
+  @Autowired private MeterRegistry meterRegistry;
+  @Container private static final Containers containers = new Containers();
+
+  @TestConfiguration
+  static class BatchRouteConfiguration {
+
+    @Bean
+    RouteBuilder batchTestRoute(JmsBatchService jmsBatchService) {
+      return new RouteBuilder() {
+        @Override
+        public void configure() {
+          from(jmsBatchService.register(QUEUE))
+              .routeId("batchTest")
+              .process(JmsBatchServiceTest::process);
+        }
+      };
+    }
+  }
+
+  @BeforeEach
+  void beforeEach() {
+    DELIVERIES.clear();
+  }
+
+  @Test
+  void batch_IsCommitted_WhenEveryMessageIsProcessed() throws Exception {
+    final double rollbacks = rollbacks();
+    final List<String> messages = messages("ok", 5);
+
+    send(messages);
+
+    awaitDeliveries(messages);
+    messages.forEach(message -> assertEquals(1, DELIVERIES.get(message).get(), message));
+    assertEquals(rollbacks, rollbacks());
+    awaitEmptyQueue();
+  }
+
+  @Test
+  void batch_IsRolledBack_WhenAMessageFails_WithoutProcessingTheOthersAgain() throws Exception {
+    final double rollbacks = rollbacks();
+    final List<String> succeeding = messages("ok", 3);
+    final String failing = "fail-" + UUID.randomUUID();
+
+    send(List.of(succeeding.get(0), failing, succeeding.get(1), succeeding.get(2)));
+
+    // The failing message is redelivered with the whole batch, then processed again alone
+    awaitDeliveries(List.of(failing), 2);
+    awaitEmptyQueue();
+    assertEquals(rollbacks + 1, rollbacks());
+    succeeding.forEach(message -> assertEquals(1, DELIVERIES.get(message).get(), message));
+  }
+
+  private static void process(Exchange exchange) {
+    final String body = exchange.getIn().getBody(String.class);
+    final int delivery =
+        DELIVERIES.computeIfAbsent(body, _ -> new AtomicInteger()).incrementAndGet();
+    if (body.startsWith("fail") && delivery == 1) {
+      throw new IllegalStateException("Transient failure of " + body);
+    }
+  }
+
+  private static List<String> messages(String prefix, int count) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> "%s-%d-%s".formatted(prefix, i, UUID.randomUUID()))
+        .toList();
+  }
+
+  /**
+   * Send the messages in a single transaction, so that they are dispatched
+   * together
+   */
+  private void send(List<String> messages) throws JMSException {
+    try (Connection connection = connectionFactory.createConnection();
+        Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+        MessageProducer producer = session.createProducer(session.createQueue(QUEUE))) {
+      for (String message : messages) {
+        producer.send(session.createTextMessage(message));
+      }
+      session.commit();
+    }
+  }
+
+  private double rollbacks() {
+    final Counter counter = meterRegistry.find("jms.batch.rollbacks").tag("queue", QUEUE).counter();
+    return counter == null ? 0 : counter.count();
+  }
+
+  private void awaitDeliveries(List<String> messages) throws InterruptedException {
+    awaitDeliveries(messages, 1);
+  }
+
+  private void awaitDeliveries(List<String> messages, int count) throws InterruptedException {
+    final LocalDateTime start = LocalDateTime.now();
+    while (Duration.between(start, LocalDateTime.now()).toSeconds() < 30) {
+      if (messages.stream()
+          .allMatch(m -> DELIVERIES.containsKey(m) && DELIVERIES.get(m).get() >= count)) {
+        return;
+      }
+      Thread.sleep(100);
+    }
+    throw new AssertionError("Messages not processed %d times in time".formatted(count));
+  }
+
+  /**
+   * Wait until the messages are committed (removed from the queue)
+   */
+  private void awaitEmptyQueue() throws Exception {
+    final LocalDateTime start = LocalDateTime.now();
+    while (Duration.between(start, LocalDateTime.now()).toSeconds() < 30) {
+      try (Connection connection = connectionFactory.createConnection();
+          Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+          QueueBrowser browser = session.createBrowser(session.createQueue(QUEUE))) {
+        connection.start();
+        if (!browser.getEnumeration().hasMoreElements()) {
+          return;
+        }
+      }
+      Thread.sleep(100);
+    }
+    throw new AssertionError("Messages of queue '%s' not committed in time".formatted(QUEUE));
+  }
+}
@@ -0,0 +1,139 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.integration.routing;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.integration.Containers;
+import com.raymice.sse.routing.read.RedisReadLockRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Shared read lock of two nodes (two repositories with the same prefix)
+ * against the real Redis
+ */
+@Testcontainers
+@SpringBootTest
+@ActiveProfiles("test")
+public class RedisReadLockRepositoryTest {
+
+  private static final Duration TTL = Duration.ofSeconds(2);
+  private static final Duration REJECTED_TTL = Duration.ofSeconds(1);
+
+  @Autowired private RedisConnectionFactory redisConnectionFactory;
+  @Container private static final Containers containers = new Containers();
+
+  private final List<RedisReadLockRepository> repositories = new ArrayList<>();
+  private String repositoryName;
+  private StringRedisTemplate redisTemplate;
+
+  @BeforeEach
+  void beforeEach() {
+    // Keys of their own, apart from the file route
+    repositoryName = "read-lock-test-" + UUID.randomUUID();
+    redisTemplate = new StringRedisTemplate(redisConnectionFactory);
+  }
+
+  @AfterEach
+  void afterEach() {
+    repositories.forEach(RedisReadLockRepository::stop);
+    repositories.clear();
+  }
+
+  @Test
+  void add_LocksTheKeyForASingleNode() {
+    final RedisReadLockRepository first = start();
+    final RedisReadLockRepository second = start();
+
+    assertTrue(first.add("file.xml"));
+    assertFalse(second.add("file.xml"));
+    // Already owned by the node itself
+    assertFalse(first.add("file.xml"));
+    assertTrue(second.contains("file.xml"));
+  }
+
+  @Test
+  void add_DoesNotAskAgain_WhileTheKeyIsRejected() throws InterruptedException {
+    final RedisReadLockRepository first = start();
+    final RedisReadLockRepository second = start();
+    assertTrue(first.add("file.xml"));
+    assertFalse(second.add("file.xml"));
+
+    // Released by its owner, but still rejected by the near-cache of the other node
+    first.remove("file.xml");
+    await(() -> !redisTemplate.hasKey(redisKey("file.xml")));
+    assertFalse(second.add("file.xml"));
+
+    // Asked again once the rejection expired
+    Thread.sleep(REJECTED_TTL.toMillis());
+    assertTrue(second.add("file.xml"));
+  }
+
+  @Test
+  void remove_ReleasesTheKey_OnlyForItsOwner() throws InterruptedException {
+    final RedisReadLockRepository first = start();
+    final RedisReadLockRepository second = start();
+    assertTrue(first.add("file.xml"));
+
+    // Not owned by the node: the lock of the other one is kept
+    second.remove("file.xml");
+    Thread.sleep(500);
+    assertTrue(redisTemplate.hasKey(redisKey("file.xml")));
+    assertFalse(second.add("file.xml"));
+
+    first.remove("file.xml");
+    await(() -> !redisTemplate.hasKey(redisKey("file.xml")));
+  }
+
+  @Test
+  void add_LocksTheKeyAgain_OnceExpired() throws InterruptedException {
+    final RedisReadLockRepository first = start();
+    final RedisReadLockRepository second = start();
+    assertTrue(first.add("file.xml"));
+
+    final Long ttl = redisTemplate.getExpire(redisKey("file.xml"));
+    assertTrue(ttl != null && ttl > 0 && ttl <= TTL.toSeconds());
+
+    // Expired in Redis without being released (e.g. node lost)
+    await(() -> !redisTemplate.hasKey(redisKey("file.xml")));
+    assertTrue(second.add("file.xml"));
+  }
+
+  private RedisReadLockRepository start() {
+    final RedisReadLockRepository repository =
+        new RedisReadLockRepository(redisConnectionFactory, repositoryName, TTL, REJECTED_TTL);
+    repository.start();
+    repositories.add(repository);
+    return repository;
+  }
+
+  private String redisKey(String key) {
+    return repositoryName + ":" + key;
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    final LocalDateTime start = LocalDateTime.now();
+    while (Duration.between(start, LocalDateTime.now()).toSeconds() < 10) {
+      if (condition.getAsBoolean()) {
+        return;
+      }
+      Thread.sleep(20);
+    }
+    throw new AssertionError("Read lock not as expected in time");
+  }
+}
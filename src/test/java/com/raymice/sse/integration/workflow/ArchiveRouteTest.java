@@ -0,0 +1,189 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.integration.workflow;
+
+import static com.raymice.sse.TestingUtils.cleanDirectories;
+import static com.raymice.sse.TestingUtils.hasFileInDirectory;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.sevice.ProcessService;
+import com.raymice.sse.integration.Containers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Extraction of the archives by the file route: one process per entry, the
+ * archive fails with its entries and beyond the extraction limits
+ */
+@Slf4j
+@Testcontainers
+@SpringBootTest(
+    properties = {
+      "app.routing.file.input.archives.maxEntrySize=64KB",
+      "app.routing.file.input.archives.parallelism=2"
+    })
+@ActiveProfiles("test")
+@ExtendWith(OutputCaptureExtension.class)
+public class ArchiveRouteTest {
+
+  private static final Path VALID = Path.of("src/test/resources/mx/pacs.008.001.08.xml");
+  private static final Path MALFORMED = Path.of("src/test/resources/malformed.xml");
+
+  @Autowired private ApplicationConfig applicationConfig;
+  @Autowired private ProcessService processService;
+  @Container private static final Containers containers = new Containers();
+
+  @BeforeEach
+  void beforeEach() throws Exception {
+    log.info("🧹Cleaning up input and output directories before test");
+    cleanDirectories(
+        applicationConfig.getFileInputPath(),
+        applicationConfig.getFileOutputUnsupportedPath(),
+        applicationConfig.getFileOutputSuccessPath(),
+        applicationConfig.getFileOutputErrorPath());
+
+    log.info("Cleaning DB before test");
+    processService.deleteAll();
+  }
+
+  @Test
+  void archive_CreatesOneProcessPerEntry() throws Exception {
+    dropZip(
+        "batch.zip",
+        Map.of("a.xml", Files.readAllBytes(VALID), "b.xml", Files.readAllBytes(VALID)));
+
+    // The archive is completed once all its entries are
+    awaitStatus("batch.zip", ProcessEntity.Status.COMPLETED);
+    assertTrue(hasFileInDirectory(applicationConfig.getFileOutputSuccessPath(), 3));
+
+    final Map<String, ProcessEntity> processes = findAllByName();
+    assertEquals(3, processes.size());
+    final Long parentId = processes.get("batch.zip").getId();
+    assertEquals(parentId, processes.get("a.xml").getParentId());
+    assertEquals(parentId, processes.get("b.xml").getParentId());
+  }
+
+  @Test
+  void archives_AreAllCompleted_WhenMoreThanTheParallelism() throws Exception {
+    final byte[] valid = Files.readAllBytes(VALID);
+    // Each archive waits for its entries, which share the 2 slots of the route
+    for (int i = 0; i < 4; i++) {
+      final int archive = i;
+      dropZip(
+          "batch-%d.zip".formatted(archive),
+          IntStream.range(0, 3)
+              .boxed()
+              .collect(Collectors.toMap(e -> "e-%d-%d.xml".formatted(archive, e), _ -> valid)));
+    }
+
+    for (int i = 0; i < 4; i++) {
+      awaitStatus("batch-%d.zip".formatted(i), ProcessEntity.Status.COMPLETED);
+    }
+    assertEquals(16, findAllByName().size());
+  }
+
+  @Test
+  void archive_Fails_WhenOneOfItsEntriesFails() throws Exception {
+    dropZip(
+        "partial.zip",
+        Map.of(
+            "valid.xml",
+            Files.readAllBytes(VALID),
+            "malformed.xml",
+            Files.readAllBytes(MALFORMED)));
+
+    awaitStatus("partial.zip", ProcessEntity.Status.FAILED);
+
+    final Map<String, ProcessEntity> processes = findAllByName();
+    assertEquals(ProcessEntity.Status.FAILED, processes.get("malformed.xml").getStatus());
+    awaitStatus("valid.xml", ProcessEntity.Status.COMPLETED);
+    // The entry and the archive
+    assertTrue(hasFileInDirectory(applicationConfig.getFileOutputErrorPath(), 2));
+  }
+
+  @Test
+  void archive_Fails_WhenAnEntryIsTooLarge(CapturedOutput output) throws Exception {
+    dropZip("large.zip", Map.of("large.xml", "a".repeat(100 * 1024).getBytes()));
+
+    awaitStatus("large.zip", ProcessEntity.Status.FAILED);
+
+    assertEquals(1, findAllByName().size());
+    assertThat(output.getOut()).contains("Entry 'large.xml' larger than 65536 bytes");
+  }
+
+  @Test
+  void archive_Fails_WhenItExpandsTooMuch(CapturedOutput output) throws Exception {
+    final byte[] content = "0".repeat(60 * 1024).getBytes();
+    final Map<String, byte[]> entries =
+        IntStream.range(0, 40)
+            .boxed()
+            .collect(Collectors.toMap("bomb-%d.xml"::formatted, _ -> content));
+    dropZip("bomb.zip", entries);
+
+    awaitStatus("bomb.zip", ProcessEntity.Status.FAILED);
+
+    // Stopped after 1MB extracted
+    assertTrue(findAllByName().size() < 40);
+    assertThat(output.getOut()).contains("Archive expands more than 100 times");
+  }
+
+  /**
+   * Write the archive next to the input directory, then move it atomically
+   */
+  private void dropZip(String name, Map<String, byte[]> entries) throws IOException {
+    final Path tmp = Files.createTempFile("archive", ".zip");
+    try (OutputStream out = Files.newOutputStream(tmp);
+        ZipOutputStream zip = new ZipOutputStream(out)) {
+      for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+        zip.putNextEntry(new ZipEntry(entry.getKey()));
+        zip.write(entry.getValue());
+        zip.closeEntry();
+      }
+    }
+    final Path hidden = Path.of(applicationConfig.getFileInputPath(), "." + name);
+    Files.move(tmp, hidden, StandardCopyOption.REPLACE_EXISTING);
+    Files.move(hidden, hidden.resolveSibling(name), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private Map<String, ProcessEntity> findAllByName() {
+    return processService.findAll().stream()
+        .collect(Collectors.toMap(ProcessEntity::getName, Function.identity()));
+  }
+
+  private void awaitStatus(String name, ProcessEntity.Status status) throws InterruptedException {
+    final LocalDateTime start = LocalDateTime.now();
+    while (Duration.between(start, LocalDateTime.now()).toSeconds() < 30) {
+      final ProcessEntity process = findAllByName().get(name);
+      if (process != null && process.getStatus() == status) {
+        return;
+      }
+      Thread.sleep(100);
+    }
+    throw new AssertionError("Process '%s' not %s in time".formatted(name, status));
+  }
+}
@@ -0,0 +1,84 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.integration.workflow;
+
+import static com.raymice.sse.TestingUtils.cleanDirectories;
+import static com.raymice.sse.TestingUtils.copyFile;
+import static com.raymice.sse.TestingUtils.hasFileInDirectory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.db.entity.ProcessEntity;
+import com.raymice.sse.db.sevice.ProcessService;
+import com.raymice.sse.integration.Containers;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Smoke test of the embedded broker (profile 'embedded'): a file goes through
+ * the whole workflow without the ActiveMQ container
+ */
+@Slf4j
+@Testcontainers
+@SpringBootTest()
+@ActiveProfiles({"test", "embedded"})
+public class EmbeddedBrokerTest {
+
+  @Autowired private ApplicationConfig applicationConfig;
+  @Autowired private ProcessService processService;
+  @Autowired private BrokerService embeddedBroker;
+  @Container private static final Containers containers = new Containers(false);
+
+  @BeforeEach
+  void beforeEach() throws Exception {
+    log.info("🧹Cleaning up input and output directories before test");
+    cleanDirectories(
+        applicationConfig.getFileInputPath(),
+        applicationConfig.getFileOutputUnsupportedPath(),
+        applicationConfig.getFileOutputSuccessPath(),
+        applicationConfig.getFileOutputErrorPath());
+
+    log.info("Cleaning DB before test");
+    processService.deleteAll();
+  }
+
+  @Test
+  void processesPacs00800108_throughTheEmbeddedBroker() throws Exception {
+    final String inputFileName = "pacs.008.001.08.xml";
+    final String testFilePath = "src/test/resources/mx/%s".formatted(inputFileName);
+    final String inputFilePath =
+        "%s/%s".formatted(applicationConfig.getFileInputPath(), inputFileName);
+
+    // Copy of the input file to the input directory will trigger the Camel route
+    copyFile(testFilePath, inputFilePath);
+
+    // Assert that the file is moved to the success directory (end of processing)
+    assertTrue(hasFileInDirectory(applicationConfig.getFileOutputSuccessPath(), 1));
+
+    // Assert the process status is set to COMPLETED in database
+    final List<ProcessEntity> processEntities = processService.findAll();
+    assertEquals(1, processEntities.size());
+    assertEquals(ProcessEntity.Status.COMPLETED, processEntities.getFirst().getStatus());
+
+    // Assert the message went through the queues of the embedded broker
+    assertTrue(embeddedBroker.isStarted());
+    final ActiveMQQueue validatorQueue =
+        new ActiveMQQueue(applicationConfig.getQueueValidatorName());
+    assertEquals(
+        1,
+        embeddedBroker
+            .getDestination(validatorQueue)
+            .getDestinationStatistics()
+            .getEnqueues()
+            .getCount());
+  }
+}
@@ -3,6 +3,8 @@ package com.raymice.sse.integration.workflow;
 
 import static com.raymice.sse.TestingUtils.cleanDirectories;
 import static com.raymice.sse.TestingUtils.copyFile;
+import static com.raymice.sse.TestingUtils.countFilesInDirectory;
+import static com.raymice.sse.TestingUtils.getFileInDirectory;
 import static com.raymice.sse.TestingUtils.hasFileInDirectory;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -21,6 +23,9 @@ import com.raymice.sse.exception.MalformedXmlException;
 import com.raymice.sse.integration.Containers;
 import com.raymice.sse.routing.read.FileRoute;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -128,6 +133,43 @@ public class End2EndTest {
     assertStatusInDatabase(ProcessEntity.Status.COMPLETED, 1);
   }
 
+  @Test
+  void fileWithoutLineBreaks_isMovedAsReceived() throws Exception {
+
+    final String inputWorkflowPath = applicationConfig.getFileInputPath();
+    final String outputSuccessPath = applicationConfig.getFileOutputSuccessPath();
+    final String content =
+        Files.readString(Path.of("src/test/resources/mx/pacs.008.001.08.xml"))
+            .replaceAll("\\R", "");
+
+    // Processed payload identical to the received file: zero copy
+    writeAtomically(Path.of(inputWorkflowPath, "single-line.xml"), content);
+
+    assertTrue(hasFileInDirectory(outputSuccessPath, 1));
+    assertEquals(
+        content, Files.readString(getFileInDirectory(outputSuccessPath).orElseThrow().toPath()));
+    assertEquals(0, countFilesInDirectory(applicationConfig.getFileStagedPath()));
+    assertStatusInDatabase(ProcessEntity.Status.COMPLETED, 1);
+  }
+
+  @Test
+  void fileWithLineBreaks_isWrittenAsProcessed() throws Exception {
+
+    final String inputWorkflowPath = applicationConfig.getFileInputPath();
+    final String outputSuccessPath = applicationConfig.getFileOutputSuccessPath();
+    final String content = Files.readString(Path.of("src/test/resources/mx/pacs.008.001.08.xml"));
+
+    // Line breaks stripped by the processing: the payload is written instead
+    writeAtomically(Path.of(inputWorkflowPath, "multi-line.xml"), content);
+
+    assertTrue(hasFileInDirectory(outputSuccessPath, 1));
+    assertEquals(
+        content.replaceAll("\\R", ""),
+        Files.readString(getFileInDirectory(outputSuccessPath).orElseThrow().toPath()));
+    assertEquals(0, countFilesInDirectory(applicationConfig.getFileStagedPath()));
+    assertStatusInDatabase(ProcessEntity.Status.COMPLETED, 1);
+  }
+
   // @Test
   // void processBatchOfFiles_movesAllFilesToSuccessDirectory() throws Exception {
   // final String inputWorkflowPath = applicationConfig.getFileInputPath();
@@ -269,6 +311,16 @@ public class End2EndTest {
     assertThat(matcher.find());
   }
 
+  /**
+   * Writes a file to a hidden temporary file first, then moves it, so that the
+   * route never reads it partially written.
+   */
+  private static void writeAtomically(Path file, String content) throws IOException {
+    final Path tmp = file.resolveSibling("." + file.getFileName() + ".tmp");
+    Files.writeString(tmp, content);
+    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+  }
+
   /**
    * Opens a Docker client with default configuration.
    *
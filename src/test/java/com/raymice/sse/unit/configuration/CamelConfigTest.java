@@ -0,0 +1,55 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.configuration.CamelConfig;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class CamelConfigTest {
+
+  private static ValidatorFactory factory;
+  private static Validator validator;
+
+  @BeforeAll
+  static void beforeAll() {
+    factory = Validation.buildDefaultValidatorFactory();
+    validator = factory.getValidator();
+  }
+
+  @AfterAll
+  static void afterAll() {
+    factory.close();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"UTF-8", "utf8"})
+  void fileProcessor_IsValid_WhenTheCharsetIsUtf8(String charset) {
+    assertTrue(validate(charset).isEmpty());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"ISO-8859-1", "UTF-16", "unknown"})
+  void fileProcessor_IsRejected_WhenTheCharsetIsNotUtf8(String charset) {
+    final List<String> properties =
+        validate(charset).stream().map(v -> v.getPropertyPath().toString()).toList();
+
+    assertEquals(List.of("utf8Charset"), properties);
+  }
+
+  private static Set<ConstraintViolation<CamelConfig.FileProcessor>> validate(String charset) {
+    final CamelConfig.FileProcessor fileProcessor = new CamelConfig.FileProcessor();
+    fileProcessor.setCharset(charset);
+    return validator.validate(fileProcessor);
+  }
+}
@@ -0,0 +1,109 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.db.batch.GroupCommitExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class GroupCommitExecutorTest {
+
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void submit_GroupsConcurrentItems_InSingleBatch() throws Exception {
+    List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    try (GroupCommitExecutor<Integer, Integer> executor =
+        new GroupCommitExecutor<>(
+            "test",
+            10,
+            Duration.ofMillis(200),
+            items -> {
+              batchSizes.add(items.size());
+              return items.stream().map(i -> i * 2).toList();
+            },
+            registry)) {
+
+      List<CompletableFuture<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        futures.add(executor.submit(i));
+      }
+
+      for (int i = 0; i < 5; i++) {
+        assertEquals(i * 2, futures.get(i).join());
+      }
+    }
+
+    assertEquals(List.of(5), batchSizes);
+    assertEquals(1, registry.get("db.batch.size").summary().count());
+  }
+
+  @Test
+  void submit_SplitsItems_WhenMaxBatchSizeIsReached() throws Exception {
+    List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    try (GroupCommitExecutor<Integer, Integer> executor =
+        new GroupCommitExecutor<>(
+            "test",
+            2,
+            Duration.ofMillis(200),
+            items -> {
+              batchSizes.add(items.size());
+              return items;
+            },
+            registry)) {
+
+      List<CompletableFuture<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        futures.add(executor.submit(i));
+      }
+      futures.forEach(CompletableFuture::join);
+    }
+
+    assertTrue(batchSizes.stream().allMatch(size -> size <= 2));
+    assertEquals(5, batchSizes.stream().mapToInt(Integer::intValue).sum());
+  }
+
+  @Test
+  void execute_FailsOnlyInvalidItem_WhenBatchFails() throws Exception {
+    try (GroupCommitExecutor<Integer, Integer> executor =
+        new GroupCommitExecutor<>(
+            "test",
+            10,
+            Duration.ofMillis(200),
+            items -> {
+              if (items.contains(-1)) {
+                throw new IllegalArgumentException("Invalid item");
+              }
+              return items;
+            },
+            registry)) {
+
+      CompletableFuture<Integer> valid = executor.submit(1);
+      CompletableFuture<Integer> invalid = executor.submit(-1);
+
+      assertEquals(1, valid.join());
+      assertThrows(IllegalArgumentException.class, () -> executor.execute(-1));
+      assertTrue(invalid.isCompletedExceptionally());
+    }
+  }
+
+  @Test
+  void submit_Fails_WhenExecutorIsClosed() throws Exception {
+    GroupCommitExecutor<Integer, Integer> executor =
+        new GroupCommitExecutor<>("test", 10, Duration.ofMillis(5), items -> items, registry);
+    executor.close();
+
+    assertTrue(executor.submit(1).isCompletedExceptionally());
+  }
+}
@@ -0,0 +1,44 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.db.entity.ProcessEntity.Status;
+import java.util.EnumSet;
+import org.junit.jupiter.api.Test;
+
+class ProcessStatusTest {
+
+  @Test
+  void predecessors_AreEmpty_ForCreated() {
+    assertTrue(Status.CREATED.predecessors().isEmpty());
+  }
+
+  @Test
+  void predecessors_ArePreviousStatuses() {
+    assertEquals(EnumSet.of(Status.CREATED), Status.VALIDATED.predecessors());
+    assertEquals(EnumSet.of(Status.CREATED, Status.VALIDATED), Status.COMPLETED.predecessors());
+  }
+
+  @Test
+  void predecessors_AreAllOtherStatuses_ForFailed() {
+    assertEquals(
+        EnumSet.complementOf(EnumSet.of(Status.FAILED, Status.DUPLICATE)),
+        Status.FAILED.predecessors());
+  }
+
+  @Test
+  void predecessors_AreCreatedOnly_ForDuplicate() {
+    assertEquals(EnumSet.of(Status.CREATED), Status.DUPLICATE.predecessors());
+    assertFalse(Status.FAILED.predecessors().contains(Status.DUPLICATE));
+  }
+
+  @Test
+  void predecessors_NeverContainTheStatusItself() {
+    for (Status status : Status.values()) {
+      assertFalse(status.predecessors().contains(status));
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.routing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.routing.JmsPayloadConverter;
+import jakarta.jms.BytesMessage;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQMessage;
+import org.apache.activemq.command.ActiveMQTextMessage;
+import org.apache.camel.component.file.GenericFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JmsPayloadConverterTest {
+
+  private static final String XML = "<Document>" + "<Amt>100.00</Amt>".repeat(500) + "</Document>";
+
+  // Session creating the ActiveMQ messages, no broker involved
+  private static final Session session =
+      (Session)
+          Proxy.newProxyInstance(
+              Session.class.getClassLoader(),
+              new Class<?>[] {Session.class},
+              (_, method, _) ->
+                  switch (method.getName()) {
+                    case "createBytesMessage" -> new ActiveMQBytesMessage();
+                    case "createMessage" -> new ActiveMQMessage();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                  });
+
+  @Test
+  void toMessage_SendsUtf8Bytes_BelowThreshold() throws JMSException {
+    final JmsPayloadConverter converter = new JmsPayloadConverter(true, Long.MAX_VALUE);
+
+    final Message message = converter.toMessage(XML, session);
+
+    assertInstanceOf(BytesMessage.class, message);
+    assertNull(message.getStringProperty(JmsPayloadConverter.CODEC_PROPERTY));
+    assertArrayEquals(XML.getBytes(StandardCharsets.UTF_8), read(converter, message));
+  }
+
+  @Test
+  void toMessage_CompressesPayload_AboveThreshold() throws JMSException {
+    final JmsPayloadConverter converter = new JmsPayloadConverter(true, 1024);
+    final byte[] payload = XML.getBytes(StandardCharsets.UTF_8);
+
+    final Message message = converter.toMessage(payload, session);
+    ((ActiveMQBytesMessage) message).reset();
+
+    assertEquals("DEFLATE", message.getStringProperty(JmsPayloadConverter.CODEC_PROPERTY));
+    assertTrue(((BytesMessage) message).getBodyLength() < payload.length);
+    assertArrayEquals(payload, (byte[]) converter.fromMessage(message));
+  }
+
+  @Test
+  void toMessage_DoesNotCompress_WhenDisabled() throws JMSException {
+    final JmsPayloadConverter converter = new JmsPayloadConverter(false, 0);
+
+    final Message message = converter.toMessage(XML, session);
+
+    assertNull(message.getStringProperty(JmsPayloadConverter.CODEC_PROPERTY));
+    assertArrayEquals(XML.getBytes(StandardCharsets.UTF_8), read(converter, message));
+  }
+
+  @Test
+  void toMessage_SendsHeadersOnly_WithoutBody() throws JMSException {
+    final JmsPayloadConverter converter = new JmsPayloadConverter(true, 0);
+
+    final Message message = converter.toMessage(null, session);
+
+    assertEquals(ActiveMQMessage.class, message.getClass());
+    assertNull(converter.fromMessage(message));
+  }
+
+  @Test
+  void toMessage_SendsFileBytes_ForReceivedFile(@TempDir Path dir)
+      throws JMSException, IOException {
+    final JmsPayloadConverter converter = new JmsPayloadConverter(true, Long.MAX_VALUE);
+    final Path path = Files.writeString(dir.resolve("received.xml"), XML);
+    // Body of a received file sent to the dead letter queue, not serializable
+    final GenericFile<File> file = new GenericFile<>();
+    file.setFile(path.toFile());
+
+    final Message message = converter.toMessage(file, session);
+
+    assertInstanceOf(BytesMessage.class, message);
+    assertArrayEquals(XML.getBytes(StandardCharsets.UTF_8), read(converter, message));
+  }
+
+  @Test
+  void toMessage_SendsStreamBytes() throws JMSException {
+    final JmsPayloadConverter converter = new JmsPayloadConverter(true, Long.MAX_VALUE);
+    final byte[] payload = XML.getBytes(StandardCharsets.UTF_8);
+
+    final Message message = converter.toMessage(new ByteArrayInputStream(payload), session);
+
+    assertArrayEquals(payload, read(converter, message));
+  }
+
+  @Test
+  void fromMessage_ReturnsText_ForTextMessage() throws JMSException {
+    final JmsPayloadConverter converter = new JmsPayloadConverter(true, 0);
+    final ActiveMQTextMessage message = new ActiveMQTextMessage();
+    message.setText(XML);
+
+    assertEquals(XML, converter.fromMessage(message));
+  }
+
+  private static byte[] read(JmsPayloadConverter converter, Message message) throws JMSException {
+    ((ActiveMQBytesMessage) message).reset();
+    return (byte[]) converter.fromMessage(message);
+  }
+}
@@ -0,0 +1,128 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.routing.read;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.routing.read.BundleEntryLimiter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BundleEntryLimiterTest {
+
+  private static final int PARALLELISM = 2;
+  private static final int BUNDLES = 5;
+  private static final int ENTRIES = 20;
+
+  private final ExecutorService virtualThreadPool = Executors.newVirtualThreadPerTaskExecutor();
+  private final AtomicInteger read = new AtomicInteger();
+  private final AtomicInteger done = new AtomicInteger();
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger peakRunning = new AtomicInteger();
+  private final AtomicInteger peakInProgress = new AtomicInteger();
+  private DefaultCamelContext context;
+
+  @BeforeEach
+  void beforeEach() throws Exception {
+    final BundleEntryLimiter limiter = new BundleEntryLimiter(PARALLELISM);
+
+    context = new DefaultCamelContext();
+    context.addRoutes(
+        new RouteBuilder() {
+          @Override
+          public void configure() {
+            // Failed entries are handled, the other ones go on
+            onException(IllegalStateException.class).handled(true);
+
+            from("direct:bundle")
+                .split(limiter.limit(method(BundleEntryLimiterTest.this, "entries")))
+                .streaming()
+                .parallelProcessing()
+                .executorService(virtualThreadPool)
+                .process(limiter::hold)
+                .process(BundleEntryLimiterTest.this::process)
+                .end();
+          }
+        });
+    context.start();
+  }
+
+  @AfterEach
+  void afterEach() {
+    context.stop();
+    virtualThreadPool.close();
+  }
+
+  @Test
+  void entries_AreLimited_ForAllTheBundlesTogether() {
+    final ProducerTemplate producer = context.createProducerTemplate();
+
+    // More bundles than slots: each one waits for its entries
+    final List<CompletableFuture<Exchange>> bundles =
+        IntStream.range(0, BUNDLES)
+            .mapToObj(
+                bundle ->
+                    producer.asyncSend(
+                        "direct:bundle",
+                        e -> e.getIn().setBody(IntStream.range(0, ENTRIES).boxed().toList())))
+            .toList();
+    bundles.forEach(bundle -> bundle.orTimeout(30, TimeUnit.SECONDS).join());
+
+    assertEquals(BUNDLES * ENTRIES, done.get());
+    assertEquals(PARALLELISM, peakRunning.get());
+    // Entries read but not done
+    assertTrue(peakInProgress.get() <= PARALLELISM, "Peak in progress: " + peakInProgress);
+  }
+
+  @Test
+  void limiter_RequiresOneSlot() {
+    assertThrows(IllegalArgumentException.class, () -> new BundleEntryLimiter(0));
+  }
+
+  /**
+   * Entries of a bundle, counted when read
+   */
+  public Iterator<Integer> entries(List<Integer> body) {
+    final Iterator<Integer> entries = body.iterator();
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public Integer next() {
+        peakInProgress.accumulateAndGet(read.incrementAndGet() - done.get(), Math::max);
+        return entries.next();
+      }
+    };
+  }
+
+  private void process(Exchange exchange) throws InterruptedException {
+    peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+    try {
+      Thread.sleep(5);
+      // Slots of the failed entries are given back as well
+      if (exchange.getIn().getBody(Integer.class) % 7 == 0) {
+        throw new IllegalStateException("Entry failed");
+      }
+    } finally {
+      running.decrementAndGet();
+      done.incrementAndGet();
+    }
+  }
+}
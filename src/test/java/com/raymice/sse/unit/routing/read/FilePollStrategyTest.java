@@ -0,0 +1,77 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.routing.read;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.routing.read.FilePollStrategy;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import org.apache.camel.Endpoint;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FilePollStrategyTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final FilePollStrategy strategy = new FilePollStrategy(meterRegistry);
+  private DefaultCamelContext context;
+  private Endpoint endpoint;
+
+  @BeforeEach
+  void beforeEach() {
+    context = new DefaultCamelContext();
+    endpoint = context.getEndpoint("file:/tmp/poll-strategy-test");
+  }
+
+  @AfterEach
+  void afterEach() {
+    context.stop();
+  }
+
+  @Test
+  void commit_RecordsThePollAndItsMessages() {
+    assertTrue(strategy.begin(null, endpoint));
+    strategy.commit(null, endpoint, 7);
+
+    assertTrue(strategy.begin(null, endpoint));
+    strategy.commit(null, endpoint, 3);
+
+    assertEquals(2, pollTimer().count());
+    final DistributionSummary messages = meterRegistry.get("file.poll.messages").summary();
+    assertEquals(2, messages.count());
+    assertEquals(10, messages.totalAmount());
+    assertEquals(7, messages.max());
+  }
+
+  @Test
+  void rollback_RecordsThePoll_WithoutRetry() {
+    assertTrue(strategy.begin(null, endpoint));
+
+    assertFalse(strategy.rollback(null, endpoint, 0, new IOException("Directory not readable")));
+
+    assertEquals(1, pollTimer().count());
+    assertEquals(0, meterRegistry.get("file.poll.messages").summary().count());
+  }
+
+  @Test
+  void commit_IsIgnoredByTheTimer_WithoutBegin() {
+    strategy.commit(null, endpoint, 0);
+
+    assertEquals(0, pollTimer().count());
+    // Poll already stopped: the rollback does not record it twice
+    assertTrue(strategy.begin(null, endpoint));
+    strategy.commit(null, endpoint, 1);
+    strategy.rollback(null, endpoint, 0, new IOException("After commit"));
+    assertEquals(1, pollTimer().count());
+  }
+
+  private Timer pollTimer() {
+    return meterRegistry.get("file.poll").timer();
+  }
+}
@@ -0,0 +1,115 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.routing.read;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.raymice.sse.configuration.CamelConfig;
+import com.raymice.sse.routing.read.FileWatchScheduler;
+import com.raymice.sse.routing.read.WatchFileComponent;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.file.GenericFileFilter;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileWatchSchedulerTest {
+
+  @TempDir Path inbox;
+
+  private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+  private final List<String> examined = new CopyOnWriteArrayList<>();
+  private DefaultCamelContext context;
+
+  @BeforeEach
+  void beforeEach() throws Exception {
+    final CamelConfig camelConfig = new CamelConfig();
+    // Reconciliation far away: only the events can trigger the polls during a test
+    camelConfig.getFileProcessor().setReconcileInterval((int) TimeUnit.MINUTES.toMillis(10));
+
+    context = new DefaultCamelContext();
+    context.addComponent(WatchFileComponent.SCHEME, new WatchFileComponent());
+    context.getRegistry().bind("fileWatchScheduler", new FileWatchScheduler(camelConfig));
+    context
+        .getRegistry()
+        .bind(
+            "examinedFilter",
+            (GenericFileFilter<Object>)
+                file -> {
+                  examined.add(file.getFileName());
+                  return true;
+                });
+    context.addRoutes(
+        new RouteBuilder() {
+          @Override
+          public void configure() {
+            from("watchfile:%s?recursive=true&noop=true&filter=#examinedFilter&scheduler=#fileWatchScheduler"
+                    .formatted(inbox))
+                .process(e -> received.add(e.getIn().getHeader(Exchange.FILE_NAME, String.class)));
+          }
+        });
+    context.start();
+
+    // First reconciliation of the empty inbox
+    Thread.sleep(200);
+  }
+
+  @AfterEach
+  void afterEach() {
+    context.stop();
+  }
+
+  @Test
+  void notifiedFile_IsConsumed_WithoutReconciliation() throws Exception {
+    Files.writeString(inbox.resolve("first.xml"), "<Document/>");
+
+    assertEquals("first.xml", received.poll(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void notifiedFile_IsExamined_WithoutListingTheOtherFiles() throws Exception {
+    // Written atomically (single event per file)
+    moveToInbox("first.xml");
+    assertEquals("first.xml", received.poll(10, TimeUnit.SECONDS));
+
+    moveToInbox("second.xml");
+    assertEquals("second.xml", received.poll(10, TimeUnit.SECONDS));
+
+    // The first file, still there (noop), is not examined again by the second poll
+    assertEquals(1, examined.stream().filter("first.xml"::equals).count());
+  }
+
+  @Test
+  void fileOfCreatedDirectory_IsConsumed_WithoutReconciliation() throws Exception {
+    final Path bucket = Files.createDirectory(inbox.resolve("bucket"));
+    Files.writeString(bucket.resolve("second.xml"), "<Document/>");
+
+    assertEquals("bucket/second.xml", received.poll(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void fileOfHiddenDirectory_IsIgnored() throws Exception {
+    final Path hidden = Files.createDirectory(inbox.resolve(".hidden"));
+    Files.writeString(hidden.resolve("ignored.xml"), "<Document/>");
+    Files.writeString(inbox.resolve("third.xml"), "<Document/>");
+
+    assertEquals("third.xml", received.poll(10, TimeUnit.SECONDS));
+    assertEquals(null, received.poll(500, TimeUnit.MILLISECONDS));
+  }
+
+  private void moveToInbox(String fileName) throws Exception {
+    final Path temp = Files.createDirectories(inbox.resolve(".tmp")).resolve(fileName);
+    Files.writeString(temp, "<Document/>");
+    Files.move(temp, inbox.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+  }
+}
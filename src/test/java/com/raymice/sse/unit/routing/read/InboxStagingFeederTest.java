@@ -0,0 +1,190 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.routing.read;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.configuration.ApplicationConfig;
+import com.raymice.sse.routing.read.InboxStagingFeeder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+class InboxStagingFeederTest {
+
+  @TempDir Path inbox;
+
+  private final ApplicationConfig applicationConfig = new ApplicationConfig();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private AnnotationConfigApplicationContext context;
+  private InboxStagingFeeder feeder;
+  private ApplicationConfig.Staging staging;
+  private Path stagingPath;
+
+  @BeforeEach
+  void beforeEach() {
+    applicationConfig.getRouting().getFile().getInput().setPath(inbox.toUri());
+    staging = applicationConfig.getRouting().getFile().getInput().getStaging();
+    staging.setEnabled(true);
+    // Only the first cycle is scheduled during a test, the next ones are run by the tests
+    staging.setInterval(Duration.ofHours(1));
+    staging.setMinAge(Duration.ZERO);
+    stagingPath = Path.of(applicationConfig.getFileConsumerPath());
+  }
+
+  @AfterEach
+  void afterEach() {
+    if (context != null) {
+      context.close();
+    }
+  }
+
+  @Test
+  void recentFile_IsLeftInTheInbox_UntilMinAge() throws Exception {
+    staging.setMinAge(Duration.ofMinutes(10));
+    write("old.xml", Duration.ofHours(1));
+    write("recent.xml", Duration.ZERO);
+
+    start();
+
+    assertTrue(Files.exists(stagingPath.resolve("old.xml")));
+    assertTrue(Files.exists(inbox.resolve("recent.xml")));
+    assertFalse(Files.exists(stagingPath.resolve("recent.xml")));
+    // Still seen by the walk
+    assertEquals(2, gauge("file.inbox.backlog"));
+  }
+
+  @Test
+  void file_IsStagedInItsHashedBucket() throws Exception {
+    staging.setBuckets(4);
+    final String[] names = {"a.xml", "b.xml", "c.xml", "d.xml", "e.xml", "f.xml"};
+    for (String name : names) {
+      write(name, Duration.ZERO);
+    }
+
+    start();
+
+    for (String name : names) {
+      final String bucket = InboxStagingFeeder.bucketName(Math.floorMod(name.hashCode(), 4));
+      assertTrue(Files.exists(stagingPath.resolve(bucket).resolve(name)), name);
+    }
+    assertEquals(names.length, gauge("file.inbox.staged"));
+  }
+
+  @Test
+  void walk_ResumesWhereThePreviousCycleStopped() throws Exception {
+    staging.setBatchSize(2);
+    for (int i = 0; i < 5; i++) {
+      write("file-%d.xml".formatted(i), Duration.ZERO);
+    }
+
+    start();
+    assertEquals(2, countStaged());
+    // Walk not complete yet
+    assertEquals(0, gauge("file.inbox.backlog"));
+
+    feeder.feed();
+    assertEquals(4, countStaged());
+
+    feeder.feed();
+    assertEquals(5, countStaged());
+    // All the files were seen by a single walk: the cursor was kept between the cycles
+    assertEquals(5, gauge("file.inbox.backlog"));
+  }
+
+  @Test
+  void stagingDirectory_IsBoundedByMaxFiles() throws Exception {
+    staging.setMaxFiles(3);
+    for (int i = 0; i < 5; i++) {
+      write("file-%d.xml".formatted(i), Duration.ZERO);
+    }
+
+    start();
+    assertEquals(3, countStaged());
+
+    // Full: nothing moved until the file consumer takes some files
+    feeder.feed();
+    assertEquals(3, countStaged());
+    assertEquals(2, countInbox());
+
+    try (Stream<Path> files = Files.list(stagingPath)) {
+      Files.delete(files.findFirst().orElseThrow());
+    }
+    feeder.feed();
+    assertEquals(3, countStaged());
+    assertEquals(1, countInbox());
+    assertEquals(3, gauge("file.inbox.staged"));
+  }
+
+  @Test
+  void file_IsKeptInTheInbox_WhenTheSameNameIsAlreadyStaged() throws Exception {
+    Files.createDirectories(stagingPath);
+    Files.writeString(stagingPath.resolve("same.xml"), "<Staged/>");
+    write("same.xml", Duration.ZERO);
+    write("other.xml", Duration.ZERO);
+
+    start();
+
+    assertEquals("<Staged/>", Files.readString(stagingPath.resolve("same.xml")));
+    assertTrue(Files.exists(inbox.resolve("same.xml")));
+    assertTrue(Files.exists(stagingPath.resolve("other.xml")));
+
+    // Staged on a next walk, once the file consumer took the previous one
+    Files.delete(stagingPath.resolve("same.xml"));
+    feeder.feed();
+    assertEquals("<Document/>", Files.readString(stagingPath.resolve("same.xml")));
+  }
+
+  /**
+   * Starts the feeder and waits for its first cycle
+   */
+  private void start() throws InterruptedException {
+    context = new AnnotationConfigApplicationContext();
+    context.registerBean(
+        InboxStagingFeeder.class, () -> new InboxStagingFeeder(applicationConfig, meterRegistry));
+    context.refresh();
+    feeder = context.getBean(InboxStagingFeeder.class);
+
+    final LocalDateTime start = LocalDateTime.now();
+    while (Duration.between(start, LocalDateTime.now()).toSeconds() < 10) {
+      if (meterRegistry.timer("file.inbox.scan").count() > 0) {
+        return;
+      }
+      Thread.sleep(10);
+    }
+    throw new AssertionError("First cycle of the feeder not run");
+  }
+
+  private void write(String name, Duration age) throws IOException {
+    final Path file = Files.writeString(inbox.resolve(name), "<Document/>");
+    Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+  }
+
+  private double gauge(String name) {
+    return meterRegistry.get(name).gauge().value();
+  }
+
+  private long countInbox() throws IOException {
+    try (Stream<Path> files = Files.list(inbox)) {
+      return files.filter(Files::isRegularFile).count();
+    }
+  }
+
+  private long countStaged() throws IOException {
+    try (Stream<Path> files = Files.walk(stagingPath)) {
+      return files.filter(Files::isRegularFile).count();
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.routing.scaling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.configuration.ActiveMQConfig;
+import com.raymice.sse.routing.scaling.QueueStatisticsProbe;
+import jakarta.jms.Connection;
+import jakarta.jms.JMSException;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Session;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerPlugin;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.plugin.StatisticsBrokerPlugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class QueueStatisticsProbeTest {
+
+  private final ActiveMQConfig activeMQConfig = new ActiveMQConfig();
+  private BrokerService broker;
+  private ActiveMQConnectionFactory connectionFactory;
+
+  @AfterEach
+  void afterEach() throws Exception {
+    broker.stop();
+    broker.waitUntilStopped();
+  }
+
+  @Test
+  void getDepth_ReturnsTheMessagesWaitingInTheQueue() throws Exception {
+    start(true);
+    final QueueStatisticsProbe probe = new QueueStatisticsProbe(connectionFactory, activeMQConfig);
+    send("depth-test", 3);
+
+    assertEquals(OptionalLong.of(3), probe.getDepth("depth-test"));
+  }
+
+  @Test
+  void getDepth_DoesNotWaitAgain_WhenTheBrokerDidNotAnswer() throws Exception {
+    activeMQConfig.getAutoscaling().setStatisticsTimeout(Duration.ofMillis(500));
+    start(false);
+    final QueueStatisticsProbe probe = new QueueStatisticsProbe(connectionFactory, activeMQConfig);
+
+    assertTrue(probe.getDepth("depth-test").isEmpty());
+
+    // Unavailable for 'statisticsRetry': no request, no timeout
+    final long start = System.nanoTime();
+    assertTrue(probe.getDepth("depth-test").isEmpty());
+    assertTrue(probe.getDepth("other-test").isEmpty());
+    assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 500);
+  }
+
+  @Test
+  void getDepth_AsksAgain_AfterTheRetryDelay() throws Exception {
+    activeMQConfig.getAutoscaling().setStatisticsTimeout(Duration.ofMillis(500));
+    activeMQConfig.getAutoscaling().setStatisticsRetry(Duration.ZERO);
+    start(false);
+    final QueueStatisticsProbe probe = new QueueStatisticsProbe(connectionFactory, activeMQConfig);
+
+    final long start = System.nanoTime();
+    assertTrue(probe.getDepth("depth-test").isEmpty());
+    assertTrue(probe.getDepth("depth-test").isEmpty());
+    assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 1000);
+  }
+
+  private void start(boolean statistics) throws Exception {
+    final String name = "probe-" + UUID.randomUUID();
+    broker = new BrokerService();
+    broker.setBrokerName(name);
+    broker.setPersistent(false);
+    broker.setUseJmx(false);
+    broker.setUseShutdownHook(false);
+    if (statistics) {
+      broker.setPlugins(new BrokerPlugin[] {new StatisticsBrokerPlugin()});
+    }
+    broker.start();
+    broker.waitUntilStarted();
+    connectionFactory = new ActiveMQConnectionFactory("vm://%s?create=false".formatted(name));
+  }
+
+  private void send(String queue, int count) throws JMSException {
+    try (Connection connection = connectionFactory.createConnection();
+        Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        MessageProducer producer = session.createProducer(session.createQueue(queue))) {
+      for (int i = 0; i < count; i++) {
+        producer.send(session.createTextMessage("message-" + i));
+      }
+    }
+  }
+}
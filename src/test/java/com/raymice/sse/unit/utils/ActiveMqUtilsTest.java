@@ -59,4 +59,41 @@ class ActiveMqUtilsTest {
     String result = ActiveMqUtils.getQueueUri(queueName, 5);
     assertEquals(expectedUri, result);
   }
+
+  @Test
+  void getQueueUri_AddsMaxConcurrentConsumers_WhenGreater() {
+    assertEquals(
+        "activemq:queue:orders?testConnectionOnStartup=true&concurrentConsumers=2&maxConcurrentConsumers=10",
+        ActiveMqUtils.getQueueUri("orders", 2, 10));
+    assertEquals(
+        "activemq:queue:orders?testConnectionOnStartup=true&concurrentConsumers=5",
+        ActiveMqUtils.getQueueUri("orders", 5, 5));
+  }
+
+  @Test
+  void getTargetConsumers_FollowsDemand_WithinBounds() {
+    assertEquals(8, ActiveMqUtils.getTargetConsumers(2, 8, 2, 10, false));
+    assertEquals(10, ActiveMqUtils.getTargetConsumers(2, 50, 2, 10, false));
+    assertEquals(3, ActiveMqUtils.getTargetConsumers(3, 3, 2, 10, false));
+  }
+
+  @Test
+  void getTargetConsumers_ScalesDownOneAtATime() {
+    assertEquals(7, ActiveMqUtils.getTargetConsumers(8, 0, 2, 10, false));
+    assertEquals(2, ActiveMqUtils.getTargetConsumers(2, 0, 2, 10, false));
+    // Bounds changed below the current number
+    assertEquals(10, ActiveMqUtils.getTargetConsumers(12, 20, 2, 10, false));
+  }
+
+  @Test
+  void getTargetConsumers_HoldsScaleUp_WhenSaturated() {
+    assertEquals(4, ActiveMqUtils.getTargetConsumers(4, 8, 2, 10, true));
+    assertEquals(3, ActiveMqUtils.getTargetConsumers(4, 0, 2, 10, true));
+  }
+
+  @Test
+  void getTargetConsumers_ThrowsException_ForInvalidBounds() {
+    assertThrows(
+        IllegalArgumentException.class, () -> ActiveMqUtils.getTargetConsumers(1, 1, 5, 2, false));
+  }
 }
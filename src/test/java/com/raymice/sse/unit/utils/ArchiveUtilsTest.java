@@ -0,0 +1,50 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.utils.ArchiveUtils;
+import com.raymice.sse.utils.ArchiveUtils.Format;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class ArchiveUtilsTest {
+
+  @Test
+  void getFormat_ReturnsFormat_ForArchiveExtensions() {
+    assertEquals(Optional.of(Format.ZIP), ArchiveUtils.getFormat("batch.zip"));
+    assertEquals(Optional.of(Format.TAR), ArchiveUtils.getFormat("batch.tar"));
+    assertEquals(Optional.of(Format.TAR_GZIP), ArchiveUtils.getFormat("batch.tar.gz"));
+    assertEquals(Optional.of(Format.TAR_GZIP), ArchiveUtils.getFormat("BATCH.TGZ"));
+    assertEquals(Optional.of(Format.GZIP), ArchiveUtils.getFormat("pacs.008.xml.gz"));
+  }
+
+  @Test
+  void getFormat_ReturnsEmpty_ForOtherFiles() {
+    assertTrue(ArchiveUtils.getFormat("pacs.008.001.08.xml").isEmpty());
+    assertTrue(ArchiveUtils.getFormat("zip").isEmpty());
+    assertTrue(ArchiveUtils.getFormat(null).isEmpty());
+  }
+
+  @Test
+  void getCompressedEntryName_RemovesGzipExtension() {
+    assertEquals("pacs.008.xml", ArchiveUtils.getCompressedEntryName("pacs.008.xml.gz"));
+    assertEquals("pacs.008.xml", ArchiveUtils.getCompressedEntryName("pacs.008.xml.GZ"));
+  }
+
+  @Test
+  void getEntryFileName_RemovesDirectories() {
+    assertEquals("a.xml", ArchiveUtils.getEntryFileName("batch/2025/a.xml"));
+    assertEquals("a.xml", ArchiveUtils.getEntryFileName("batch\\a.xml"));
+    assertEquals("a.xml", ArchiveUtils.getEntryFileName("a.xml"));
+  }
+
+  @Test
+  void isIgnored_SkipsHiddenAndMetadataEntries() {
+    assertTrue(ArchiveUtils.isIgnored("__MACOSX/batch/._a.xml"));
+    assertTrue(ArchiveUtils.isIgnored("batch/.DS_Store"));
+    assertFalse(ArchiveUtils.isIgnored("batch/a.xml"));
+  }
+}
@@ -2,9 +2,13 @@
 package com.raymice.sse.unit.utils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.raymice.sse.constant.Header;
 import com.raymice.sse.utils.CamelUtils;
+import java.time.LocalDateTime;
 import org.apache.camel.Exchange;
 import org.apache.camel.impl.DefaultCamelContext;
 import org.apache.camel.support.DefaultExchange;
@@ -35,6 +39,24 @@ class CamelUtilsTest {
     assertEquals(String.valueOf(processId), result);
   }
 
+  @Test
+  void getProcessCreatedAt_ReturnsHeaderValue() {
+    Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+    exchange.setIn(new DefaultMessage(exchange));
+    LocalDateTime createdAt = LocalDateTime.of(2025, 1, 2, 3, 4, 5, 123456000);
+    CamelUtils.setProcessCreatedAt(exchange, createdAt);
+
+    assertEquals(createdAt, CamelUtils.getProcessCreatedAt(exchange));
+  }
+
+  @Test
+  void getProcessCreatedAt_ReturnsNull_WhenHeaderIsMissing() {
+    Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+    exchange.setIn(new DefaultMessage(exchange));
+
+    assertNull(CamelUtils.getProcessCreatedAt(exchange));
+  }
+
   @Test
   void setOriginalFileName_SetsHeaderCorrectly() {
     Exchange exchange = new DefaultExchange(new DefaultCamelContext());
@@ -56,4 +78,31 @@ class CamelUtilsTest {
 
     assertEquals(originalFileName, result);
   }
+
+  @Test
+  void setClaimCheck_SetsAndRemovesHeader() {
+    Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+    exchange.setIn(new DefaultMessage(exchange));
+    assertFalse(CamelUtils.isClaimCheck(exchange));
+
+    CamelUtils.setClaimCheck(exchange, true);
+    assertTrue(CamelUtils.isClaimCheck(exchange));
+
+    CamelUtils.setClaimCheck(exchange, false);
+    assertFalse(CamelUtils.isClaimCheck(exchange));
+    assertNull(exchange.getIn().getHeader(Header.CUSTOM_HEADER_CLAIM_CHECK));
+  }
+
+  @Test
+  void setStagedFile_SetsAndRemovesHeader() {
+    Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+    exchange.setIn(new DefaultMessage(exchange));
+    assertNull(CamelUtils.getStagedFile(exchange));
+
+    CamelUtils.setStagedFile(exchange, "/tmp/input/.staged/$$1$$file.xml");
+    assertEquals("/tmp/input/.staged/$$1$$file.xml", CamelUtils.getStagedFile(exchange));
+
+    CamelUtils.removeStagedFile(exchange);
+    assertNull(CamelUtils.getStagedFile(exchange));
+  }
 }
@@ -0,0 +1,44 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.utils.CompressionUtils;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+class CompressionUtilsTest {
+
+  @Test
+  void inflate_ReturnsOriginalBytes_ForDeflatedXml() throws Exception {
+    byte[] xml = Files.readAllBytes(Path.of("src/test/resources/mx/pacs.008.001.08.xml"));
+    byte[] compressed = CompressionUtils.deflate(xml);
+
+    assertTrue(compressed.length < xml.length);
+    assertArrayEquals(xml, CompressionUtils.inflate(compressed));
+  }
+
+  @Test
+  void inflate_ReturnsEmptyBytes_ForDeflatedEmptyBytes() {
+    byte[] compressed = CompressionUtils.deflate(new byte[0]);
+
+    assertArrayEquals(new byte[0], CompressionUtils.inflate(compressed));
+  }
+
+  @Test
+  void inflate_ThrowsException_ForInvalidData() {
+    byte[] data = "not deflate".getBytes(StandardCharsets.UTF_8);
+
+    assertThrows(UncheckedIOException.class, () -> CompressionUtils.inflate(data));
+  }
+
+  @Test
+  void deflate_ThrowsException_ForNullData() {
+    assertThrows(NullPointerException.class, () -> CompressionUtils.deflate(null));
+  }
+}
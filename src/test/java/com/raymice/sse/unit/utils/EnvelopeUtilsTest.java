@@ -0,0 +1,96 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.utils.EnvelopeUtils;
+import com.raymice.sse.utils.MxUtils;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import javax.xml.stream.XMLStreamException;
+import org.junit.jupiter.api.Test;
+
+class EnvelopeUtilsTest {
+
+  private static final String HEAD = "urn:iso:std:iso:20022:tech:xsd:head.001.001.02";
+  private static final String PACS = "urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08";
+
+  private static final String ENVELOPE =
+      """
+      <?xml version="1.0" encoding="UTF-8"?>
+      <BizMsgEnvlp xmlns:h="%1$s">
+        <h:AppHdr><h:MsgDefIdr>pacs.008.001.08</h:MsgDefIdr></h:AppHdr>
+        <Document xmlns="%2$s"><Id a="1">First</Id></Document>
+        <Document xmlns="%2$s"><Id><![CDATA[Second]]></Id></Document>
+        <h:AppHdr><h:MsgDefIdr>pacs.008.001.08</h:MsgDefIdr></h:AppHdr>
+      </BizMsgEnvlp>
+      """
+          .formatted(HEAD, PACS);
+
+  @Test
+  void isEnvelope_ReturnsTrue_ForSeveralDocuments() {
+    assertTrue(EnvelopeUtils.isEnvelope(stream(ENVELOPE)));
+  }
+
+  @Test
+  void isEnvelope_ReturnsFalse_ForSingleMessages() {
+    assertFalse(EnvelopeUtils.isEnvelope(stream("<Document xmlns=\"%s\"/>".formatted(PACS))));
+    assertFalse(
+        EnvelopeUtils.isEnvelope(stream("<RequestPayload><AppHdr/><Document/></RequestPayload>")));
+    assertFalse(EnvelopeUtils.isEnvelope(stream("not xml")));
+  }
+
+  @Test
+  void split_ReturnsEachMessage_WithItsHeaderAndNamespaces() throws XMLStreamException {
+    try (EnvelopeUtils.Splitter splitter = EnvelopeUtils.split(stream(ENVELOPE))) {
+
+      // Header and document wrapped together, namespace of the envelope declared again
+      final String first = string(splitter.next());
+      assertTrue(first.contains("<RequestPayload><h:AppHdr xmlns:h=\"%s\">".formatted(HEAD)));
+      assertTrue(first.contains("<Id a=\"1\">First</Id></Document></RequestPayload>"));
+      assertEquals(PACS, MxUtils.parse(first).orElseThrow().documentNamespace());
+
+      // Document alone
+      final String second = string(splitter.next());
+      assertFalse(second.contains("RequestPayload"));
+      assertTrue(second.contains("<Id><![CDATA[Second]]></Id>"));
+      assertEquals(PACS, MxUtils.parse(second).orElseThrow().documentNamespace());
+
+      // Trailing header without document
+      final String third = string(splitter.next());
+      assertTrue(third.contains("<RequestPayload><h:AppHdr"));
+      assertEquals("pacs.008.001.08", MxUtils.parse(third).orElseThrow().msgDefIdr());
+
+      assertNull(splitter.next());
+    }
+  }
+
+  @Test
+  void split_Throws_ForMalformedEnvelope() throws XMLStreamException {
+    try (EnvelopeUtils.Splitter splitter =
+        EnvelopeUtils.split(stream("<root><Document/><Document></root>"))) {
+      assertTrue(string(splitter.next()).contains("<Document"));
+      assertThrows(XMLStreamException.class, splitter::next);
+    }
+  }
+
+  @Test
+  void getMessageFileName_NumbersMessagesAfterEnvelope() {
+    assertEquals("batch.1.xml", EnvelopeUtils.getMessageFileName("batch.xml", 1));
+    assertEquals("batch.12.xml", EnvelopeUtils.getMessageFileName("in/batch.xml", 12));
+    assertEquals("envelope.1.xml", EnvelopeUtils.getMessageFileName(null, 1));
+  }
+
+  private static InputStream stream(String xml) {
+    return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String string(byte[] bytes) {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
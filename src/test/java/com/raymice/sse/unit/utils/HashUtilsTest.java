@@ -0,0 +1,26 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.raymice.sse.utils.HashUtils;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class HashUtilsTest {
+
+  @Test
+  void sha256Hex_ReturnsKnownHash_ForEmptyInput() {
+    assertEquals(
+        "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+        HashUtils.sha256Hex(new byte[0]));
+  }
+
+  @Test
+  void sha256Hex_ReturnsDifferentHashes_ForDifferentInputs() {
+    assertNotEquals(
+        HashUtils.sha256Hex("<a/>".getBytes(StandardCharsets.UTF_8)),
+        HashUtils.sha256Hex("<b/>".getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -0,0 +1,84 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.prowidesoftware.swift.model.MxId;
+import com.raymice.sse.utils.MxUtils;
+import com.raymice.sse.utils.MxUtils.MxMetadata;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class MxUtilsTest {
+
+  @Test
+  void parse_ReturnsMxId_ForPacs008File() throws Exception {
+    String xml = Files.readString(Path.of("src/test/resources/mx/pacs.008.001.08.xml"));
+    Optional<MxMetadata> result = MxUtils.parse(xml);
+
+    assertTrue(result.isPresent());
+    assertEquals(
+        "urn:iso:std:iso:20022:tech:xsd:pacs.008.001.08", result.get().documentNamespace());
+    assertEquals("pacs.008.001.08", result.get().mxId().map(MxId::id).orElse(null));
+  }
+
+  @Test
+  void parse_ReturnsMsgDefIdr_ForAppHdrWithoutDocument() {
+    String xml =
+        "<AppHdr xmlns=\"urn:iso:std:iso:20022:tech:xsd:head.001.001.02\">"
+            + "<MsgDefIdr>pacs.008.001.08</MsgDefIdr></AppHdr>";
+    Optional<MxMetadata> result = MxUtils.parse(xml);
+
+    assertTrue(result.isPresent());
+    assertNull(result.get().documentNamespace());
+    assertEquals("pacs.008.001.08", result.get().msgDefIdr());
+    assertEquals("pacs.008.001.08", result.get().mxId().map(MxId::id).orElse(null));
+  }
+
+  @Test
+  void parse_PrefersDocumentNamespace_OverMsgDefIdr() {
+    String xml =
+        "<Envelope>"
+            + "<AppHdr xmlns=\"urn:iso:std:iso:20022:tech:xsd:head.001.001.02\">"
+            + "<MsgDefIdr>pacs.008.001.08</MsgDefIdr></AppHdr>"
+            + "<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:pacs.002.001.10\"/>"
+            + "</Envelope>";
+    Optional<MxMetadata> result = MxUtils.parse(xml);
+
+    assertTrue(result.isPresent());
+    assertEquals("pacs.002.001.10", result.get().mxId().map(MxId::id).orElse(null));
+  }
+
+  @Test
+  void parse_ReturnsEmptyMxId_ForUnknownXml() {
+    Optional<MxMetadata> result = MxUtils.parse("<root><child>Content</child></root>");
+
+    assertTrue(result.isPresent());
+    assertTrue(result.get().mxId().isEmpty());
+  }
+
+  @Test
+  void parse_ReturnsEmptyMxId_ForUnparsableNamespace() {
+    Optional<MxMetadata> result = MxUtils.parse("<Document xmlns=\"urn:foo\"/>");
+
+    assertTrue(result.isPresent());
+    assertTrue(result.get().mxId().isEmpty());
+  }
+
+  @Test
+  void parse_ReturnsEmpty_ForMalformedXml() throws Exception {
+    String xml = Files.readString(Path.of("src/test/resources/malformed.xml"));
+
+    assertTrue(MxUtils.parse(xml).isEmpty());
+  }
+
+  @Test
+  void parse_ReturnsEmpty_ForBlankInput() {
+    assertTrue(MxUtils.parse(" ").isEmpty());
+    assertTrue(MxUtils.parse(null).isEmpty());
+  }
+}
@@ -0,0 +1,73 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.raymice.sse.utils.PartitionUtils;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class PartitionUtilsTest {
+
+  @Test
+  void partitionName_ReturnsTableWithDaySuffix() {
+    assertEquals(
+        "process_p20250102", PartitionUtils.partitionName("process", LocalDate.of(2025, 1, 2)));
+  }
+
+  @Test
+  void partitionName_ThrowsException_ForBlankTable() {
+    assertThrows(
+        IllegalArgumentException.class, () -> PartitionUtils.partitionName(" ", LocalDate.now()));
+  }
+
+  @Test
+  void parseUpperBound_ReturnsUpperBound_ForRangePartition() {
+    String bound = "FOR VALUES FROM ('2025-01-01 00:00:00') TO ('2025-01-02 00:00:00')";
+
+    assertEquals(
+        Optional.of(LocalDateTime.of(2025, 1, 2, 0, 0)), PartitionUtils.parseUpperBound(bound));
+  }
+
+  @Test
+  void parseUpperBound_ReturnsUpperBound_ForMinValueLowerBound() {
+    String bound = "FOR VALUES FROM (MINVALUE) TO ('2025-01-02')";
+
+    assertEquals(
+        Optional.of(LocalDateTime.of(2025, 1, 2, 0, 0)), PartitionUtils.parseUpperBound(bound));
+  }
+
+  @Test
+  void parseUpperBound_ReturnsEmpty_ForDefaultOrMaxValue() {
+    assertTrue(PartitionUtils.parseUpperBound("DEFAULT").isEmpty());
+    assertTrue(
+        PartitionUtils.parseUpperBound("FOR VALUES FROM ('2025-01-01') TO (MAXVALUE)").isEmpty());
+    assertTrue(PartitionUtils.parseUpperBound(null).isEmpty());
+  }
+
+  @Test
+  void covers_ReturnsTrue_WithinTheRange() {
+    String bound = "FOR VALUES FROM ('2025-01-01 00:00:00') TO ('2025-01-02 00:00:00')";
+
+    assertTrue(PartitionUtils.covers(bound, LocalDateTime.of(2025, 1, 1, 0, 0)));
+    assertTrue(PartitionUtils.covers(bound, LocalDateTime.of(2025, 1, 1, 23, 59)));
+    assertFalse(PartitionUtils.covers(bound, LocalDateTime.of(2025, 1, 2, 0, 0)));
+    assertFalse(PartitionUtils.covers(bound, LocalDateTime.of(2024, 12, 31, 23, 59)));
+  }
+
+  @Test
+  void covers_ReturnsTrue_ForUnboundedOrDefaultPartitions() {
+    LocalDateTime at = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    assertTrue(PartitionUtils.covers("FOR VALUES FROM (MINVALUE) TO ('2025-01-02')", at));
+    assertTrue(PartitionUtils.covers("FOR VALUES FROM ('2025-01-01') TO (MAXVALUE)", at));
+    assertTrue(PartitionUtils.covers("DEFAULT", at));
+    assertFalse(PartitionUtils.covers("FOR VALUES FROM (MINVALUE) TO ('2025-01-01')", at));
+    assertFalse(PartitionUtils.covers(null, at));
+  }
+}
@@ -0,0 +1,79 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.raymice.sse.utils.CompressionUtils;
+import com.raymice.sse.utils.HashUtils;
+import com.raymice.sse.utils.PayloadUtils;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PayloadUtilsTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void stripLineBreaks_RemovesLineBreaksInPlace() {
+    byte[] data = "a\r\nb\nc\rd\u000Be\ff".getBytes(StandardCharsets.UTF_8);
+
+    int length = PayloadUtils.stripLineBreaks(data, data.length);
+
+    assertEquals("abcdef", new String(data, 0, length, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void stripLineBreaks_KeepsMultibyteCharacters() {
+    byte[] data = "é\n€\r\n𝄞".getBytes(StandardCharsets.UTF_8);
+
+    int length = PayloadUtils.stripLineBreaks(data, data.length);
+
+    assertEquals("é€𝄞", new String(data, 0, length, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void encode_MatchesStringStripping_ForXml() throws Exception {
+    Path file = Path.of("src/test/resources/mx/pacs.008.001.08.xml");
+    byte[] expected = Files.readString(file).replaceAll("\\R", "").getBytes(StandardCharsets.UTF_8);
+
+    PayloadUtils.Encoded encoded = PayloadUtils.encode(file);
+
+    assertEquals(HashUtils.sha256Hex(expected), encoded.hash());
+    assertEquals(expected.length, encoded.size());
+    assertArrayEquals(expected, CompressionUtils.inflate(encoded.content()));
+  }
+
+  @Test
+  void encode_SpansSeveralChunks() throws Exception {
+    byte[] line = "<Document>0123456789</Document>\r\n".getBytes(StandardCharsets.UTF_8);
+    byte[] content = new byte[line.length * 10_000];
+    for (int i = 0; i < 10_000; i++) {
+      System.arraycopy(line, 0, content, i * line.length, line.length);
+    }
+    Path file = Files.write(tempDir.resolve("large.xml"), content);
+    byte[] stripped =
+        new String(content, StandardCharsets.UTF_8)
+            .replaceAll("\\R", "")
+            .getBytes(StandardCharsets.UTF_8);
+
+    PayloadUtils.Encoded encoded = PayloadUtils.encode(file);
+
+    assertEquals(HashUtils.sha256Hex(stripped), encoded.hash());
+    assertArrayEquals(stripped, CompressionUtils.inflate(encoded.content()));
+  }
+
+  @Test
+  void encode_ReturnsEmptyPayload_ForEmptyFile() throws Exception {
+    Path file = Files.createFile(tempDir.resolve("empty.xml"));
+
+    PayloadUtils.Encoded encoded = PayloadUtils.encode(file);
+
+    assertEquals(0, encoded.size());
+    assertEquals(HashUtils.sha256Hex(new byte[0]), encoded.hash());
+    assertArrayEquals(new byte[0], CompressionUtils.inflate(encoded.content()));
+  }
+}
@@ -0,0 +1,39 @@
+/* Raymice - https://github.com/Raymice - 2025 */
+package com.raymice.sse.unit.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.raymice.sse.utils.SedaUtils;
+import org.junit.jupiter.api.Test;
+
+class SedaUtilsTest {
+
+  @Test
+  void getQueueUri_ReturnsCorrectUri_ForValidQueueName() {
+    String expectedUri = "seda:orders?size=1000&blockWhenFull=true&concurrentConsumers=5";
+
+    String result = SedaUtils.getQueueUri("orders", 1000, 5);
+    assertEquals(expectedUri, result);
+  }
+
+  @Test
+  void getQueueUri_ThrowsException_ForBlankQueueName() {
+    assertThrows(IllegalArgumentException.class, () -> SedaUtils.getQueueUri(" ", 1000, 5));
+  }
+
+  @Test
+  void getQueueUri_ThrowsException_ForNullQueueName() {
+    assertThrows(NullPointerException.class, () -> SedaUtils.getQueueUri(null, 1000, 5));
+  }
+
+  @Test
+  void getQueueUri_ThrowsException_ForInvalidSize() {
+    assertThrows(IllegalArgumentException.class, () -> SedaUtils.getQueueUri("orders", 0, 5));
+  }
+
+  @Test
+  void getQueueUri_ThrowsException_ForInvalidConcurrentConsumers() {
+    assertThrows(IllegalArgumentException.class, () -> SedaUtils.getQueueUri("orders", 1000, 0));
+  }
+}
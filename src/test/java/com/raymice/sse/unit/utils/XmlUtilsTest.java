@@ -1,11 +1,17 @@
 /* Raymice - https://github.com/Raymice - 2025 */
 package com.raymice.sse.unit.utils;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.raymice.sse.utils.XmlUtils;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.xml.validation.Schema;
 import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
 
 class XmlUtilsTest {
 
@@ -65,4 +71,102 @@ class XmlUtilsTest {
 
     assertTrue(result);
   }
+
+  @Test
+  void isXMLWellFormed_ReturnsFalse_ForUnclosedRootElement() {
+    String unclosedXML = "<root><child>Content</child>";
+    boolean result = XmlUtils.isXMLWellFormed(unclosedXML);
+
+    assertFalse(result);
+  }
+
+  @Test
+  void isXMLWellFormed_ReturnsFalse_ForMultipleRootElements() {
+    String multipleRootsXML = "<root>Content</root><root>Content</root>";
+    boolean result = XmlUtils.isXMLWellFormed(multipleRootsXML);
+
+    assertFalse(result);
+  }
+
+  @Test
+  void validate_DoesNotThrow_ForXMLComplyingWithSchema() throws Exception {
+    Schema schema =
+        XmlUtils.compileSchema(Path.of("src/test/resources/xsd/root.xsd").toUri().toURL());
+    String validXML = "<root><child>Content</child></root>";
+
+    assertDoesNotThrow(() -> XmlUtils.validate(schema, validXML));
+  }
+
+  @Test
+  void validate_ThrowsException_ForXMLNotComplyingWithSchema() throws Exception {
+    Schema schema =
+        XmlUtils.compileSchema(Path.of("src/test/resources/xsd/root.xsd").toUri().toURL());
+    String invalidXML = "<root><unexpected>Content</unexpected></root>";
+
+    assertThrows(SAXException.class, () -> XmlUtils.validate(schema, invalidXML));
+  }
+
+  @Test
+  void validate_ValidatesNamedElementOnly_ForWrappedXML() throws Exception {
+    Schema schema =
+        XmlUtils.compileSchema(Path.of("src/test/resources/xsd/root.xsd").toUri().toURL());
+    String wrappedXML =
+        "<RequestPayload><AppHdr>Header</AppHdr><root><child>Content</child></root></RequestPayload>";
+
+    assertDoesNotThrow(() -> XmlUtils.validate(schema, wrappedXML, "root"));
+    assertThrows(SAXException.class, () -> XmlUtils.validate(schema, wrappedXML, null));
+  }
+
+  @Test
+  void compileSchema_ResolvesIncludedSchemas() throws Exception {
+    Schema schema =
+        XmlUtils.compileSchema(Path.of("src/test/resources/xsd/include/root.xsd").toUri().toURL());
+
+    assertDoesNotThrow(() -> XmlUtils.validate(schema, "<root><child>Content</child></root>"));
+    assertThrows(
+        SAXException.class,
+        () -> XmlUtils.validate(schema, "<root><unexpected>Content</unexpected></root>"));
+  }
+
+  @Test
+  void validate_DoesNotThrow_ForBundledPacs008Schema() throws Exception {
+    Schema schema =
+        XmlUtils.compileSchema(
+            Path.of("src/main/resources/xsd/pacs.008.001.08.xsd").toUri().toURL());
+    String xml = Files.readString(Path.of("src/test/resources/mx/pacs.008.001.08.xml"));
+
+    assertDoesNotThrow(() -> XmlUtils.validate(schema, xml, "Document"));
+    assertThrows(
+        SAXException.class,
+        () -> XmlUtils.validate(schema, xml.replace("<ChrgBr>SHAR</ChrgBr>", ""), "Document"));
+  }
+
+  @Test
+  void validate_ThrowsException_ForBundledPacs008Schema_WhenAFacetIsViolated() throws Exception {
+    Schema schema =
+        XmlUtils.compileSchema(
+            Path.of("src/main/resources/xsd/pacs.008.001.08.xsd").toUri().toURL());
+    String xml = Files.readString(Path.of("src/test/resources/mx/pacs.008.001.08.xml"));
+
+    // Max35Text
+    assertThrows(
+        SAXException.class,
+        () ->
+            XmlUtils.validate(
+                schema, xml.replace("MSGID123456789", "MSGID123456789".repeat(3)), "Document"));
+    // BICFIDec2014Identifier
+    assertThrows(
+        SAXException.class,
+        () -> XmlUtils.validate(schema, xml.replace("BANKDEBBXXX", "bankdebbxxx"), "Document"));
+    // ActiveCurrencyAndAmount (5 fraction digits at most)
+    assertThrows(
+        SAXException.class,
+        () ->
+            XmlUtils.validate(
+                schema,
+                xml.replace(
+                    "<IntrBkSttlmAmt Ccy=\"EUR\">100.00</IntrBkSttlmAmt>",
+                    "<IntrBkSttlmAmt Ccy=\"EUR\">100.000001</IntrBkSttlmAmt>"),
+                "Document"));
+  }
 }